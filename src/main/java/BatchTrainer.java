@@ -0,0 +1,538 @@
+/*
+ * File:    BatchTrainer.java
+ * Created: October 17, 2026
+ * Author:  agent
+ * Project: Irrigation Recommendation System (IRS)
+ */
+
+import org.deeplearning4j.eval.RegressionEvaluation;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * <p>
+ * The BatchTrainer class trains every crop/soil model listed in a
+ * manifest in one job (e.g., a nightly retrain) instead of one at a time
+ * through the GUI.  Models are trained at the same time on a fixed
+ * number of threads.  Each data file is loaded once, with every channel
+ * any of its models uses, and shared by those models.  Each model is
+ * saved as [crop][soil]Params.zip in the output directory, as the GUI
+ * does, and a summary of every model is written next to them.
+ * </p>
+ *
+ * <p>
+ * Each manifest line is crop,soil,data path[,channel...]; the data path
+ * can be anything SensorSource reads (a csv, directory, glob or zip) and
+ * the channels (see SensorSchema) default to every channel.  Blank lines
+ * and lines starting with # are skipped.
+ * </p>
+ *
+ * <p>
+ * Usage: BatchTrainer [manifest] [output directory] [threads] [epochs]
+ * </p>
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class BatchTrainer
+{
+    /* Variables */
+
+    /**
+     * The name of the summary file written to the output directory.
+     */
+    public static final String SUMMARY_FILE = "batch-summary.txt";
+
+    /**
+     * The models to train, in manifest order.
+     */
+    private List<Job> jobs;
+
+    /**
+     * The directory the models and summary are written to.
+     */
+    private File outputDirectory;
+
+    /**
+     * The number of models trained at the same time.
+     */
+    private int threads;
+
+    /**
+     * The number of epochs each model trains for.
+     */
+    private int epochs = 1;
+
+    /* Constructors */
+
+    /**
+     * Default constructor for the BatchTrainer class; trains a model per
+     * processor at a time.
+     * @param manifest the manifest file
+     * @param output the directory the models and summary are written to
+     * @throws IOException if the manifest can't be read
+     */
+    public BatchTrainer(File manifest, File output) throws IOException
+    {
+        jobs = readManifest(manifest);
+        outputDirectory = output;
+        threads = Runtime.getRuntime().availableProcessors();
+    }
+
+    /* Methods */
+
+    /**
+     * Main method for running a batch from the command line.
+     * @param args manifest path, output directory, threads and epochs
+     */
+    public static void main(String[] args)
+    {
+        if (args.length < 1)
+        {
+            System.err.println("Usage: BatchTrainer [manifest] [output directory] [threads] [epochs]");
+
+            return;
+        }
+
+        try
+        {
+            BatchTrainer batch = new BatchTrainer(new File(args[0]), new File(args.length > 1 ? args[1] : "."));
+
+            if (args.length > 2)
+            {
+                batch.setThreads(Integer.parseInt(args[2]));
+            }
+
+            if (args.length > 3)
+            {
+                batch.setEpochs(Integer.parseInt(args[3]));
+            }
+
+            System.out.println(batch.run());
+        }
+        catch (IOException e)
+        {
+            System.err.println("Caught IOException: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads the models to train from a manifest.
+     * @param manifest the manifest file
+     * @return a job per model
+     * @throws IOException if the manifest can't be read or a line is malformed
+     */
+    public static List<Job> readManifest(File manifest) throws IOException
+    {
+        List<Job> read = new ArrayList<Job>();
+        BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(manifest), "UTF-8"));
+
+        try
+        {
+            String line;
+            int number = 0;
+
+            while ((line = br.readLine()) != null)
+            {
+                number++;
+                line = line.trim();
+
+                if (line.isEmpty() || line.startsWith("#"))
+                {
+                    continue;
+                }
+
+                String[] fields = line.split(",");
+
+                if (fields.length < 3)
+                {
+                    throw new IOException("Manifest line " + number + " needs crop,soil,data path: " + line);
+                }
+
+                StringBuilder channels = new StringBuilder();
+
+                for (int f = 3; f < fields.length; f++)
+                {
+                    channels.append(channels.length() == 0 ? "" : ",").append(fields[f]);
+                }
+
+                try
+                {
+                    read.add(new Job(fields[0].trim(), fields[1].trim(), fields[2].trim(),
+                            SensorSchema.parseChannels(channels.toString())));
+                }
+                catch (IllegalArgumentException e)
+                {
+                    throw new IOException("Manifest line " + number + ": " + e.getMessage());
+                }
+            }
+        }
+        finally
+        {
+            br.close();
+        }
+
+        return read;
+    }
+
+    /**
+     * Loads the data files, trains every model and writes the summary.
+     * @return the summary
+     * @throws IOException if the summary can't be written
+     */
+    public String run() throws IOException
+    {
+        long start = System.nanoTime();
+
+        if (!outputDirectory.isDirectory() && !outputDirectory.mkdirs())
+        {
+            throw new IOException("Could not create " + outputDirectory.getPath());
+        }
+
+        Map<String, List<SensorData>> loaded = load();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+        List<Future<?>> results = new ArrayList<Future<?>>();
+
+        for (final Job job : jobs)
+        {
+            final List<SensorData> data = loaded.get(job.dataPath);
+
+            results.add(pool.submit(new Callable<Void>()
+            {
+                public Void call()
+                {
+                    train(job, data);
+
+                    return null;
+                }
+            }));
+        }
+
+        try
+        {
+            for (Future<?> result : results)
+            {
+                result.get();
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        catch (ExecutionException e)
+        {
+            //print to console - this isn't a message to be displayed to the user
+            System.err.println("Caught ExecutionException: " + e.getCause());
+        }
+        finally
+        {
+            pool.shutdownNow();
+        }
+
+        String summary = summary((System.nanoTime() - start) / 1e9, loaded.size());
+        PrintWriter out = new PrintWriter(new OutputStreamWriter(
+                new FileOutputStream(new File(outputDirectory, SUMMARY_FILE)), "UTF-8"));
+
+        try
+        {
+            out.print(summary);
+        }
+        finally
+        {
+            out.close();
+        }
+
+        return summary;
+    }
+
+    /**
+     * Loads each data file once, with every channel its models use.
+     * @return the loaded series (one per field) by data path (missing if it couldn't be loaded)
+     */
+    private Map<String, List<SensorData>> load()
+    {
+        //data path -> the union of its models' channels (null = every channel)
+        Map<String, Set<String>> needed = new LinkedHashMap<String, Set<String>>();
+
+        for (Job job : jobs)
+        {
+            if (!needed.containsKey(job.dataPath))
+            {
+                needed.put(job.dataPath, job.channels == null ? null : new TreeSet<String>(job.channels));
+            }
+            else if (needed.get(job.dataPath) != null)
+            {
+                if (job.channels == null)
+                {
+                    needed.put(job.dataPath, null);
+                }
+                else
+                {
+                    needed.get(job.dataPath).addAll(job.channels);
+                }
+            }
+        }
+
+        Map<String, List<SensorData>> loaded = new HashMap<String, List<SensorData>>();
+
+        for (Map.Entry<String, Set<String>> path : needed.entrySet())
+        {
+            try
+            {
+                //files that overlap in time (e.g., several fields) are kept as separate series
+                loaded.put(path.getKey(), new SensorSource(path.getKey(), path.getValue()).series());
+            }
+            catch (Exception e)
+            {
+                //print to console - this isn't a message to be displayed to the user
+                System.err.println("Caught Exception: " + path.getKey() + " couldn't be loaded: " + e.getMessage());
+            }
+        }
+
+        return loaded;
+    }
+
+    /**
+     * Trains and saves one model.
+     * @param job the model to train
+     * @param fields the model's loaded series (one per field), or null if they couldn't be loaded
+     */
+    private void train(Job job, List<SensorData> fields)
+    {
+        if (fields == null || fields.isEmpty())
+        {
+            job.status = "data couldn't be loaded";
+
+            return;
+        }
+
+        long start = System.nanoTime();
+
+        try
+        {
+            SensorData data = fields.get(0);
+            int numColumns = SensorSchema.fromHeader(data.getHeader(), job.channels).inputColumns();
+            IRSFunctions model = new IRSFunctions(500, 1, 250, 250, epochs, data, numColumns, job.channels);
+
+            for (int i = 1; i < fields.size(); i++)
+            {
+                model.addSeries(fields.get(i), numColumns);
+            }
+
+            //each model counts its own iterations, with no periodic summary lines (models trained at the
+            //same time would interleave them)
+            job.telemetry = new TrainingTelemetry(10, 0);
+            model.setTelemetry(job.telemetry);
+            model.setCropType(job.crop);
+            model.setSoilType(job.soil);
+            model.setSaveDirectory(outputDirectory);
+            model.setPrefetchDepth(0);
+
+            RegressionEvaluation evaluation = model.runModel(0);
+
+            job.seconds = (System.nanoTime() - start) / 1e9;
+
+            if (evaluation == null)
+            {
+                job.status = "couldn't be saved";
+
+                return;
+            }
+
+            job.dataSets = model.getIterator().totalExamples();
+            job.error = evaluation.meanSquaredError(0);
+            job.modelFile = model.getSavedParametersFile();
+            job.status = "done";
+        }
+        catch (RuntimeException e)
+        {
+            job.seconds = (System.nanoTime() - start) / 1e9;
+            job.status = "failed: " + e.getMessage();
+        }
+    }
+
+    /**
+     * Returns the summary of the last run.
+     * @param seconds the run's wall-clock seconds
+     * @param files the number of data files loaded
+     * @return a line per model followed by the totals
+     */
+    private String summary(double seconds, int files)
+    {
+        StringBuilder table = new StringBuilder(String.format("%-12s %-12s %-10s %-12s %-8s %-40s %s%n",
+                "Crop", "Soil", "Train s", "Train MSE", "DataSets", "Model", "Status"));
+        int done = 0;
+
+        for (Job job : jobs)
+        {
+            table.append(String.format("%-12s %-12s %-10.1f %-12.5g %-8d %-40s %s%n", job.crop, job.soil,
+                    job.seconds, job.error, job.dataSets, job.modelFile == null ? job.dataPath : job.modelFile,
+                    job.status));
+
+            done += job.status.equals("done") ? 1 : 0;
+        }
+
+        table.append(String.format("%d of %d models trained from %d data files in %.1f s on %d threads%n",
+                done, jobs.size(), files, seconds, threads));
+
+        return table.toString();
+    }
+
+    /**
+     * Sets the number of models trained at the same time.
+     * @param numThreads the number of threads
+     */
+    public void setThreads(int numThreads)
+    {
+        threads = Math.max(1, numThreads);
+    }
+
+    /**
+     * Sets the number of epochs each model trains for.
+     * @param numEpochs the number of epochs
+     */
+    public void setEpochs(int numEpochs)
+    {
+        epochs = Math.max(1, numEpochs);
+    }
+
+    /**
+     * Returns the models in the manifest.
+     * @return the jobs, in manifest order
+     */
+    public List<Job> getJobs()
+    {
+        return jobs;
+    }
+
+    /* Public Classes */
+
+    /**
+     * One model from the manifest and, once trained, its results.
+     */
+    public static class Job
+    {
+        /**
+         * The crop type.
+         */
+        private final String crop;
+
+        /**
+         * The soil type.
+         */
+        private final String soil;
+
+        /**
+         * The data to train on.
+         */
+        private final String dataPath;
+
+        /**
+         * The channels to use, or null for every channel.
+         */
+        private final Set<String> channels;
+
+        /**
+         * What happened to the model.
+         */
+        private volatile String status = "not run";
+
+        /**
+         * The seconds spent loading and training.
+         */
+        private volatile double seconds;
+
+        /**
+         * The MSE over every record the model was trained on; nothing is
+         * held out, so it's a training error (see IRSFunctions.runModel).
+         */
+        private volatile double error = Double.NaN;
+
+        /**
+         * The number of DataSets in an epoch.
+         */
+        private volatile int dataSets;
+
+        /**
+         * The saved model file, or null.
+         */
+        private volatile String modelFile;
+
+        /**
+         * The model's training telemetry, or null if it wasn't trained.
+         */
+        private volatile TrainingTelemetry telemetry;
+
+        /**
+         * Default constructor for the Job class.
+         * @param cropType the crop type
+         * @param soilType the soil type
+         * @param path the data to train on
+         * @param modelChannels the channels to use, or null for every channel
+         */
+        public Job(String cropType, String soilType, String path, Set<String> modelChannels)
+        {
+            crop = cropType;
+            soil = soilType;
+            dataPath = path;
+            channels = modelChannels;
+        }
+
+        /**
+         * Returns what happened to the model.
+         * @return done, not run, or why it failed
+         */
+        public String getStatus()
+        {
+            return status;
+        }
+
+        /**
+         * Returns the saved model file.
+         * @return the model file, or null if it wasn't saved
+         */
+        public String getModelFile()
+        {
+            return modelFile;
+        }
+
+        /**
+         * Returns the model's training telemetry (e.g., its time steps per
+         * second).
+         * @return the telemetry, or null if the model wasn't trained
+         */
+        public TrainingTelemetry getTelemetry()
+        {
+            return telemetry;
+        }
+
+        /**
+         * Returns a short description of the job.
+         * @return crop, soil, data path and channels
+         */
+        public String toString()
+        {
+            return crop + "/" + soil + " from " + dataPath + " (channels: " +
+                    (channels == null ? "all" : Arrays.toString(channels.toArray())) + ")";
+        }
+    }
+}
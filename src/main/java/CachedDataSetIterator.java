@@ -0,0 +1,479 @@
+/*
+ * File:    CachedDataSetIterator.java
+ * Created: October 17, 2026
+ * Author:  agent
+ * Project: Irrigation Recommendation System (IRS)
+ */
+
+import org.bytedeco.javacpp.Pointer;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.dataset.api.DataSetPreProcessor;
+import org.nd4j.linalg.dataset.api.iterator.DataSetIterator;
+import org.nd4j.linalg.factory.Nd4j;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>
+ * The CachedDataSetIterator class wraps another DataSetIterator and keeps
+ * every (already normalized) DataSet from the first pass, then replays
+ * them for every later pass without going back to the source.  Training
+ * for several epochs then costs the windowing and normalizing only once.
+ * </p>
+ *
+ * <p>
+ * DataSets are kept as ND4J arrays (off-heap) until they reach a byte
+ * budget, which defaults to half of the off-heap memory still free;
+ * past that they're copied into float arrays on the Java heap and turned
+ * back into ND4J arrays when they're replayed.  A reset before the first
+ * pass has finished starts the pass (and the cache) over.  stats()
+ * reports how much memory the cache holds.
+ * </p>
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class CachedDataSetIterator implements DataSetIterator
+{
+    /* Variables */
+
+    /**
+     * The iterator the first pass reads from.
+     */
+    private final DataSetIterator source;
+
+    /**
+     * The most bytes kept off-heap; later DataSets go on the heap.
+     */
+    private final long offHeapBudget;
+
+    /**
+     * The cached DataSets, in order.
+     */
+    private List<CachedDataSet> cache = new ArrayList<CachedDataSet>();
+
+    /**
+     * If the first pass has finished, so passes replay the cache.
+     */
+    private boolean complete;
+
+    /**
+     * The next cached DataSet to replay.
+     */
+    private int position;
+
+    /**
+     * The bytes of ND4J arrays held by the cache.
+     */
+    private long offHeapBytes;
+
+    /**
+     * The bytes of float arrays held by the cache.
+     */
+    private long onHeapBytes;
+
+    /* Constructors */
+
+    /**
+     * Default constructor for the CachedDataSetIterator class; keeps up to
+     * half of the free off-heap memory off-heap.
+     * @param iterator the iterator to cache
+     */
+    public CachedDataSetIterator(DataSetIterator iterator)
+    {
+        this(iterator, Math.max(0, Pointer.maxBytes() - Pointer.totalBytes()) / 2);
+    }
+
+    /**
+     * Constructor for the CachedDataSetIterator class with an off-heap budget.
+     * @param iterator the iterator to cache
+     * @param maxOffHeapBytes the most bytes to keep off-heap (0 keeps
+     * everything on the heap)
+     */
+    public CachedDataSetIterator(DataSetIterator iterator, long maxOffHeapBytes)
+    {
+        source = iterator;
+        offHeapBudget = Math.max(0, maxOffHeapBytes);
+    }
+
+    /* Methods */
+
+    /**
+     * Determines if another DataSet is available in this pass.
+     * @return if there's another DataSet
+     */
+    public boolean hasNext()
+    {
+        if (complete)
+        {
+            return position < cache.size();
+        }
+
+        if (source.hasNext())
+        {
+            return true;
+        }
+
+        complete = true;
+
+        return false;
+    }
+
+    /**
+     * Returns the next DataSet, reading (and caching) it from the source
+     * during the first pass.
+     * @return the next DataSet
+     */
+    public DataSet next()
+    {
+        if (!hasNext())
+        {
+            throw new NoSuchElementException();
+        }
+
+        if (complete)
+        {
+            return cache.get(position++).toDataSet();
+        }
+
+        DataSet ds = source.next();
+        long bytes = bytes(ds);
+
+        if (offHeapBytes + bytes <= offHeapBudget)
+        {
+            cache.add(new CachedDataSet(ds));
+            offHeapBytes += bytes;
+        }
+        else
+        {
+            cache.add(new CachedDataSet(heapCopy(ds.getFeatures()), heapCopy(ds.getLabels()),
+                    heapCopy(ds.getFeaturesMaskArray()), heapCopy(ds.getLabelsMaskArray())));
+            onHeapBytes += bytes;
+        }
+
+        position = cache.size();
+
+        return ds;
+    }
+
+    /**
+     * Not supported; DataSets are cached with the source's batch size.
+     * @param num the number of minibatches
+     * @return nothing
+     */
+    public DataSet next(int num)
+    {
+        throw new UnsupportedOperationException("Functionality not implemented");
+    }
+
+    /**
+     * Starts the next pass.  Once the first pass has finished this only
+     * rewinds the cache; before that the source is reset and the cache
+     * is started over.
+     */
+    public void reset()
+    {
+        if (!complete)
+        {
+            clear();
+            source.reset();
+        }
+
+        position = 0;
+    }
+
+    /**
+     * Drops the cached DataSets so the next pass reads from the source again.
+     */
+    public void clear()
+    {
+        cache = new ArrayList<CachedDataSet>();
+        complete = false;
+        position = 0;
+        offHeapBytes = 0;
+        onHeapBytes = 0;
+    }
+
+    /**
+     * Returns whether the first pass has finished and passes replay the cache.
+     * @return if the cache is complete
+     */
+    public boolean isComplete()
+    {
+        return complete;
+    }
+
+    /**
+     * Returns the number of cached DataSets.
+     * @return the number of cached DataSets
+     */
+    public int getCachedCount()
+    {
+        return cache.size();
+    }
+
+    /**
+     * Returns the bytes of ND4J (off-heap) arrays held by the cache.  Views
+     * into shared arrays (see IRSIterator.setStride) are counted in full.
+     * @return the off-heap footprint in bytes
+     */
+    public long getOffHeapBytes()
+    {
+        return offHeapBytes;
+    }
+
+    /**
+     * Returns the bytes of float arrays held by the cache on the heap.
+     * @return the on-heap footprint in bytes
+     */
+    public long getOnHeapBytes()
+    {
+        return onHeapBytes;
+    }
+
+    /**
+     * Returns a one line summary of the cache's footprint.
+     * @return the cache statistics
+     */
+    public String stats()
+    {
+        return String.format("DataSet cache (%s): %d DataSets, %.1f MB off-heap, %.1f MB on-heap",
+                complete ? "complete" : "filling", cache.size(), offHeapBytes / 1e6, onHeapBytes / 1e6);
+    }
+
+    /**
+     * Returns the bytes held by a DataSet's arrays.
+     * @param ds the DataSet
+     * @return the bytes in its features, labels and masks
+     */
+    private static long bytes(DataSet ds)
+    {
+        return bytes(ds.getFeatures()) + bytes(ds.getLabels()) +
+                bytes(ds.getFeaturesMaskArray()) + bytes(ds.getLabelsMaskArray());
+    }
+
+    /**
+     * Returns the bytes held by an array.
+     * @param array the array, or null
+     * @return the array's length times its element size
+     */
+    private static long bytes(INDArray array)
+    {
+        return array == null ? 0 : array.length() * (long) array.data().getElementSize();
+    }
+
+    /**
+     * Copies an array to the heap.
+     * @param array the array, or null
+     * @return the heap copy, or null
+     */
+    private static HeapArray heapCopy(INDArray array)
+    {
+        return array == null ? null : new HeapArray(array.dup('f').data().asFloat(), array.shape());
+    }
+
+    /**
+     * Returns the number of DataSets in a pass.
+     * @return the number of DataSets in a pass
+     */
+    public int totalExamples()
+    {
+        return complete ? cache.size() : source.totalExamples();
+    }
+
+    /**
+     * Returns the source's number of input columns.
+     * @return the number of input columns
+     */
+    public int inputColumns()
+    {
+        return source.inputColumns();
+    }
+
+    /**
+     * Returns the source's number of output columns.
+     * @return the number of output columns
+     */
+    public int totalOutcomes()
+    {
+        return source.totalOutcomes();
+    }
+
+    /**
+     * Returns true since a pass can always be replayed.
+     * @return true
+     */
+    public boolean resetSupported()
+    {
+        return true;
+    }
+
+    /**
+     * Returns false since replayed DataSets are already in memory.
+     * @return false
+     */
+    public boolean asyncSupported()
+    {
+        return false;
+    }
+
+    /**
+     * Returns the source's minibatch size.
+     * @return the minibatch size
+     */
+    public int batch()
+    {
+        return source.batch();
+    }
+
+    /**
+     * Returns the number of DataSets handed out in this pass.
+     * @return the position in the pass
+     */
+    public int cursor()
+    {
+        return position;
+    }
+
+    /**
+     * Returns the source's example length.
+     * @return the number of examples
+     */
+    public int numExamples()
+    {
+        return source.numExamples();
+    }
+
+    /**
+     * Sets the source's preProcessor; the cache is started over since the
+     * cached DataSets were normalized with the old one.
+     * @param preProcessor the preprocessor to use
+     */
+    public void setPreProcessor(DataSetPreProcessor preProcessor)
+    {
+        source.setPreProcessor(preProcessor);
+        clear();
+    }
+
+    /**
+     * Returns the source's preProcessor.
+     * @return the preProcessor in use
+     */
+    public DataSetPreProcessor getPreProcessor()
+    {
+        return source.getPreProcessor();
+    }
+
+    /**
+     * Returns the source's labels.
+     * @return a list of labels
+     */
+    public List<String> getLabels()
+    {
+        return source.getLabels();
+    }
+
+    /**
+     * Removes the iterator; not currently supported.
+     */
+    public void remove()
+    {
+        throw new UnsupportedOperationException("Functionality not implemented");
+    }
+
+    /* Private Classes */
+
+    /**
+     * An array copied to the heap, in 'f' order.
+     */
+    private static class HeapArray
+    {
+        /**
+         * The values in 'f' order.
+         */
+        private final float[] values;
+
+        /**
+         * The array's shape.
+         */
+        private final int[] shape;
+
+        /**
+         * Default constructor for the HeapArray class.
+         * @param data the values in 'f' order
+         * @param arrayShape the array's shape
+         */
+        private HeapArray(float[] data, int[] arrayShape)
+        {
+            values = data;
+            shape = arrayShape;
+        }
+
+        /**
+         * Copies the values back into an ND4J array.
+         * @return the array
+         */
+        private INDArray toArray()
+        {
+            return Nd4j.create(values, shape, 'f');
+        }
+    }
+
+    /**
+     * A cached DataSet, held either as the DataSet itself (off-heap) or as
+     * heap copies of its arrays.
+     */
+    private static class CachedDataSet
+    {
+        /**
+         * The DataSet, or null if it's held on the heap.
+         */
+        private final DataSet offHeap;
+
+        /**
+         * Heap copies of the features, labels and masks (null entries for
+         * missing masks), or null if the DataSet is held off-heap.
+         */
+        private final HeapArray[] onHeap;
+
+        /**
+         * Constructor for a DataSet kept off-heap.
+         * @param ds the DataSet
+         */
+        private CachedDataSet(DataSet ds)
+        {
+            offHeap = ds;
+            onHeap = null;
+        }
+
+        /**
+         * Constructor for a DataSet kept on the heap.
+         * @param features the features
+         * @param labels the labels
+         * @param featuresMask the features mask, or null
+         * @param labelsMask the labels mask, or null
+         */
+        private CachedDataSet(HeapArray features, HeapArray labels, HeapArray featuresMask, HeapArray labelsMask)
+        {
+            offHeap = null;
+            onHeap = new HeapArray[]{features, labels, featuresMask, labelsMask};
+        }
+
+        /**
+         * Returns the DataSet, copying it back off the heap if needed.
+         * @return the DataSet
+         */
+        private DataSet toDataSet()
+        {
+            if (offHeap != null)
+            {
+                return offHeap;
+            }
+
+            return new DataSet(onHeap[0].toArray(), onHeap[1].toArray(),
+                    onHeap[2] == null ? null : onHeap[2].toArray(), onHeap[3] == null ? null : onHeap[3].toArray());
+        }
+    }
+}
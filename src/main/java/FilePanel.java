@@ -76,6 +76,9 @@ public class FilePanel extends JPanel implements ActionListener
         filePath = new JTextField("File path");
         file = new JFileChooser();
 
+        //a directory can be chosen to load every csv/zip in it
+        file.setFileSelectionMode(JFileChooser.FILES_AND_DIRECTORIES);
+
         setLayout(new GridLayout(0, 3));
 
         browse.addActionListener(this);
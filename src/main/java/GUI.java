@@ -232,11 +232,21 @@ public class GUI extends JFrame
 
     /**
      * Sets the number of columns for the uploaded
-     * csv file based on the number of sensor depths
-     * that were provided.
+     * csv file from its header (see SensorSchema).
+     * If the header can't be read, the number of
+     * sensor depths that were provided is used.
      */
     public void setNumColumns()
     {
+        SensorSchema schema = fp.getPath() == null ? null : SensorSchema.read(fp.getPath());
+
+        if (schema != null)
+        {
+            numColumns = schema.inputColumns();
+
+            return;
+        }
+
         int sensorDepths = 0;
 
         for (int i = 1; i < 4; i++)
@@ -247,31 +257,13 @@ public class GUI extends JFrame
             }
         }
 
-        /*
-         *
-         * If 1 sensor depth, csv should have
-         * 7 columns.  2 sensor depths =
-         * csv with 10 columns.  3 sensor
-         * depths = csv with 13 columns.
-         */
-        if (sensorDepths == 2)
-        {
-            numColumns = 10;
-        }
-        else if (sensorDepths == 3)
-        {
-            numColumns = 13;
-        }
-        else
-        {
-            numColumns = 7;
-        }
-
+        //each sensor adds 3 columns (VWC, EC, temp) to the time/date and weather columns
+        numColumns = SensorSchema.inputColumnsFor(Math.max(1, sensorDepths));
     }
 
     /**
-     * Returns the number of columns in the uploaded csv.  This
-     * value is determined in the setNumColumns function.
+     * Returns the number of input columns for the uploaded csv.
+     * This value is determined in the setNumColumns function.
      * @return the number of columns in the uploaded csv
      */
     public int getNumColumns()
@@ -0,0 +1,664 @@
+/*
+ * File:    HyperparameterSearch.java
+ * Created: October 17, 2026
+ * Author:  agent
+ * Project: Irrigation Recommendation System (IRS)
+ */
+
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.nd4j.linalg.dataset.DataSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * <p>
+ * The HyperparameterSearch class trains one model per combination of
+ * layer size, TBPTT length, example length and learning rate (every
+ * combination, or a random sample of them) and ranks them.  Trials run
+ * at the same time on a fixed number of threads and share one copy of
+ * the loaded data.  The search has a wall-clock budget: trials that
+ * haven't started by then are skipped and running ones are cut off.
+ * </p>
+ *
+ * <p>
+ * The last part of the data (20% by default) is held out for validation.
+ * Trials are ranked by validation MSE times training seconds, so a model
+ * that is nearly as accurate but much cheaper ranks higher; cheapest()
+ * picks the fastest model under an error limit.
+ * </p>
+ *
+ * <p>
+ * Usage: HyperparameterSearch [csv file] [number of columns] [budget
+ * seconds] [threads] [random trials (0 = every combination)]
+ * </p>
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class HyperparameterSearch
+{
+    /* Variables */
+
+    /**
+     * The default fraction of the records held out for validation.
+     */
+    public static final double DEFAULT_VALIDATION_FRACTION = 0.2;
+
+    /**
+     * The records trials are trained on.
+     */
+    private SensorData training;
+
+    /**
+     * The records trials are scored on.
+     */
+    private SensorData validation;
+
+    /**
+     * The number of columns for the data.
+     */
+    private int numColumns;
+
+    /**
+     * The channels to use, or null for every channel.
+     */
+    private Set<String> channels;
+
+    /**
+     * The layer sizes to try.
+     */
+    private int[] layerSizes = {50, 100, 200, 500};
+
+    /**
+     * The TBPTT lengths to try.
+     */
+    private int[] tbpttSizes = {50, 100, 250};
+
+    /**
+     * The example lengths to try.
+     */
+    private int[] exampleSizes = {50, 100, 250};
+
+    /**
+     * The learning rates to try.
+     */
+    private double[] learningRates = {0.0003, 0.001, 0.003, 0.01};
+
+    /**
+     * The number of minibatches in each DataSet.
+     */
+    private int miniBatches = 1;
+
+    /**
+     * The number of epochs each trial trains for.
+     */
+    private int epochs = 1;
+
+    /**
+     * The number of trials run at the same time.
+     */
+    private int threads;
+
+    /**
+     * The wall-clock budget for the whole search, in milliseconds.
+     */
+    private long budgetMillis;
+
+    /* Constructors */
+
+    /**
+     * Default constructor for the HyperparameterSearch class; holds out the
+     * last 20% of the records, runs a trial per processor and has a one
+     * hour budget.
+     * @param sensorData the loaded csv data
+     * @param cols the number of columns for the data
+     * @param modelChannels the channels to use, or null for every channel
+     */
+    public HyperparameterSearch(SensorData sensorData, int cols, Set<String> modelChannels)
+    {
+        this(sensorData, cols, modelChannels, DEFAULT_VALIDATION_FRACTION);
+    }
+
+    /**
+     * Constructor for the HyperparameterSearch class.
+     * @param sensorData the loaded csv data
+     * @param cols the number of columns for the data
+     * @param modelChannels the channels to use, or null for every channel
+     * @param validationFraction the fraction of the records (at the end)
+     * held out for validation
+     */
+    public HyperparameterSearch(SensorData sensorData, int cols, Set<String> modelChannels, double validationFraction)
+    {
+        if (validationFraction <= 0 || validationFraction >= 1)
+        {
+            //print to console - this isn't a message to be displayed to the user
+            System.out.println("\nValidation fraction provided isn't between 0 and 1; validation fraction is " +
+                    "being set to default of " + DEFAULT_VALIDATION_FRACTION + ".\n");
+
+            validationFraction = DEFAULT_VALIDATION_FRACTION;
+        }
+
+        int split = (int) (sensorData.rows() * (1 - validationFraction));
+
+        training = sensorData.slice(0, split);
+        validation = sensorData.slice(split, sensorData.rows());
+        numColumns = cols;
+        channels = modelChannels;
+        threads = Runtime.getRuntime().availableProcessors();
+        budgetMillis = 60 * 60 * 1000L;
+    }
+
+    /* Methods */
+
+    /**
+     * Main method for running a search over the default grid.
+     * @param args csv file path, number of columns, budget in seconds,
+     * threads and number of random trials
+     */
+    public static void main(String[] args)
+    {
+        String csvFilePath = args.length > 0 ? args[0] : "SMSdataFORMATTED-3SENSORS.csv";
+        int cols = args.length > 1 ? Integer.parseInt(args[1]) : 13;
+        long budgetSeconds = args.length > 2 ? Long.parseLong(args[2]) : 3600;
+        int numThreads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        int randomTrials = args.length > 4 ? Integer.parseInt(args[4]) : 0;
+
+        SensorData data;
+
+        try
+        {
+            data = new SensorSource(csvFilePath).merged();
+        }
+        catch (Exception e)
+        {
+            System.err.println("Caught Exception: " + e.getMessage());
+
+            return;
+        }
+
+        HyperparameterSearch search = new HyperparameterSearch(data, cols, null);
+        search.setBudgetSeconds(budgetSeconds);
+        search.setThreads(numThreads);
+
+        List<Trial> trials = search.run(randomTrials > 0 ? search.random(randomTrials, 12345) : search.grid());
+
+        System.out.println(report(trials));
+    }
+
+    /**
+     * Returns every combination of the values to try (leaving out TBPTT
+     * lengths longer than the example length).
+     * @return the trials, not yet run
+     */
+    public List<Trial> grid()
+    {
+        List<Trial> trials = new ArrayList<Trial>();
+
+        for (int layerSize : layerSizes)
+        {
+            for (int tbptt : tbpttSizes)
+            {
+                for (int example : exampleSizes)
+                {
+                    for (double rate : learningRates)
+                    {
+                        if (tbptt <= example)
+                        {
+                            trials.add(new Trial(layerSize, tbptt, example, rate));
+                        }
+                    }
+                }
+            }
+        }
+
+        return trials;
+    }
+
+    /**
+     * Returns a random sample of the grid.
+     * @param count the number of trials
+     * @param seed the random seed
+     * @return the trials, not yet run
+     */
+    public List<Trial> random(int count, long seed)
+    {
+        List<Trial> trials = grid();
+
+        Collections.shuffle(trials, new Random(seed));
+
+        return new ArrayList<Trial>(trials.subList(0, Math.min(count, trials.size())));
+    }
+
+    /**
+     * Runs trials on the thread pool until they're done or the budget runs
+     * out.
+     * @param trials the trials to run
+     * @return the trials ranked best first (finished trials by cost, then
+     * the rest)
+     */
+    public List<Trial> run(List<Trial> trials)
+    {
+        final long deadline = System.nanoTime() + budgetMillis * 1000000L;
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+        List<Future<?>> results = new ArrayList<Future<?>>();
+
+        for (final Trial trial : trials)
+        {
+            results.add(pool.submit(new Callable<Void>()
+            {
+                public Void call()
+                {
+                    runTrial(trial, deadline);
+
+                    return null;
+                }
+            }));
+        }
+
+        try
+        {
+            for (Future<?> result : results)
+            {
+                result.get();
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        catch (ExecutionException e)
+        {
+            //print to console - this isn't a message to be displayed to the user
+            System.err.println("Caught ExecutionException: " + e.getCause());
+        }
+        finally
+        {
+            pool.shutdownNow();
+        }
+
+        List<Trial> ranked = new ArrayList<Trial>(trials);
+
+        Collections.sort(ranked, new Comparator<Trial>()
+        {
+            public int compare(Trial a, Trial b)
+            {
+                if (a.isFinished() != b.isFinished())
+                {
+                    return a.isFinished() ? -1 : 1;
+                }
+
+                return a.isFinished() ? Double.compare(a.getCost(), b.getCost()) : 0;
+            }
+        });
+
+        return ranked;
+    }
+
+    /**
+     * Trains and scores one trial, stopping at the deadline.
+     * @param trial the trial
+     * @param deadline the System.nanoTime() at which the search ends
+     */
+    private void runTrial(Trial trial, long deadline)
+    {
+        if (System.nanoTime() > deadline)
+        {
+            trial.status = "not run";
+
+            return;
+        }
+
+        try
+        {
+            IRSFunctions model = new IRSFunctions(trial.layerSize, miniBatches, trial.exampleSize, trial.tbpttSize,
+                    epochs, training, numColumns, channels);
+            model.setLearningRate(trial.learningRate);
+
+            MultiLayerNetwork rnn = model.getNetwork();
+            IRSIterator iter = model.getIterator();
+
+            //each trial counts its own iterations, with no periodic summary lines (concurrent trials would
+            //interleave them)
+            trial.telemetry = new TrainingTelemetry(10, 0);
+            model.setTelemetry(trial.telemetry);
+
+            long start = System.nanoTime();
+
+            for (int i = 0; i < epochs; i++)
+            {
+                iter.reset();
+
+                while (iter.hasNext())
+                {
+                    if (System.nanoTime() > deadline)
+                    {
+                        trial.trainSeconds = (System.nanoTime() - start) / 1e9;
+                        trial.status = "cut off";
+
+                        return;
+                    }
+
+                    DataSet ds = iter.next();
+                    long fitStart = System.nanoTime();
+
+                    rnn.fit(ds);
+                    trial.telemetry.recordFit(ds.getFeatures().size(0) * (long) ds.getFeatures().size(2),
+                            System.nanoTime() - fitStart);
+                }
+            }
+
+            trial.trainSeconds = (System.nanoTime() - start) / 1e9;
+            trial.error = validate(rnn, iter);
+            trial.status = Double.isNaN(trial.error) ? "too little validation data" : "done";
+        }
+        catch (RuntimeException e)
+        {
+            trial.status = "failed: " + e.getMessage();
+        }
+    }
+
+    /**
+     * Scores a trained RNN on the held-out records, scaled the same way as
+     * its training data.
+     * @param rnn the trained RNN
+     * @param trained the iterator it was trained on
+     * @return the validation MSE, or NaN if no records were held out
+     */
+    private double validate(MultiLayerNetwork rnn, IRSIterator trained)
+    {
+        IRSIterator iter = new IRSIterator(validation, numColumns, trained.batch(), trained.numExamples(),
+                trained.getPreProcessor(), channels);
+
+        //every held-out record is scored, including the last short window
+        SequenceBatcher windows = new SequenceBatcher(iter, Math.max(trained.batch(), 32));
+        windows.setVariableLength(1);
+
+        if (windows.getWindowCount() == 0)
+        {
+            return Double.NaN;
+        }
+
+        //trials already run in parallel, so each one is scored on its own thread
+        return new StreamingEvaluator(rnn, 1).evaluate(windows).meanSquaredError(0);
+    }
+
+    /**
+     * Returns the fastest finished trial whose validation error is under a
+     * limit.
+     * @param trials the trials
+     * @param maxError the highest acceptable validation MSE
+     * @return the trial with the fewest training seconds, or null if none
+     * is accurate enough
+     */
+    public static Trial cheapest(List<Trial> trials, double maxError)
+    {
+        Trial best = null;
+
+        for (Trial trial : trials)
+        {
+            if (trial.isFinished() && trial.error <= maxError &&
+                    (best == null || trial.trainSeconds < best.trainSeconds))
+            {
+                best = trial;
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * Returns a table of trials, one per line.
+     * @param trials the trials, in the order to list them
+     * @return the table
+     */
+    public static String report(List<Trial> trials)
+    {
+        StringBuilder table = new StringBuilder(String.format("%-5s %-6s %-6s %-8s %-8s %-12s %-10s %-12s %s%n",
+                "Rank", "Layer", "TBPTT", "Example", "Rate", "Val MSE", "Train s", "MSE x s", "Status"));
+        int rank = 1;
+
+        for (Trial trial : trials)
+        {
+            table.append(String.format("%-5d %-6d %-6d %-8d %-8s %-12.5g %-10.1f %-12.5g %s%n", rank++,
+                    trial.layerSize, trial.tbpttSize, trial.exampleSize, trial.learningRate, trial.error,
+                    trial.trainSeconds, trial.getCost(), trial.status));
+        }
+
+        return table.toString();
+    }
+
+    /**
+     * Sets the layer sizes to try.
+     * @param sizes the layer sizes
+     */
+    public void setLayerSizes(int... sizes)
+    {
+        layerSizes = sizes;
+    }
+
+    /**
+     * Sets the TBPTT lengths to try.
+     * @param sizes the TBPTT lengths
+     */
+    public void setTbpttSizes(int... sizes)
+    {
+        tbpttSizes = sizes;
+    }
+
+    /**
+     * Sets the example lengths to try.
+     * @param sizes the example lengths
+     */
+    public void setExampleSizes(int... sizes)
+    {
+        exampleSizes = sizes;
+    }
+
+    /**
+     * Sets the learning rates to try.
+     * @param rates the learning rates
+     */
+    public void setLearningRates(double... rates)
+    {
+        learningRates = rates;
+    }
+
+    /**
+     * Sets the number of minibatches in each DataSet.
+     * @param num the number of minibatches
+     */
+    public void setMiniBatches(int num)
+    {
+        miniBatches = Math.max(1, num);
+    }
+
+    /**
+     * Sets the number of epochs each trial trains for.
+     * @param numEpochs the number of epochs
+     */
+    public void setEpochs(int numEpochs)
+    {
+        epochs = Math.max(1, numEpochs);
+    }
+
+    /**
+     * Sets the number of trials run at the same time.
+     * @param numThreads the number of threads
+     */
+    public void setThreads(int numThreads)
+    {
+        threads = Math.max(1, numThreads);
+    }
+
+    /**
+     * Sets the wall-clock budget for a search.
+     * @param seconds the budget in seconds
+     */
+    public void setBudgetSeconds(long seconds)
+    {
+        budgetMillis = Math.max(0, seconds) * 1000;
+    }
+
+    /* Public Classes */
+
+    /**
+     * One combination of hyperparameters and, once run, its results.
+     */
+    public static class Trial
+    {
+        /**
+         * The size of each LSTM layer.
+         */
+        private final int layerSize;
+
+        /**
+         * The TBPTT length.
+         */
+        private final int tbpttSize;
+
+        /**
+         * The example length.
+         */
+        private final int exampleSize;
+
+        /**
+         * The learning rate.
+         */
+        private final double learningRate;
+
+        /**
+         * The validation MSE (NaN until the trial finishes).
+         */
+        private volatile double error = Double.NaN;
+
+        /**
+         * The seconds spent training.
+         */
+        private volatile double trainSeconds;
+
+        /**
+         * What happened to the trial.
+         */
+        private volatile String status = "not run";
+
+        /**
+         * The trial's training telemetry, or null if it wasn't run.
+         */
+        private volatile TrainingTelemetry telemetry;
+
+        /**
+         * Default constructor for the Trial class.
+         * @param layer the size of each LSTM layer
+         * @param tbptt the TBPTT length
+         * @param example the example length
+         * @param rate the learning rate
+         */
+        public Trial(int layer, int tbptt, int example, double rate)
+        {
+            layerSize = layer;
+            tbpttSize = tbptt;
+            exampleSize = example;
+            learningRate = rate;
+        }
+
+        /**
+         * Returns whether the trial was trained and scored.
+         * @return if the trial finished
+         */
+        public boolean isFinished()
+        {
+            return status.equals("done");
+        }
+
+        /**
+         * Returns the validation MSE times the training seconds.
+         * @return the cost, or NaN if the trial didn't finish
+         */
+        public double getCost()
+        {
+            return isFinished() ? error * trainSeconds : Double.NaN;
+        }
+
+        /**
+         * Returns the size of each LSTM layer.
+         * @return the layer size
+         */
+        public int getLayerSize()
+        {
+            return layerSize;
+        }
+
+        /**
+         * Returns the TBPTT length.
+         * @return the TBPTT length
+         */
+        public int getTbpttSize()
+        {
+            return tbpttSize;
+        }
+
+        /**
+         * Returns the example length.
+         * @return the example length
+         */
+        public int getExampleSize()
+        {
+            return exampleSize;
+        }
+
+        /**
+         * Returns the learning rate.
+         * @return the learning rate
+         */
+        public double getLearningRate()
+        {
+            return learningRate;
+        }
+
+        /**
+         * Returns the validation MSE.
+         * @return the validation MSE, or NaN if the trial didn't finish
+         */
+        public double getError()
+        {
+            return error;
+        }
+
+        /**
+         * Returns the seconds spent training.
+         * @return the training seconds
+         */
+        public double getTrainSeconds()
+        {
+            return trainSeconds;
+        }
+
+        /**
+         * Returns what happened to the trial.
+         * @return done, cut off, not run, or why it failed
+         */
+        public String getStatus()
+        {
+            return status;
+        }
+
+        /**
+         * Returns the trial's training telemetry (e.g., its time steps per
+         * second).
+         * @return the telemetry, or null if the trial wasn't run
+         */
+        public TrainingTelemetry getTelemetry()
+        {
+            return telemetry;
+        }
+    }
+}
@@ -0,0 +1,384 @@
+/*
+ * File:    IRSBenchmark.java
+ * Created: October 17, 2026
+ * Author:  agent
+ * Project: Irrigation Recommendation System (IRS)
+ */
+
+import org.bytedeco.javacpp.Pointer;
+import org.deeplearning4j.nn.conf.WorkspaceMode;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.optimize.api.IterationListener;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.factory.Nd4j;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * The IRSBenchmark class is a command line harness for timing parts of
+ * the IRS data pipeline against the bundled sample csv files.  It isn't
+ * used by the GUI.
+ * </p>
+ *
+ * <p>
+ * Usage: IRSBenchmark [benchmark] [csv file] [number of columns]
+ * </p>
+ *
+ * <p>
+ * Benchmarks: assembly (building DataSets), training [workers]
+ * [averaging frequency] [layer size] (one epoch on one thread against
+ * one epoch with ParallelTrainer), workspaces [layer size] (allocation
+ * and GC pauses for an epoch of training and inference in each ND4J
+ * workspace mode).
+ * </p>
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class IRSBenchmark
+{
+    /* Variables */
+
+    /**
+     * The number of untimed passes run before measuring.
+     */
+    private static final int WARMUP_EPOCHS = 3;
+
+    /**
+     * The number of timed passes.
+     */
+    private static final int TIMED_EPOCHS = 10;
+
+    /* Methods */
+
+    /**
+     * Main method for running a benchmark.
+     * @param args benchmark name, csv file path and number of columns
+     */
+    public static void main(String[] args)
+    {
+        String benchmark = args.length > 0 ? args[0] : "assembly";
+        String csvFilePath = args.length > 1 ? args[1] : "SMSdataFORMATTED-3SENSORS.csv";
+        int numColumns = args.length > 2 ? Integer.parseInt(args[2]) : 13;
+
+        if (benchmark.equals("assembly"))
+        {
+            assembly(csvFilePath, numColumns);
+        }
+        else if (benchmark.equals("training"))
+        {
+            int workers = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+            int frequency = args.length > 4 ? Integer.parseInt(args[4]) : 1;
+            int layerSize = args.length > 5 ? Integer.parseInt(args[5]) : 500;
+
+            training(csvFilePath, numColumns, workers, frequency, layerSize);
+        }
+        else if (benchmark.equals("workspaces"))
+        {
+            int layerSize = args.length > 3 ? Integer.parseInt(args[3]) : 500;
+
+            workspaces(csvFilePath, numColumns, layerSize);
+        }
+        else
+        {
+            System.err.println("Unknown benchmark: " + benchmark);
+        }
+    }
+
+    /**
+     * Compares building one epoch of DataSets with a putScalar call per
+     * cell (the original getNextDataSet) against the bulk copy used now.
+     * @param csvFilePath path to the csv file
+     * @param numColumns the number of columns used in a DataSet
+     */
+    public static void assembly(String csvFilePath, int numColumns)
+    {
+        IRSIterator iter = new IRSIterator(csvFilePath, numColumns, 1, 250);
+
+        for (int i = 0; i < WARMUP_EPOCHS; i++)
+        {
+            perScalarEpoch(iter);
+            bulkEpoch(iter);
+        }
+
+        long perScalar = 0;
+        long bulk = 0;
+
+        for (int i = 0; i < TIMED_EPOCHS; i++)
+        {
+            long start = System.nanoTime();
+            perScalarEpoch(iter);
+            perScalar += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            bulkEpoch(iter);
+            bulk += System.nanoTime() - start;
+        }
+
+        //check both paths produce the same first DataSet
+        iter.reset();
+        DataSet expected = perScalarDataSet(iter, 0);
+        DataSet actual = iter.getNextDataSet(iter.batch(), iter.numExamples());
+        boolean same = expected.getFeatures().equals(actual.getFeatures()) && expected.getLabels().equals(actual.getLabels());
+
+        System.out.println("DataSets per epoch: " + iter.totalExamples());
+        System.out.println(String.format("putScalar per cell: %.2f ms/epoch", perScalar / 1e6 / TIMED_EPOCHS));
+        System.out.println(String.format("bulk copy:          %.2f ms/epoch", bulk / 1e6 / TIMED_EPOCHS));
+        System.out.println("Outputs match: " + same);
+    }
+
+    /**
+     * Compares one training epoch on a single thread against one epoch
+     * split across worker threads, starting from the same parameters.  The
+     * DataSets are built once beforehand so only training is timed.
+     * @param csvFilePath path to the csv file
+     * @param numColumns the number of columns used in a DataSet
+     * @param workers the number of worker threads
+     * @param frequency the number of DataSets each worker fits between averages
+     * @param layerSize the size of each LSTM layer
+     */
+    public static void training(String csvFilePath, int numColumns, int workers, int frequency, int layerSize)
+    {
+        IRSFunctions model = new IRSFunctions(layerSize, 1, 250, 250, 1, csvFilePath, numColumns);
+        CachedDataSetIterator dataSets = new CachedDataSetIterator(new IRSIterator(csvFilePath, numColumns, 1, 250));
+
+        //fill the cache (and warm up the network on a copy)
+        MultiLayerNetwork warmup = model.getNetwork().clone();
+
+        while (dataSets.hasNext())
+        {
+            DataSet ds = dataSets.next();
+
+            if (dataSets.cursor() == 1)
+            {
+                warmup.fit(ds);
+            }
+        }
+
+        MultiLayerNetwork single = model.getNetwork().clone();
+        dataSets.reset();
+        long start = System.nanoTime();
+
+        while (dataSets.hasNext())
+        {
+            single.fit(dataSets.next());
+        }
+
+        long singleNanos = System.nanoTime() - start;
+
+        ParallelTrainer trainer = new ParallelTrainer(model.getNetwork().clone(), workers, frequency);
+        dataSets.reset();
+        start = System.nanoTime();
+        trainer.fit(dataSets);
+        long parallelNanos = System.nanoTime() - start;
+        trainer.shutdown();
+
+        int count = dataSets.getCachedCount();
+
+        System.out.println("DataSets per epoch: " + count);
+        System.out.println(String.format("1 thread:   %.2f s/epoch (%.2f DataSets/s)",
+                singleNanos / 1e9, count / (singleNanos / 1e9)));
+        System.out.println(String.format("%d threads: %.2f s/epoch (%.2f DataSets/s)",
+                workers, parallelNanos / 1e9, count / (parallelNanos / 1e9)));
+        System.out.println(String.format("Speedup: %.2fx", singleNanos / (double) parallelNanos));
+        System.out.println(trainer.stats());
+    }
+
+    /**
+     * Compares the ND4J workspace modes: for each mode a copy of the same
+     * network fits one epoch and runs a forward pass on every DataSet,
+     * and the heap allocated, GC pauses and peak off-heap memory are
+     * reported.  The DataSets are built once beforehand.
+     * @param csvFilePath path to the csv file
+     * @param numColumns the number of columns used in a DataSet
+     * @param layerSize the size of each LSTM layer
+     */
+    public static void workspaces(String csvFilePath, int numColumns, int layerSize)
+    {
+        IRSFunctions model = new IRSFunctions(layerSize, 1, 250, 250, 1, csvFilePath, numColumns);
+        CachedDataSetIterator dataSets = new CachedDataSetIterator(new IRSIterator(csvFilePath, numColumns, 1, 250));
+
+        while (dataSets.hasNext())
+        {
+            dataSets.next();
+        }
+
+        System.out.println("DataSets per epoch: " + dataSets.getCachedCount());
+
+        for (WorkspaceMode mode : new WorkspaceMode[]{WorkspaceMode.NONE, WorkspaceMode.SINGLE, WorkspaceMode.SEPARATE})
+        {
+            MultiLayerNetwork net = model.getNetwork().clone();
+            net.setListeners(new ArrayList<IterationListener>());
+            net.getLayerWiseConfigurations().setTrainingWorkspaceMode(mode);
+            net.getLayerWiseConfigurations().setInferenceWorkspaceMode(mode);
+
+            //warm up (workspaces size themselves on the first passes)
+            dataSets.reset();
+            DataSet first = dataSets.next();
+            net.fit(first);
+            net.output(first.getFeatures(), false);
+
+            System.gc();
+            workspaceEpoch(mode, net, dataSets);
+        }
+    }
+
+    /**
+     * Times one epoch of fits and forward passes and prints its memory use.
+     * @param mode the workspace mode the network uses
+     * @param net the network
+     * @param dataSets the cached DataSets
+     */
+    private static void workspaceEpoch(WorkspaceMode mode, MultiLayerNetwork net, CachedDataSetIterator dataSets)
+    {
+        final AtomicLong peakOffHeap = new AtomicLong(Pointer.totalBytes());
+
+        //off-heap use is sampled since javacpp only reports the current total
+        Thread sampler = new Thread(new Runnable()
+        {
+            public void run()
+            {
+                while (!Thread.currentThread().isInterrupted())
+                {
+                    long bytes = Pointer.totalBytes();
+
+                    if (bytes > peakOffHeap.get())
+                    {
+                        peakOffHeap.set(bytes);
+                    }
+
+                    try
+                    {
+                        Thread.sleep(2);
+                    }
+                    catch (InterruptedException e)
+                    {
+                        return;
+                    }
+                }
+            }
+        }, "IRS-offheap-sampler");
+
+        sampler.setDaemon(true);
+        sampler.start();
+
+        long heapBefore = threadAllocatedBytes();
+        long gcCount = 0;
+        long gcMillis = 0;
+
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+        {
+            gcCount -= gc.getCollectionCount();
+            gcMillis -= gc.getCollectionTime();
+        }
+
+        long offHeapBefore = Pointer.totalBytes();
+        long start = System.nanoTime();
+
+        dataSets.reset();
+
+        while (dataSets.hasNext())
+        {
+            DataSet ds = dataSets.next();
+            net.fit(ds);
+            net.output(ds.getFeatures(), false);
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+        {
+            gcCount += gc.getCollectionCount();
+            gcMillis += gc.getCollectionTime();
+        }
+
+        sampler.interrupt();
+
+        long heap = threadAllocatedBytes() - heapBefore;
+
+        System.out.println(String.format("%-8s %.2f s/epoch, heap allocated %.1f MB/s, %d GC pauses (%d ms), " +
+                "off-heap peak %.1f MB (%+.1f MB over the epoch)", mode, seconds, heap / 1e6 / seconds, gcCount,
+                gcMillis, peakOffHeap.get() / 1e6, (Pointer.totalBytes() - offHeapBefore) / 1e6));
+    }
+
+    /**
+     * Returns the heap bytes allocated by the current thread, if the JVM
+     * reports it.
+     * @return the bytes allocated so far, or 0 if unsupported
+     */
+    private static long threadAllocatedBytes()
+    {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+        if (threads instanceof com.sun.management.ThreadMXBean)
+        {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+
+        return 0;
+    }
+
+    /**
+     * Builds every DataSet in the file with the bulk copy path.
+     * @param iter the iterator to read from
+     */
+    private static void bulkEpoch(IRSIterator iter)
+    {
+        iter.reset();
+
+        for (int n = 0; n < iter.totalExamples(); n++)
+        {
+            iter.getNextDataSet(iter.batch(), iter.numExamples());
+        }
+    }
+
+    /**
+     * Builds every DataSet in the file with one putScalar call per cell.
+     * @param iter the iterator to read from
+     */
+    private static void perScalarEpoch(IRSIterator iter)
+    {
+        for (int n = 0; n < iter.totalExamples(); n++)
+        {
+            perScalarDataSet(iter, n * iter.batch() * iter.numExamples());
+        }
+    }
+
+    /**
+     * Builds one DataSet the way getNextDataSet originally did.
+     * @param iter the iterator to read from
+     * @param start the first record of the DataSet
+     * @return the DataSet
+     */
+    private static DataSet perScalarDataSet(IRSIterator iter, int start)
+    {
+        int numBatches = iter.batch();
+        int numExamples = iter.numExamples();
+
+        INDArray input = Nd4j.create(new int[]{numBatches, iter.inputColumns(), numExamples}, 'f');
+        INDArray labels = Nd4j.create(new int[]{numBatches, iter.totalOutcomes(), numExamples}, 'f');
+
+        int row = start;
+
+        for (int i = 0; i < numBatches; i++)
+        {
+            for (int j = 0; j < numExamples; j++)
+            {
+                for (int k = 1; k < iter.inputColumns(); k++)
+                {
+                    float[] column = iter.getFeatureColumn(k);
+                    input.putScalar(new int[]{i, k, j}, column == null ? 0 : column[row]);
+                }
+
+                labels.putScalar(new int[]{i, 0, j}, iter.getLabelColumn()[row]);
+                row++;
+            }
+        }
+
+        return new DataSet(input, labels);
+    }
+}
@@ -10,6 +10,7 @@ import org.deeplearning4j.nn.conf.BackpropType;
 import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
 import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
 import org.deeplearning4j.nn.conf.Updater;
+import org.deeplearning4j.nn.conf.WorkspaceMode;
 import org.deeplearning4j.nn.conf.layers.GravesLSTM;
 import org.deeplearning4j.nn.conf.layers.RnnOutputLayer;
 import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
@@ -17,14 +18,26 @@ import org.deeplearning4j.eval.RegressionEvaluation;
 import org.deeplearning4j.nn.api.Layer;
 import org.deeplearning4j.nn.api.OptimizationAlgorithm;
 import org.deeplearning4j.nn.weights.WeightInit;
-import org.deeplearning4j.optimize.listeners.ScoreIterationListener;
 import org.deeplearning4j.util.ModelSerializer;
 import org.nd4j.linalg.activations.Activation;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.dataset.api.iterator.DataSetIterator;
+import org.nd4j.linalg.dataset.api.preprocessor.NormalizerMinMaxScaler;
 import org.nd4j.linalg.lossfunctions.LossFunctions;
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
 
 /**
  * <p>
@@ -45,6 +58,66 @@ public class IRSFunctions
      */
     private IRSIterator iter;
 
+    /**
+     * Other fields' data trained into the same model (see addSeries).
+     */
+    private List<IRSIterator> extraSeries = new ArrayList<IRSIterator>();
+
+    /**
+     * Where each of the other fields' data came from, as columns:path (so
+     * a checkpointed run can add them again).
+     */
+    private List<String> extraSeriesSources = new ArrayList<String>();
+
+    /**
+     * The shortest leftover window trained on (0 = only full windows).
+     */
+    private int variableLength;
+
+    /**
+     * The fraction of the records (at the end of each file) held out of
+     * training and used to score the model (0 = score on the training data).
+     */
+    private double holdOut;
+
+    /**
+     * The number of threads the model is scored on.
+     */
+    private int evaluationThreads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * The normalizer fit on the training data; saved with the model and
+     * reused when generating a recommendation.
+     */
+    private NormalizerMinMaxScaler normalizer;
+
+    /**
+     * Follows the uploaded csv so that later recommendations only parse
+     * the rows appended since the last one.
+     */
+    private SensorTail tail;
+
+    /**
+     * The sensor channels the model uses (see SensorSchema), or null for
+     * every channel; saved with the model.
+     */
+    private Set<String> channels;
+
+    /**
+     * The name of the entry in the model file that lists the channels.
+     */
+    private static final String CHANNELS_ENTRY = "channels.txt";
+
+    /**
+     * Rolls the records up into longer time buckets (null to keep every record).
+     */
+    private SensorDownsampler downsampler;
+
+    /**
+     * The name of the entry in the model file that holds the downsampling spec.
+     */
+    private static final String DOWNSAMPLER_ENTRY = "downsampling.txt";
+
     /**
      * The MultiLayerConfiguration that contains the hyperparameters
      * for the RNN.
@@ -87,6 +160,46 @@ public class IRSFunctions
      */
     private int epochs;
 
+    /**
+     * The variable that stores the RNN's learning rate.
+     */
+    private double learningRate = 0.001;
+
+    /**
+     * How the RNN reuses memory for activations and gradients between
+     * fits and forward passes (NONE allocates fresh arrays every time).
+     */
+    private WorkspaceMode workspaceMode = WorkspaceMode.SEPARATE;
+
+    /**
+     * Counts iterations, time steps, fit/wait times and samples the score
+     * while the RNN trains.
+     */
+    private TrainingTelemetry telemetry = new TrainingTelemetry();
+
+    /**
+     * The variable that stores how many DataSets are read ahead on a
+     * background thread while training (0 = read on the training thread).
+     */
+    private int prefetchDepth = 2;
+
+    /**
+     * If the normalized DataSets are kept in memory after the first epoch
+     * and replayed for the later ones.
+     */
+    private boolean cacheDataSets;
+
+    /**
+     * The number of worker threads that train copies of the RNN in
+     * parallel (1 = train on the calling thread).
+     */
+    private int workers = 1;
+
+    /**
+     * The number of DataSets each worker fits before the copies are averaged.
+     */
+    private int averagingFrequency = 1;
+
     /**
      * The variable that stores the crop type specified by the user.
      */
@@ -121,6 +234,43 @@ public class IRSFunctions
      */
     private String savedParamPath;
 
+    /**
+     * The directory the parameters file is saved in (null for the
+     * current working directory).
+     */
+    private File saveDirectory;
+
+    /**
+     * Saves the run every few DataSets/minutes (null = no checkpoints).
+     */
+    private TrainingCheckpointer checkpointer;
+
+    /**
+     * The path the training data was loaded from (null if it was passed in
+     * already loaded).
+     */
+    private String trainingDataPath;
+
+    /**
+     * The number of columns the training data was loaded with.
+     */
+    private int trainingColumns;
+
+    /**
+     * The epoch a resumed run carries on from.
+     */
+    private int startEpoch;
+
+    /**
+     * The DataSet in startEpoch a resumed run carries on from.
+     */
+    private int startPosition;
+
+    /**
+     * The number of DataSets a resumed run had already fit.
+     */
+    private long startIteration;
+
     /* Constructors */
 
     /**
@@ -135,30 +285,57 @@ public class IRSFunctions
      */
     public IRSFunctions(int layerSize, int miniBatchs, int exSize, int tbpttsize, int numEpochs, String dataFilePath, int numColumns)
     {
-        setLSTMLayers(layerSize);
-        setMiniBatches(miniBatchs);
-        setExamples(exSize);
-        setTbpttSize(tbpttsize);
-        setEpochs(numEpochs);
+        this(layerSize, miniBatchs, exSize, tbpttsize, numEpochs, dataFilePath, numColumns, null);
+    }
 
-        //create new IRSIterator
-        iter = new IRSIterator(dataFilePath, numColumns, getMiniBatches(), getExamples());
+    /**
+     * Constructor for the IRSFunctions class for a model that only uses
+     * some sensor channels (e.g., leaving out EC where it's noisy); the
+     * other columns aren't parsed and don't get input slots.
+     * @param layerSize the size of each hidden layer
+     * @param miniBatchs the number of minibatches to use in each example
+     * @param exSize the total number of examples to iterate over
+     * @param tbpttsize the number of examples to propagate forwards and backwards through
+     * @param numEpochs the total number of epochs (times to go through the data)
+     * @param dataFilePath the path of the file selected by the user
+     * @param numColumns the number of columns for the file that was uploaded/selected by the user
+     * @param modelChannels the channels to use (see SensorSchema), or null for every channel
+     */
+    public IRSFunctions(int layerSize, int miniBatchs, int exSize, int tbpttsize, int numEpochs, String dataFilePath,
+                        int numColumns, Set<String> modelChannels)
+    {
+        channels = modelChannels;
+        setHyperparameters(layerSize, miniBatchs, exSize, tbpttsize, numEpochs);
 
-        setOutputLayers(iter.totalOutcomes());
+        //create new IRSIterator (and one per other field if the files overlap in time)
+        loadFields(dataFilePath, numColumns);
 
-        //configure the RNN
-        try
-        {
-            RNNconfiguration = configureRNN();
-        }
-        catch (Exception e)
-        {
-            //print to console - this isn't a message to be displayed to the user
-            System.err.println("Caught Exception: RNN couldn't be configured.");
-        }
+        buildRNN();
+    }
 
-        //creates the RNN
-        createRNN(RNNconfiguration);
+    /**
+     * Constructor for the IRSFunctions class that trains on data that was
+     * already loaded (e.g., one load shared by several models).
+     * @param layerSize the size of each hidden layer
+     * @param miniBatchs the number of minibatches to use in each example
+     * @param exSize the total number of examples to iterate over
+     * @param tbpttsize the number of examples to propagate forwards and backwards through
+     * @param numEpochs the total number of epochs (times to go through the data)
+     * @param sensorData the loaded csv data; it isn't changed
+     * @param numColumns the number of columns for the data
+     * @param modelChannels the channels to use (see SensorSchema), or null for every channel
+     */
+    public IRSFunctions(int layerSize, int miniBatchs, int exSize, int tbpttsize, int numEpochs, SensorData sensorData,
+                        int numColumns, Set<String> modelChannels)
+    {
+        channels = modelChannels;
+        setHyperparameters(layerSize, miniBatchs, exSize, tbpttsize, numEpochs);
+
+        //create new IRSIterator over the loaded data
+        iter = new IRSIterator(sensorData, numColumns, getMiniBatches(), getExamples(), null, channels);
+        trainingColumns = numColumns;
+
+        buildRNN();
     }
 
     /**
@@ -181,6 +358,30 @@ public class IRSFunctions
             //rnn = null;
         }
 
+        //models saved before the normalizer was stored with them won't have one
+        try
+        {
+            normalizer = ModelSerializer.restoreNormalizerFromFile(loadLocation);
+        }
+        catch (Exception e)
+        {
+            normalizer = null;
+        }
+
+        if (normalizer == null)
+        {
+            //print to console - this isn't a message to be displayed to the user
+            System.out.println("No normalizer found in parameters file; it will be fit on the uploaded data.");
+        }
+
+        //models saved without a channel list use every channel
+        channels = restoreChannels(loadLocation);
+
+        setWorkspaceMode(getWorkspaceMode());
+
+        //models saved without a downsampling spec keep every record
+        downsampler = restoreDownsampler(loadLocation);
+
         setLSTMLayers(500);
         setMiniBatches(1);
         setExamples(250);
@@ -188,6 +389,126 @@ public class IRSFunctions
         setEpochs(1);
     }
 
+    /**
+     * Constructor for the IRSFunctions class that resumes a training run
+     * from a checkpoint (see TrainingCheckpointer); the network, updater
+     * state, normalizer and settings come from the checkpoint and training
+     * carries on from the DataSet it was written after.
+     * @param checkpoint the checkpoint file
+     * @param dataFilePath the path of the file the run was training on
+     * @param numColumns the number of columns for the file
+     */
+    public IRSFunctions(File checkpoint, String dataFilePath, int numColumns)
+    {
+        TrainingCheckpointer.Progress progress = TrainingCheckpointer.restoreProgress(checkpoint);
+
+        if (progress == null)
+        {
+            throw new IllegalArgumentException(checkpoint.getPath() + " isn't a training checkpoint.");
+        }
+
+        try
+        {
+            rnn = ModelSerializer.restoreMultiLayerNetwork(checkpoint, true);
+            normalizer = ModelSerializer.restoreNormalizerFromFile(checkpoint);
+        }
+        catch (Exception e)
+        {
+            throw new IllegalArgumentException("Checkpoint couldn't be loaded: " + e.getMessage(), e);
+        }
+
+        channels = restoreChannels(checkpoint);
+        RNNconfiguration = rnn.getLayerWiseConfigurations();
+
+        GravesLSTM hidden = (GravesLSTM) RNNconfiguration.getConf(0).getLayer();
+
+        setHyperparameters(hidden.getNOut(), progress.getMiniBatches(), progress.getExamples(),
+                RNNconfiguration.getTbpttFwdLength(), progress.getEpochs());
+        learningRate = hidden.getLearningRate();
+        setCropType(progress.getCrop());
+        setSoilType(progress.getSoil());
+
+        //rebuild the iterator with the checkpoint's scaling and downsampling
+        loadFields(dataFilePath, numColumns);
+        iter.setNormalizer(normalizer);
+        setDownsampler(restoreDownsampler(checkpoint));
+        setOutputLayers(iter.totalOutcomes());
+
+        //the same windows have to be rebuilt so the run carries on from the right one
+        for (String source : progress.getSeries())
+        {
+            int colon = source.indexOf(':');
+
+            addSeries(source.substring(colon + 1), Integer.parseInt(source.substring(0, colon)));
+        }
+
+        for (IRSIterator series : extraSeries)
+        {
+            series.setNormalizer(normalizer);
+        }
+
+        setStride(progress.getStride());
+        setVariableLength(progress.getVariableLength());
+        setHoldOut(progress.getHoldOut());
+
+        if (progress.getRecords() > 0 && progress.getRecords() != getRecordCount())
+        {
+            throw new IllegalArgumentException("The data has " + getRecordCount() + " records but the " +
+                    "checkpointed run had " + progress.getRecords() + "; it can't be resumed on other data.");
+        }
+
+        rnn.setListeners(telemetry);
+        setWorkspaceMode(getWorkspaceMode());
+
+        startEpoch = progress.getEpoch();
+        startPosition = progress.getPosition();
+        startIteration = progress.getIteration();
+
+        //print to console - this isn't a message to be displayed to the user
+        System.out.println("Resuming from epoch " + startEpoch + ", DataSet " + startPosition + ".");
+    }
+
+
+    /**
+     * Sets the hyperparameters passed to a training constructor.
+     * @param layerSize the size of each hidden layer
+     * @param miniBatchs the number of minibatches to use in each example
+     * @param exSize the total number of examples to iterate over
+     * @param tbpttsize the number of examples to propagate forwards and backwards through
+     * @param numEpochs the total number of epochs (times to go through the data)
+     */
+    private void setHyperparameters(int layerSize, int miniBatchs, int exSize, int tbpttsize, int numEpochs)
+    {
+        setLSTMLayers(layerSize);
+        setMiniBatches(miniBatchs);
+        setExamples(exSize);
+        setTbpttSize(tbpttsize);
+        setEpochs(numEpochs);
+    }
+
+    /**
+     * Configures and creates the RNN for the iterator's data.
+     */
+    private void buildRNN()
+    {
+        normalizer = iter.getPreProcessor();
+
+        setOutputLayers(iter.totalOutcomes());
+
+        //configure the RNN
+        try
+        {
+            RNNconfiguration = configureRNN();
+        }
+        catch (Exception e)
+        {
+            //print to console - this isn't a message to be displayed to the user
+            System.err.println("Caught Exception: RNN couldn't be configured.");
+        }
+
+        //creates the RNN
+        createRNN(RNNconfiguration);
+    }
 
     /**
      * Sets up the hyperparameters for the RNN.
@@ -199,7 +520,9 @@ public class IRSFunctions
             RNNconfiguration = new NeuralNetConfiguration.Builder()
                     .optimizationAlgo(OptimizationAlgorithm.STOCHASTIC_GRADIENT_DESCENT).iterations(1)
                     .gradientNormalization(GradientNormalization.RenormalizeL2PerLayer)
-                    .learningRate(0.001)
+                    .learningRate(getLearningRate())
+                    .trainingWorkspaceMode(getWorkspaceMode())
+                    .inferenceWorkspaceMode(getWorkspaceMode())
                     .seed(12345)
                     .regularization(true)
                     .l2(0.0001)
@@ -230,8 +553,8 @@ public class IRSFunctions
         //initializes the RNN - this should be called once before the network is used.
         rnn.init();
 
-        //value of the loss function on the current minibatch (want it close to 0!)
-        rnn.setListeners(new ScoreIterationListener(1));
+        //training rates and the loss (want it close to 0!), sampled rather than printed every iteration
+        rnn.setListeners(telemetry);
 
         //print the number of parameters in the network (and for each layer)
         Layer[] layers = rnn.getLayers();
@@ -430,111 +753,984 @@ public class IRSFunctions
     }
 
     /**
-     * Sets the crop variable.
-     * @param cropType the crop type
+     * Sets the learningRate variable.  A training model's RNN is configured
+     * and created again with the new rate (its training so far is lost).
+     * @param rate the learning rate
      */
-    public void setCropType(String cropType)
+    public void setLearningRate(double rate)
     {
-        crop = cropType;
+        if (rate <= 0)
+        {
+            //print to console - this isn't a message to be displayed to the user
+            System.out.println("\nLearning rate provided is <= 0; learning rate is " +
+                    "being set to default of 0.001.\n");
+
+            rate = 0.001;
+        }
+
+        learningRate = rate;
+
+        if (iter != null && rnn != null)
+        {
+            RNNconfiguration = configureRNN();
+            createRNN(RNNconfiguration);
+        }
     }
 
     /**
-     * Returns the crop variable.
-     * @return the crop type
+     * Returns the learningRate variable.
+     * @return the learning rate
      */
-    public String getCropType()
+    public double getLearningRate()
     {
-        return crop;
+        return learningRate;
     }
 
     /**
-     * Sets the soil variable.
-     * @param soilType the soil type
+     * Sets the prefetchDepth variable.
+     * @param depth the number of DataSets to read ahead while training (0 disables prefetching)
      */
-    public void setSoilType(String soilType)
+    public void setPrefetchDepth(int depth)
     {
-        soil = soilType;
+        if (depth < 0)
+        {
+            //print to console - this isn't a message to be displayed to the user
+            System.out.println("\nPrefetch depth provided is < 0; prefetching is being disabled.\n");
+
+            prefetchDepth = 0;
+        }
+        else
+        {
+            prefetchDepth = depth;
+        }
     }
 
     /**
-     * Returns the soil variable.
-     * @return the soil type
+     * Returns the prefetchDepth variable.
+     * @return the number of DataSets read ahead while training
      */
-    public String getSoilType()
+    public int getPrefetchDepth()
     {
-        return soil;
+        return prefetchDepth;
     }
 
     /**
-     * Sets the dataFilePath variable.
-     * @param path the file path provided by the user
+     * Sets whether the normalized DataSets are kept in memory after the
+     * first epoch and replayed for the later ones (see CachedDataSetIterator),
+     * so multi-epoch runs don't window and normalize the data every epoch.
+     * @param cache if the DataSets are cached
      */
-    public void setDataFilePath(String path)
+    public void setCacheDataSets(boolean cache)
     {
-        dataFilePath =  path;
+        cacheDataSets = cache;
     }
 
     /**
-     * Returns the dataFilePath variable.
-     * @return the file path provided by the user
+     * Returns whether the normalized DataSets are cached between epochs.
+     * @return if the DataSets are cached
      */
-    public String getDataFilePath()
+    public boolean getCacheDataSets()
     {
-        return dataFilePath;
+        return cacheDataSets;
     }
 
-
     /**
-     * Sets the savedParamPath variable.
-     * @param fileName the file path provided by the system
+     * Sets the number of worker threads that train copies of the RNN in
+     * parallel (see ParallelTrainer).
+     * @param numWorkers the number of workers (1 = train on one thread)
      */
-    public void setSavedParametersFile(String fileName)
+    public void setWorkers(int numWorkers)
     {
-        savedParamPath = fileName;
+        if (numWorkers <= 0)
+        {
+            //print to console - this isn't a message to be displayed to the user
+            System.out.println("\nNumber of workers provided is <= 0; number of workers is " +
+                    "being set to default of 1.\n");
+
+            workers = 1;
+        }
+        else
+        {
+            workers = numWorkers;
+        }
     }
 
     /**
-     * Returns the path and name for the
-     * file storing the saved parameters from
-     * the model run.
-     * @return the file path (including name)
+     * Returns the number of worker threads used for training.
+     * @return the number of workers
      */
-    public String getSavedParametersFile()
+    public int getWorkers()
     {
-        return savedParamPath;
+        return workers;
     }
 
     /**
-     * Trains/fits the data to the RNN.
-     * @param save whether to save the parameters or not
-     * @return a RegressionEvaluation object (used to print stats for the RNN)
+     * Sets the number of DataSets each worker fits before the copies of
+     * the RNN are averaged.
+     * @param frequency the averaging frequency
      */
-    public RegressionEvaluation runModel(int save)
+    public void setAveragingFrequency(int frequency)
     {
-        DataSet ds = null;
+        if (frequency <= 0)
+        {
+            //print to console - this isn't a message to be displayed to the user
+            System.out.println("\nAveraging frequency provided is <= 0; averaging frequency is " +
+                    "being set to default of 1.\n");
+
+            averagingFrequency = 1;
+        }
+        else
+        {
+            averagingFrequency = frequency;
+        }
+    }
+
+    /**
+     * Returns the number of DataSets each worker fits between averages.
+     * @return the averaging frequency
+     */
+    public int getAveragingFrequency()
+    {
+        return averagingFrequency;
+    }
+
+    /**
+     * Replaces the training telemetry listener (e.g., to change how often
+     * the score is sampled or the summary printed).
+     * @param listener the telemetry listener
+     */
+    public void setTelemetry(TrainingTelemetry listener)
+    {
+        telemetry = listener;
+
+        if (rnn != null)
+        {
+            rnn.setListeners(telemetry);
+        }
+    }
+
+    /**
+     * Returns the training telemetry (iteration and time step rates, fit
+     * and wait times, and the last sampled score).
+     * @return the telemetry listener
+     */
+    public TrainingTelemetry getTelemetry()
+    {
+        return telemetry;
+    }
+
+    /**
+     * Sets how the RNN reuses memory for activations and gradients.
+     * SEPARATE (the default) keeps reusable workspaces for training and
+     * inference; SINGLE shares one; NONE allocates fresh arrays on every
+     * fit and forward pass.  Takes effect on the next fit or forward pass.
+     * @param mode the workspace mode
+     */
+    public void setWorkspaceMode(WorkspaceMode mode)
+    {
+        workspaceMode = mode == null ? WorkspaceMode.SEPARATE : mode;
+
+        if (rnn != null)
+        {
+            rnn.getLayerWiseConfigurations().setTrainingWorkspaceMode(workspaceMode);
+            rnn.getLayerWiseConfigurations().setInferenceWorkspaceMode(workspaceMode);
+        }
+    }
+
+    /**
+     * Returns how the RNN reuses memory for activations and gradients.
+     * @return the workspace mode
+     */
+    public WorkspaceMode getWorkspaceMode()
+    {
+        return workspaceMode;
+    }
+
+    /**
+     * Sets the stride between training windows; a stride smaller than the
+     * example size gives overlapping windows that share one feature array.
+     * @param stride the number of records between window starts (0 = non-overlapping)
+     */
+    public void setStride(int stride)
+    {
+        iter.setStride(stride);
+
+        for (IRSIterator series : extraSeries)
+        {
+            series.setStride(stride);
+        }
+    }
+
+    /**
+     * Returns the stride between training windows.
+     * @return the number of records between window starts (0 = non-overlapping)
+     */
+    public int getStride()
+    {
+        return iter.getStride();
+    }
+
+    /**
+     * Loads the data the model trains on: the first series becomes the
+     * iterator and any other series (files that overlap the first in time,
+     * e.g., other fields) are added with addSeries.
+     * @param dataFilePath the path of the data (a csv, zip, directory or glob)
+     * @param numColumns the number of columns for the data
+     */
+    private void loadFields(String dataFilePath, int numColumns)
+    {
+        List<SensorData> fields = IRSIterator.loadSeries(dataFilePath, channels);
+        trainingDataPath = dataFilePath;
+        trainingColumns = numColumns;
+
+        iter = new IRSIterator(fields.isEmpty() ? null : fields.get(0), numColumns, getMiniBatches(), getExamples(),
+                null, channels);
+
+        for (int i = 1; i < fields.size(); i++)
+        {
+            addSeries(fields.get(i), numColumns);
+        }
+    }
+
+    /**
+     * Adds another field's data to train the same model on; its windows
+     * are packed into the same batches as the first file's and the
+     * normalizer covers every file.  Recommendations still follow the
+     * first file.  Files at the path that overlap in time are added as
+     * separate series.
+     * @param seriesFilePath the path of the other field's data
+     * @param numColumns the number of columns for that file
+     */
+    public void addSeries(String seriesFilePath, int numColumns)
+    {
+        for (SensorData field : IRSIterator.loadSeries(seriesFilePath, channels))
+        {
+            addSeries(field, numColumns);
+        }
+
+        extraSeriesSources.add(numColumns + ":" + seriesFilePath);
+    }
+
+    /**
+     * Adds another field's data that was already loaded to train the same
+     * model on (see addSeries(String, int)).  It isn't recorded in
+     * checkpoints, so a resumed run only has it if it comes from the same path.
+     * @param seriesData the other field's parsed data
+     * @param numColumns the number of columns for that data
+     */
+    public void addSeries(SensorData seriesData, int numColumns)
+    {
+        IRSIterator series = new IRSIterator(seriesData, numColumns, getMiniBatches(), getExamples(), null, channels);
+        series.setDownsampler(downsampler);
+        series.setStride(iter.getStride());
+
+        extraSeries.add(series);
+        fitExamplesToSeries();
+    }
+
+    /**
+     * Returns where the other fields' data came from (see addSeries).
+     * @return each added series as columns:path
+     */
+    public List<String> getExtraSeriesSources()
+    {
+        return extraSeriesSources;
+    }
+
+    /**
+     * Returns the path the training data was loaded from.
+     * @return the path, or null if the data was passed in already loaded
+     */
+    public String getTrainingDataPath()
+    {
+        return trainingDataPath;
+    }
+
+    /**
+     * Returns the number of columns the training data was loaded with.
+     * @return the number of columns
+     */
+    public int getTrainingColumns()
+    {
+        return trainingColumns;
+    }
+
+    /**
+     * Returns the number of records in every series the model trains on.
+     * @return the total number of records
+     */
+    public long getRecordCount()
+    {
+        long records = 0;
+
+        for (IRSIterator series : allSeries())
+        {
+            records += series.getRecordCount();
+        }
+
+        return records;
+    }
+
+    /**
+     * Trains on the records after each file's last full example too (and
+     * on files shorter than one example), as shorter examples whose
+     * padding is masked out.
+     * @param minLength the shortest leftover example to train on (0 = only full examples)
+     */
+    public void setVariableLength(int minLength)
+    {
+        variableLength = Math.max(0, minLength);
+    }
+
+    /**
+     * Returns the shortest leftover example trained on.
+     * @return the minimum example length (0 = only full examples)
+     */
+    public int getVariableLength()
+    {
+        return variableLength;
+    }
+
+    /**
+     * Holds the last part of each file out of training; the model is then
+     * scored on it instead of on the data it was trained on.
+     * @param fraction the fraction of the records held out (0 = none)
+     */
+    public void setHoldOut(double fraction)
+    {
+        if (fraction < 0 || fraction >= 1)
+        {
+            //print to console - this isn't a message to be displayed to the user
+            System.out.println("\nHold-out fraction provided isn't between 0 and 1; nothing is being held out.\n");
+
+            fraction = 0;
+        }
+
+        holdOut = fraction;
+    }
+
+    /**
+     * Returns the fraction of the records held out of training.
+     * @return the hold-out fraction (0 = none)
+     */
+    public double getHoldOut()
+    {
+        return holdOut;
+    }
+
+    /**
+     * Sets the number of threads the model is scored on after training.
+     * @param numThreads the number of threads
+     */
+    public void setEvaluationThreads(int numThreads)
+    {
+        if (numThreads <= 0)
+        {
+            //print to console - this isn't a message to be displayed to the user
+            System.out.println("\nNumber of evaluation threads provided is <= 0; number of threads is " +
+                    "being set to the number of processors.\n");
+
+            numThreads = Runtime.getRuntime().availableProcessors();
+        }
+
+        evaluationThreads = numThreads;
+    }
+
+    /**
+     * Returns the number of threads the model is scored on.
+     * @return the number of evaluation threads
+     */
+    public int getEvaluationThreads()
+    {
+        return evaluationThreads;
+    }
+
+    /**
+     * Returns the first file's iterator followed by the other fields'.
+     * @return every series the model trains on
+     */
+    private List<IRSIterator> allSeries()
+    {
+        List<IRSIterator> series = new ArrayList<IRSIterator>();
+        series.add(iter);
+        series.addAll(extraSeries);
+
+        return series;
+    }
+
+    /**
+     * Returns the windows the model is scored on: the held-out records, or
+     * every record without a hold-out, including the last short windows.
+     * The windows don't overlap even with a stride, so each record is
+     * scored once.
+     * @return the evaluation windows
+     */
+    private SequenceBatcher evaluationSource()
+    {
+        SequenceBatcher batcher = new SequenceBatcher(allSeries(), Math.max(getMiniBatches(), 32));
+        batcher.setRange(getHoldOut() > 0 ? 1 - getHoldOut() : 0, 1);
+        batcher.setOverlapping(false);
+        batcher.setVariableLength(1);
+
+        return batcher;
+    }
+
+    /**
+     * Returns the iterator the RNN is trained through: the first file's
+     * iterator, or a SequenceBatcher when several windows (or files) are
+     * packed into each DataSet.
+     * @return the training iterator
+     */
+    private DataSetIterator trainingSource()
+    {
+        if (getMiniBatches() <= 1 && extraSeries.isEmpty() && getVariableLength() == 0 && getHoldOut() == 0)
+        {
+            return iter;
+        }
+
+        //the held-out records mustn't set the normalizer's scale
+        for (IRSIterator series : allSeries())
+        {
+            series.setFitRange(1 - getHoldOut());
+        }
+
+        SequenceBatcher batcher = new SequenceBatcher(allSeries(), getMiniBatches());
+        batcher.setVariableLength(getVariableLength());
+        batcher.setRange(0, 1 - getHoldOut());
+
+        //with several files the batcher's normalizer covers all of them
+        normalizer = batcher.getPreProcessor();
+
+        //print to console - this isn't a message to be displayed to the user
+        System.out.println(batcher.stats());
+
+        return batcher;
+    }
+
+    /**
+     * Returns the iterator the RNN is trained on.
+     * @return the training iterator, or null for a loaded model
+     */
+    public IRSIterator getIterator()
+    {
+        return iter;
+    }
+
+    /**
+     * Returns the sensor channels the model uses.
+     * @return the channels, or null for every channel
+     */
+    public Set<String> getChannels()
+    {
+        return channels;
+    }
+
+    /**
+     * Sets how the records are rolled up into longer time buckets before
+     * training and inference (e.g., hourly); the setting is saved with the
+     * model.  The example and TBPTT sizes are still counted in records.
+     * @param sensorDownsampler the downsampler, or null to keep every record
+     */
+    public void setDownsampler(SensorDownsampler sensorDownsampler)
+    {
+        downsampler = sensorDownsampler;
+
+        if (iter != null)
+        {
+            iter.setDownsampler(downsampler);
+            normalizer = iter.getPreProcessor();
+        }
+
+        for (IRSIterator series : extraSeries)
+        {
+            series.setDownsampler(downsampler);
+        }
+
+        fitExamplesToSeries();
+    }
+
+    /**
+     * Shortens the example size (and the tbptt length) to the shortest
+     * series' when a series has too few records for it, e.g., after
+     * downsampling to days; otherwise no DataSet could be made and the
+     * model would be saved untrained.
+     * @throws IllegalArgumentException if a series has too few records for any example
+     */
+    private void fitExamplesToSeries()
+    {
+        if (iter == null || iter.getData() == null)
+        {
+            return;
+        }
+
+        int examples = getExamples();
+
+        for (IRSIterator series : allSeries())
+        {
+            examples = Math.min(examples, series.numExamples());
+        }
+
+        if (examples <= 0)
+        {
+            throw new IllegalArgumentException("A series has too few records to train on" +
+                    (downsampler == null ? "." : " after downsampling to " + downsampler.getBucketMinutes() +
+                    " minute buckets."));
+        }
+
+        if (examples == getExamples())
+        {
+            return;
+        }
+
+        //print to console - this isn't a message to be displayed to the user
+        System.out.println("Example size " + getExamples() + " is longer than a series; using " + examples + ".");
+
+        setExamples(examples);
+
+        for (IRSIterator series : allSeries())
+        {
+            series.setExampleSize(examples);
+        }
+
+        if (getTbpttSize() > examples)
+        {
+            setTbpttSize(examples);
+
+            if (rnn != null)
+            {
+                RNNconfiguration = configureRNN();
+                createRNN(RNNconfiguration);
+            }
+        }
+    }
+
+    /**
+     * Returns how the records are rolled up into longer time buckets.
+     * @return the downsampler, or null if every record is kept
+     */
+    public SensorDownsampler getDownsampler()
+    {
+        return downsampler;
+    }
+
+    /**
+     * Adds the channel list to a saved model file (nothing is added if
+     * every channel is used).
+     * @param modelFile the model file written by ModelSerializer
+     * @param modelChannels the channels, or null for every channel
+     * @throws IOException if the model file can't be rewritten
+     */
+    public static void addChannelsToModel(File modelFile, Set<String> modelChannels) throws IOException
+    {
+        if (modelChannels == null)
+        {
+            return;
+        }
+
+        StringBuilder list = new StringBuilder();
+
+        for (String channel : modelChannels)
+        {
+            list.append(list.length() == 0 ? "" : ",").append(channel);
+        }
+
+        addEntryToModel(modelFile, CHANNELS_ENTRY, list.toString());
+    }
+
+    /**
+     * Adds the downsampling spec to a saved model file (nothing is added if
+     * every record is kept).
+     * @param modelFile the model file written by ModelSerializer
+     * @param modelDownsampler the downsampler, or null
+     * @throws IOException if the model file can't be rewritten
+     */
+    public static void addDownsamplerToModel(File modelFile, SensorDownsampler modelDownsampler) throws IOException
+    {
+        if (modelDownsampler == null)
+        {
+            return;
+        }
+
+        addEntryToModel(modelFile, DOWNSAMPLER_ENTRY, modelDownsampler.getSpec());
+    }
+
+    /**
+     * Adds (or replaces) a one line text entry in a saved model file.
+     * @param modelFile the model file written by ModelSerializer
+     * @param name the entry name
+     * @param text the entry's contents
+     * @throws IOException if the model file can't be rewritten
+     */
+    public static void addEntryToModel(File modelFile, String name, String text) throws IOException
+    {
+        File tmp = new File(modelFile.getPath() + ".tmp");
+        ZipFile in = new ZipFile(modelFile);
+        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(tmp));
+
+        try
+        {
+            byte[] buffer = new byte[1 << 16];
+            Enumeration<? extends ZipEntry> entries = in.entries();
+
+            while (entries.hasMoreElements())
+            {
+                ZipEntry entry = entries.nextElement();
+
+                if (entry.getName().equals(name))
+                {
+                    continue;
+                }
+
+                out.putNextEntry(new ZipEntry(entry.getName()));
+                InputStream is = in.getInputStream(entry);
+
+                try
+                {
+                    int n;
+
+                    while ((n = is.read(buffer)) != -1)
+                    {
+                        out.write(buffer, 0, n);
+                    }
+                }
+                finally
+                {
+                    is.close();
+                }
+
+                out.closeEntry();
+            }
+
+            out.putNextEntry(new ZipEntry(name));
+            out.write(text.getBytes("UTF-8"));
+            out.closeEntry();
+        }
+        finally
+        {
+            out.close();
+            in.close();
+        }
+
+        if (!modelFile.delete() || !tmp.renameTo(modelFile))
+        {
+            throw new IOException("Could not replace " + modelFile.getPath());
+        }
+    }
+
+    /**
+     * Reads the channel list from a saved model file.
+     * @param modelFile the model file
+     * @return the channels, or null if the model uses every channel
+     */
+    public static Set<String> restoreChannels(File modelFile)
+    {
+        return SensorSchema.parseChannels(readModelEntry(modelFile, CHANNELS_ENTRY));
+    }
+
+    /**
+     * Reads the downsampling spec from a saved model file.
+     * @param modelFile the model file
+     * @return the downsampler, or null if the model keeps every record
+     */
+    public static SensorDownsampler restoreDownsampler(File modelFile)
+    {
+        return SensorDownsampler.parse(readModelEntry(modelFile, DOWNSAMPLER_ENTRY));
+    }
+
+    /**
+     * Reads a one line text entry from a saved model file.
+     * @param modelFile the model file
+     * @param name the entry name
+     * @return the entry's first line, or null if there's no such entry
+     */
+    public static String readModelEntry(File modelFile, String name)
+    {
+        try
+        {
+            ZipFile zip = new ZipFile(modelFile);
 
-        for (int i = 0; i < getEpochs(); ++i)
+            try
+            {
+                ZipEntry entry = zip.getEntry(name);
+
+                if (entry == null)
+                {
+                    return null;
+                }
+
+                BufferedReader br = new BufferedReader(new InputStreamReader(zip.getInputStream(entry), "UTF-8"));
+
+                try
+                {
+                    return br.readLine();
+                }
+                finally
+                {
+                    br.close();
+                }
+            }
+            finally
+            {
+                zip.close();
+            }
+        }
+        catch (IOException e)
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Saves the run to a checkpoint every few DataSets and/or minutes
+     * while runModel trains, so it can be resumed after a crash.
+     * @param checkpoint the checkpoint file, or null for no checkpoints
+     * @param everyDataSets the number of DataSets between checkpoints (0 = not by count)
+     * @param everyMinutes the minutes between checkpoints (0 = not by time)
+     */
+    public void setCheckpoints(File checkpoint, int everyDataSets, int everyMinutes)
+    {
+        checkpointer = checkpoint == null ? null : new TrainingCheckpointer(checkpoint, everyDataSets, everyMinutes);
+    }
+
+    /**
+     * Returns the checkpointer used while training.
+     * @return the checkpointer, or null if there are no checkpoints
+     */
+    public TrainingCheckpointer getCheckpointer()
+    {
+        return checkpointer;
+    }
+
+    /**
+     * Returns the normalizer the data is scaled with.
+     * @return the normalizer, or null if there isn't one yet
+     */
+    public NormalizerMinMaxScaler getNormalizer()
+    {
+        return normalizer;
+    }
+
+    /**
+     * Sets the directory the parameters file is saved in.
+     * @param directory the directory, or null for the current working directory
+     */
+    public void setSaveDirectory(File directory)
+    {
+        saveDirectory = directory;
+    }
+
+    /**
+     * Returns the directory the parameters file is saved in.
+     * @return the directory, or null for the current working directory
+     */
+    public File getSaveDirectory()
+    {
+        return saveDirectory;
+    }
+
+    /**
+     * Sets the crop variable.
+     * @param cropType the crop type
+     */
+    public void setCropType(String cropType)
+    {
+        crop = cropType;
+    }
+
+    /**
+     * Returns the crop variable.
+     * @return the crop type
+     */
+    public String getCropType()
+    {
+        return crop;
+    }
+
+    /**
+     * Sets the soil variable.
+     * @param soilType the soil type
+     */
+    public void setSoilType(String soilType)
+    {
+        soil = soilType;
+    }
+
+    /**
+     * Returns the soil variable.
+     * @return the soil type
+     */
+    public String getSoilType()
+    {
+        return soil;
+    }
+
+    /**
+     * Sets the dataFilePath variable.
+     * @param path the file path provided by the user
+     */
+    public void setDataFilePath(String path)
+    {
+        dataFilePath =  path;
+    }
+
+    /**
+     * Returns the dataFilePath variable.
+     * @return the file path provided by the user
+     */
+    public String getDataFilePath()
+    {
+        return dataFilePath;
+    }
+
+
+    /**
+     * Sets the savedParamPath variable.
+     * @param fileName the file path provided by the system
+     */
+    public void setSavedParametersFile(String fileName)
+    {
+        savedParamPath = fileName;
+    }
+
+    /**
+     * Returns the path and name for the
+     * file storing the saved parameters from
+     * the model run.
+     * @return the file path (including name)
+     */
+    public String getSavedParametersFile()
+    {
+        return savedParamPath;
+    }
+
+    /**
+     * Trains/fits the data to the RNN.
+     * @param save whether to save the parameters or not
+     * @return a RegressionEvaluation object (used to print stats for the RNN): the
+     * error on the held-out records, or the training error without a hold-out
+     */
+    public RegressionEvaluation runModel(int save)
+    {
+        //read (and normalize) the next DataSets on a background thread while the RNN trains
+        PrefetchingIterator prefetcher = null;
+        DataSetIterator source = trainingSource();
+        DataSetIterator trainIter = source;
+
+        if (getPrefetchDepth() > 0)
+        {
+            prefetcher = new PrefetchingIterator(source, getPrefetchDepth());
+            trainIter = prefetcher;
+        }
+
+        //the first epoch fills the cache and the later ones replay it
+        CachedDataSetIterator cache = null;
+
+        //a resumed pass doesn't start at the first DataSet, so it can't fill the cache
+        if (getCacheDataSets() && getEpochs() - startEpoch > 1 && startPosition == 0)
+        {
+            cache = new CachedDataSetIterator(trainIter);
+            trainIter = cache;
+        }
+
+        //copies of the RNN train on different DataSets and are averaged every few DataSets
+        ParallelTrainer trainer = getWorkers() > 1 ? new ParallelTrainer(rnn, getWorkers(), getAveragingFrequency()) : null;
+
+        long iteration = startIteration;
+        telemetry.reset();
+
+        if (checkpointer != null)
+        {
+            checkpointer.start(startIteration);
+        }
+
+        for (int i = startEpoch; i < getEpochs(); ++i)
         {
             //print to console - this isn't a message to be displayed to the user
             System.out.println("Epoch " + i);
 
-            iter.reset();
+            trainIter.reset();
+
+            //a resumed run skips the DataSets fit before the checkpoint
+            int position = i == startEpoch ? startPosition : 0;
+
+            if (source instanceof SequenceBatcher)
+            {
+                ((SequenceBatcher) source).seek(position);
+            }
+            else
+            {
+                iter.seek(position);
+            }
+
+            if (trainer != null)
+            {
+                //the replicas are averaged every round, so a checkpoint can be taken between rounds
+                trainer.fit(trainIter, checkpointer == null ? null :
+                        checkpointRounds(trainer, i, position, trainer.getDataSetsFit()));
+                iteration = startIteration + trainer.getDataSetsFit();
+            }
+
+            long waitStart = System.nanoTime();
 
             //if file has another dataset, grab it and train data on it
-            while (iter.hasNext())
+            while (trainIter.hasNext())
             {
-                ds = iter.next();
+                DataSet ds = trainIter.next();
+
+                long fitStart = System.nanoTime();
+                telemetry.recordWait(fitStart - waitStart);
+
                 rnn.fit(ds);
+
+                waitStart = System.nanoTime();
+                telemetry.recordFit(ds.getFeatures().size(0) * (long) ds.getFeatures().size(2), waitStart - fitStart);
+                position++;
+                iteration++;
+
+                if (checkpointer != null && checkpointer.isDue(iteration))
+                {
+                    checkpointer.checkpoint(this, i, position, iteration);
+                }
             }
         }
 
-        INDArray features;
-        INDArray labels;
-        INDArray predicted;
+        //later runs of this model start from the beginning
+        startEpoch = 0;
+        startPosition = 0;
+        startIteration = 0;
+
+        if (checkpointer != null)
+        {
+            checkpointer.finish();
+
+            //print to console - this isn't a message to be displayed to the user
+            System.out.println(checkpointer.stats());
+        }
+
+        //print to console - this isn't a message to be displayed to the user
+        System.out.println(telemetry.summary());
+
+        if (trainer != null)
+        {
+            trainer.shutdown();
+
+            //print to console - this isn't a message to be displayed to the user
+            System.out.println(trainer.stats());
+        }
+
+        if (prefetcher != null)
+        {
+            prefetcher.shutdown();
+
+            //print to console - this isn't a message to be displayed to the user
+            System.out.println(prefetcher.stats());
+        }
 
-        features = ds.getFeatureMatrix();
-        labels = ds.getLabels();
-        predicted = rnn.output(features, true);
+        if (cache != null)
+        {
+            //print to console - this isn't a message to be displayed to the user
+            System.out.println(cache.stats());
+        }
 
         rnn.rnnClearPreviousState();
 
@@ -546,8 +1742,8 @@ public class IRSFunctions
 
             try
             {
-                //get current working directory
-                cwd = new java.io.File(".").getCanonicalPath();
+                //get current working directory (or the directory chosen for saving)
+                cwd = (saveDirectory == null ? new java.io.File(".") : saveDirectory).getCanonicalPath();
 
                 setSavedParametersFile(cwd + "/" + getCropType() + getSoilType() + "Params.zip");
 
@@ -555,8 +1751,11 @@ public class IRSFunctions
                 File locationToSave = new File(getSavedParametersFile());
                 boolean updater = false;
 
-                //write model to .zip file
+                //write model to .zip file, along with the normalizer so inference uses the same scaling
                 ModelSerializer.writeModel(rnn, locationToSave, updater);
+                ModelSerializer.addNormalizerToModel(locationToSave, normalizer);
+                addChannelsToModel(locationToSave, channels);
+                addDownsamplerToModel(locationToSave, downsampler);
             }
             catch(IOException e)
             {
@@ -567,12 +1766,47 @@ public class IRSFunctions
             }
         }
 
-        RegressionEvaluation evaluation = new RegressionEvaluation(1);
-        evaluation.evalTimeSeries(labels, predicted);
+        //score every held-out window (or every window, without a hold-out) rather than the last DataSet
+        StreamingEvaluator evaluator = new StreamingEvaluator(rnn, getEvaluationThreads());
+        RegressionEvaluation evaluation = evaluator.evaluate(evaluationSource());
+
+        //without a hold-out the model is scored on the records it was trained on
+        //print to console - this isn't a message to be displayed to the user
+        System.out.println((getHoldOut() > 0 ? "Held-out error. " : "Training error (no records held out). ") +
+                evaluator.stats());
 
         return evaluation;
     }
 
+    /**
+     * Returns a listener that checkpoints the RNN between the rounds of a
+     * parallel pass whenever a checkpoint is due.
+     * @param trainer the parallel trainer
+     * @param epoch the epoch being trained
+     * @param position the DataSet the epoch started from
+     * @param fitBefore the number of DataSets the trainer had fit before the epoch
+     * @return the listener
+     */
+    private ParallelTrainer.RoundListener checkpointRounds(final ParallelTrainer trainer, final int epoch,
+                                                           final int position, final long fitBefore)
+    {
+        return new ParallelTrainer.RoundListener()
+        {
+            public void roundFinished(long dataSetsFit)
+            {
+                long iteration = startIteration + dataSetsFit;
+
+                if (checkpointer.isDue(iteration))
+                {
+                    //the replicas' averages are copied into the RNN before it's copied for the checkpoint
+                    trainer.sync();
+                    checkpointer.checkpoint(IRSFunctions.this, epoch, position + (int) (dataSetsFit - fitBefore),
+                            iteration);
+                }
+            }
+        };
+    }
+
     /**
      * Creates the Recommendation report.
      * @param numColumns the number of columns in the uploaded file
@@ -583,23 +1817,52 @@ public class IRSFunctions
      */
     public String generateRecommendation(int numColumns, double dep1, double dep2, double dep3)
     {
-        iter = new IRSIterator(getDataFilePath(), numColumns, getMiniBatches(), getExamples());
+        SensorData followed = followDataFile();
+        DataSet ds = null;
 
-        if(iter == null)
+        if (followed != null)
         {
-            return null;
+            //only the newest records are prepared, so a refresh doesn't redo the whole history
+            SensorData recent = followed.last(recommendationMinutes());
+            ds = latestDataSet(recent, numColumns);
+
+            //e.g., a mistyped time on the newest record leaves too few records in the stretch
+            if (ds == null && recent != followed)
+            {
+                ds = latestDataSet(followed, numColumns);
+            }
         }
         else
         {
+            iter = new IRSIterator(getDataFilePath(), numColumns, getMiniBatches(), getExamples(), channels);
+
+            if (normalizer != null)
+            {
+                iter.setNormalizer(normalizer);
+            }
+
+            //the model sees the records rolled up the same way it was trained on them
+            if (downsampler != null)
+            {
+                iter.setDownsampler(downsampler);
+            }
+
+            //the most recent records are used so the recommendation reflects the newest readings
+            ds = iter.latest();
+        }
 
-            iter.reset();
-            DataSet ds = iter.next();
+        if(ds == null)
+        {
+            return null;
+        }
+        else
+        {
 
             int index = ds.getLabels().getColumn(0).length() - 1;
             rnn.rnnClearPreviousState();
 
-            //allows forward pass (predictions) to be conducted efficiently, one or more steps at a time.
-            INDArray out = rnn.rnnTimeStep(ds.getFeatures());
+            //forward pass over the latest records (runs in the inference workspace)
+            INDArray out = rnn.output(ds.getFeatures(), false);
 
             //print to console - this isn't a message to be displayed to the user
             System.out.println("Calculated result: " + out.getRow(0).getDouble(index));
@@ -622,6 +1885,84 @@ public class IRSFunctions
         }
     }
 
+    /**
+     * Prepares some of the followed csv's rows the way the model was
+     * trained on them and returns the most recent example.
+     * @param rows the parsed rows
+     * @param numColumns the number of columns in the uploaded file
+     * @return the most recent DataSet, or null if there aren't enough records
+     */
+    private DataSet latestDataSet(SensorData rows, int numColumns)
+    {
+        //apply the training data's scaling rather than fitting to the uploaded file
+        iter = new IRSIterator(rows, numColumns, getMiniBatches(), getExamples(), normalizer, channels);
+
+        //the model sees the records rolled up the same way it was trained on them
+        if (downsampler != null)
+        {
+            iter.setDownsampler(downsampler);
+        }
+
+        //the most recent records are used so the recommendation reflects the newest readings
+        return iter.latest();
+    }
+
+    /**
+     * Returns how far back a recommendation looks: one example (in
+     * downsampled buckets if the model was trained on them), the time the
+     * derived channels need to fill their windows, and a bucket to spare
+     * for a partial first bucket.
+     * @return the minutes of records a recommendation needs
+     */
+    private long recommendationMinutes()
+    {
+        long step = downsampler == null ? SensorResampler.DEFAULT_CADENCE : downsampler.getBucketMinutes();
+
+        return (getExamples() + 1) * step + RollingFeatures.WARM_UP_MINUTES;
+    }
+
+    /**
+     * Returns the rows of the uploaded csv, parsing only the rows appended
+     * since the last call if it's the same file.
+     * @return the parsed rows, or null if the data file isn't a single csv
+     * or can't be read
+     */
+    private SensorData followDataFile()
+    {
+        File csv = new File(getDataFilePath());
+
+        if (!csv.isFile() || !csv.getName().toLowerCase().endsWith(".csv"))
+        {
+            return null;
+        }
+
+        try
+        {
+            if (tail == null || !tail.getFile().equals(csv))
+            {
+                tail = new SensorTail(csv, channels);
+            }
+            else
+            {
+                int added = tail.poll();
+
+                //print to console - this isn't a message to be displayed to the user
+                System.out.println("Appended " + added + " records from " + csv.getPath());
+            }
+
+            return tail.getData();
+        }
+        catch (IOException e)
+        {
+            //print to console - this isn't a message to be displayed to the user
+            System.out.println("Caught IOException: could not read file at " + csv.getPath());
+
+            tail = null;
+
+            return null;
+        }
+    }
+
     /**
      * Sets the results variable.
      * @param amount the irrigation recommendation
@@ -5,9 +5,6 @@
  * Project: Irrigation Recommendation System (IRS)
  */
 
-import org.datavec.api.records.reader.RecordReader;
-import org.datavec.api.records.reader.impl.csv.CSVRecordReader;
-import org.datavec.api.split.FileSplit;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.dataset.DataSet;
 import org.nd4j.linalg.dataset.api.DataSetPreProcessor;
@@ -15,14 +12,20 @@ import org.nd4j.linalg.dataset.api.iterator.DataSetIterator;
 import org.nd4j.linalg.dataset.api.preprocessor.NormalizerMinMaxScaler;
 import org.nd4j.linalg.factory.Nd4j;
 import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.NoSuchElementException;
 
 /**
  * <p>
  * The IRSIterator class is a custom DataSetIterator used to extract DataSets
- * from a comma separated value (csv) file.  The csv file must be properly
- * formatted with 1-3 soil moisture sensors in order for it to work correctly.
+ * from a comma separated value (csv) file.  The csv header decides which
+ * columns are used (see SensorSchema), so any number of soil moisture
+ * sensor ports is supported.
  * </p>
  *
  * @author hhraulerson
@@ -48,9 +51,46 @@ public class IRSIterator implements DataSetIterator
     private int miniBatches;
 
     /**
-     * The RecordReader is used to read the data from the csv.
+     * The parsed csv data, stored as primitive float columns.
      */
-    private RecordReader reader;
+    private SensorData data;
+
+    /**
+     * The csv data before it was resampled onto the time grid.
+     */
+    private SensorData rawData;
+
+    /**
+     * Puts the records on a fixed time grid (null to use them as read).
+     */
+    private SensorResampler resampler;
+
+    /**
+     * Rolls the records up into longer time buckets (null to keep every record).
+     */
+    private SensorDownsampler downsampler;
+
+    /**
+     * If the preProcessor was fit over this iterator's data (rather than
+     * being a normalizer passed in), so it's fit again if the data changes.
+     */
+    private boolean fitOwnNormalizer;
+
+    /**
+     * The fraction of the records, from the first, the preProcessor is fit
+     * over (less than 1 when the last records are held out for validation).
+     */
+    private double fitFraction = 1;
+
+    /**
+     * Maps the csv columns to feature slots (only the channels in use).
+     */
+    private SensorSchema schema;
+
+    /**
+     * The channels in use (see SensorSchema), or null for every channel.
+     */
+    private Set<String> channels;
 
     /**
      * The total records in the csv.
@@ -62,6 +102,45 @@ public class IRSIterator implements DataSetIterator
      */
     private int nextStartOffset;
 
+    /**
+     * The next record that getNextDataSet will read from.
+     */
+    private int readerPosition;
+
+    /**
+     * The number of records read into DataSets since the last reset.
+     */
+    private long rowsRead;
+
+    /**
+     * The distance (in records) between the starts of consecutive windows
+     * when sliding windows are used; 0 means non-overlapping blocks.
+     */
+    private int stride;
+
+    /**
+     * The normalized features for every record, shaped [1, inputColumns(), fileRecords]
+     * in 'f' order; sliding windows are views into this array.
+     */
+    private INDArray sharedFeatures;
+
+    /**
+     * The labels for every record, shaped [1, totalOutcomes(), fileRecords] in 'f' order.
+     */
+    private INDArray sharedLabels;
+
+    /**
+     * The mask for every record, shaped [1, fileRecords] in 'f' order, or
+     * null if every record was observed.
+     */
+    private INDArray sharedMask;
+
+    /**
+     * Reusable staging buffers for assembling DataSets, one feature/label
+     * pair per batch shape (keyed by numBatches and numExamples).
+     */
+    private Map<Long, float[][]> bufferPool;
+
     /**
      * The preProcessor is used to normalize the DataSet before they're used.
      */
@@ -71,50 +150,181 @@ public class IRSIterator implements DataSetIterator
 
     /**
      * Default constructor for the IRSIterator class.
-     * @param csvFilePath path to csv file to use for generating samples
+     * @param csvFilePath path to csv file to use for generating samples (or a zip,
+     * directory, or glob of csv files)
      * @param cols number of columns used in a DataSet
      * @param miniBatchSize number of records per minibatch
      * @param exampleLength number of records for the example set
      */
     public IRSIterator(String csvFilePath, int cols, int miniBatchSize, int exampleLength)
+    {
+        this(csvFilePath, cols, miniBatchSize, exampleLength, null);
+    }
+
+    /**
+     * Constructor for the IRSIterator class that only uses some channels;
+     * the other columns aren't parsed.
+     * @param csvFilePath path to csv file to use for generating samples (or a zip,
+     * directory, or glob of csv files)
+     * @param cols number of columns used in a DataSet
+     * @param miniBatchSize number of records per minibatch
+     * @param exampleLength number of records for the example set
+     * @param channels the channels to use (see SensorSchema), or null for every channel
+     */
+    public IRSIterator(String csvFilePath, int cols, int miniBatchSize, int exampleLength, Set<String> channels)
+    {
+        this(load(csvFilePath, channels), cols, miniBatchSize, exampleLength, null, channels);
+    }
+
+    /**
+     * Constructor for the IRSIterator class that uses data that was already
+     * parsed (e.g., data being followed by a SensorTail).
+     * @param sensorData the parsed csv data (may be null if it couldn't be read)
+     * @param cols number of columns used in a DataSet
+     * @param miniBatchSize number of records per minibatch
+     * @param exampleLength number of records for the example set
+     * @param normalizer a fitted normalizer to use, or null to fit one over the data
+     */
+    public IRSIterator(SensorData sensorData, int cols, int miniBatchSize, int exampleLength,
+                       NormalizerMinMaxScaler normalizer)
+    {
+        this(sensorData, cols, miniBatchSize, exampleLength, normalizer, null);
+    }
+
+    /**
+     * Constructor for the IRSIterator class that uses some channels of data
+     * that was already parsed.
+     * @param sensorData the parsed csv data (may be null if it couldn't be read)
+     * @param cols number of columns used in a DataSet
+     * @param miniBatchSize number of records per minibatch
+     * @param exampleLength number of records for the example set
+     * @param normalizer a fitted normalizer to use, or null to fit one over the data
+     * @param channels the channels to use (see SensorSchema), or null for every channel
+     */
+    public IRSIterator(SensorData sensorData, int cols, int miniBatchSize, int exampleLength,
+                       NormalizerMinMaxScaler normalizer, Set<String> channels)
     {
         setColumns(cols);
         setMiniBatches(miniBatchSize);
         nextStartOffset = 0;
-        setPreProcessor();
-        getPreProcessor().fitLabel(false);
+        readerPosition = 0;
+        rowsRead = 0;
+        bufferPool = new HashMap<Long, float[][]>();
 
-        //print to console - this isn't a message to be displayed to the user
-        System.out.println("CSV file path is " + csvFilePath);
+        //logger outages become masked (or filled) records on a 5 minute grid
+        rawData = sensorData;
+        resampler = new SensorResampler();
+        this.channels = channels;
+        data = rawData == null ? null : prepareData();
+        fileRecords = data == null ? 0 : data.rows();
 
-        File dataFile = new File(csvFilePath);
+        //the csv header (and the channels in use) decide how many input columns there are and where the label is
+        schema = data == null ? null : SensorSchema.fromHeader(data.getHeader(), channels);
 
-        //skip the CSV header (i.e., the column titles)
-        int numLinesToSkip = 1;
+        if (schema != null && schema.inputColumns() != inputColumns())
+        {
+            //print to console - this isn't a message to be displayed to the user
+            System.out.println("The csv header has " + schema.getPortCount() + " sensor ports (channels: " +
+                    (channels == null ? "all" : channels) + "); using " + schema.inputColumns() +
+                    " input columns instead of " + inputColumns() + ".");
 
-        setRecords(numLinesToSkip, dataFile, csvFilePath);
+            columns = schema.inputColumns();
+        }
 
         setExampleSize(exampleLength);
 
         //print to console - this isn't a message to be displayed to the user
         System.out.println("Number of fileRecords " + fileRecords);
 
-        String delimiter = ",";
+        fitOwnNormalizer = normalizer == null;
 
-        reader = new CSVRecordReader(numLinesToSkip, delimiter);
+        if (normalizer != null)
+        {
+            setNormalizer(normalizer);
+        }
+        else
+        {
+            //min/max are computed once over the whole file so every batch gets the same scale
+            setPreProcessor();
+            fitPreProcessor();
+        }
+    }
+
+    /**
+     * Loads the data for the IRSIterator.
+     * @param csvFilePath path to a csv file (or a zip, directory, or glob of csv files)
+     * @param channels the channels to load, or null for every channel
+     * @return the parsed data, or null if it couldn't be read
+     */
+    private static SensorData load(String csvFilePath, Set<String> channels)
+    {
+        //print to console - this isn't a message to be displayed to the user
+        System.out.println("CSV file path is " + csvFilePath);
 
         try
         {
-            reader.initialize(new FileSplit(dataFile));
+            //multiple csvs are merged in time order (they mustn't overlap; see loadSeries).
+            //a binary sidecar is used instead of the csv text when a file hasn't changed
+            SensorData data = new SensorSource(csvFilePath, channels).merged();
 
             //print to console - this isn't a message to be displayed to the user
-            System.out.println("CSVRecordReader initialized.");
+            System.out.println("CSV file parsed.");
+
+            return data;
         }
-        catch (Exception e)
+        catch (FileNotFoundException e)
         {
             //print to console - this isn't a message to be displayed to the user
-            System.err.println("Caught Exception: Error initializing CSVRecordReader.");
+            System.out.println("Caught FileNotFoundException: could not open the data file at " + csvFilePath);
         }
+        catch (IOException e)
+        {
+            //print to console - this isn't a message to be displayed to the user
+            System.out.println("Caught IOException: could not read file at " + csvFilePath);
+        }
+        catch (IllegalArgumentException e)
+        {
+            //print to console - this isn't a message to be displayed to the user
+            System.out.println("Caught IllegalArgumentException: " + e.getMessage());
+        }
+
+        return null;
+    }
+
+    /**
+     * Loads the data for several IRSIterators: files that follow each other
+     * in time are joined and files that overlap in time (e.g., one per
+     * field) are kept as separate series (see SensorSource.series).
+     * @param csvFilePath path to a csv file (or a zip, directory, or glob of csv files)
+     * @param channels the channels to load, or null for every channel
+     * @return the parsed series, or an empty list if they couldn't be read
+     */
+    public static List<SensorData> loadSeries(String csvFilePath, Set<String> channels)
+    {
+        //print to console - this isn't a message to be displayed to the user
+        System.out.println("CSV file path is " + csvFilePath);
+
+        try
+        {
+            return new SensorSource(csvFilePath, channels).series();
+        }
+        catch (FileNotFoundException e)
+        {
+            //print to console - this isn't a message to be displayed to the user
+            System.out.println("Caught FileNotFoundException: could not open the data file at " + csvFilePath);
+        }
+        catch (IOException e)
+        {
+            //print to console - this isn't a message to be displayed to the user
+            System.out.println("Caught IOException: could not read file at " + csvFilePath);
+        }
+        catch (IllegalArgumentException e)
+        {
+            //print to console - this isn't a message to be displayed to the user
+            System.out.println("Caught IllegalArgumentException: " + e.getMessage());
+        }
+
+        return new ArrayList<SensorData>();
     }
 
     /**
@@ -124,7 +334,7 @@ public class IRSIterator implements DataSetIterator
      */
     public boolean hasNext()
     {
-        return fileRecords - nextStartOffset >= numExamples() * batch();
+        return data != null && fileRecords - nextStartOffset >= (batch() - 1) * windowStep() + numExamples();
     }
 
     /**
@@ -140,22 +350,36 @@ public class IRSIterator implements DataSetIterator
     /**
      * Returns the next DataSet with a specific number of minibatches.
      * Will automatically normalize the data based on the preprocessor.
+     * The read position carries over between calls, so consecutive
+     * DataSets are read in a single forward pass over the data.  When a
+     * stride is set, the DataSet is a view of overlapping windows instead.
      * @param num the number of minibatches in this DataSet
      * @return the next DataSet with num minibatches
      */
     public DataSet next(int num)
     {
         //if csv has enough records, get next DataSet
-        if (hasNext())
+        if (hasNext() && getStride() > 0)
         {
-            //scan to next record
-            scanTo(nextStartOffset);
+            //sliding windows are views into the shared (already normalized) arrays
+            DataSet ds = getWindowView(num, nextStartOffset);
+
+            nextStartOffset += num * getStride();
+
+            return ds;
+        }
+        else if (hasNext())
+        {
+            //only move the read position if it isn't already on the next record
+            if (readerPosition != nextStartOffset)
+            {
+                scanTo(nextStartOffset);
+            }
 
             //get next DataSet
             DataSet ds = getNextDataSet(num, numExamples());
 
-            //preprocessor normalizes DataSet that's retrieved
-            preprocessor.fit(ds);
+            //preprocessor normalizes DataSet that's retrieved (stats were fit once over the whole file)
             preprocessor.transform(ds);
 
             //update nextStartOffset to reflect new DataSet that was retrieved
@@ -170,42 +394,223 @@ public class IRSIterator implements DataSetIterator
         }
     }
 
+    /**
+     * Returns the most recent exampleSize records as a normalized DataSet
+     * (used for recommendations).  Doesn't change the iteration position.
+     * @return the most recent DataSet, or null if there aren't enough records
+     */
+    public DataSet latest()
+    {
+        if (data == null || fileRecords < numExamples() || numExamples() <= 0)
+        {
+            return null;
+        }
+
+        int position = readerPosition;
+        long read = rowsRead;
+
+        readerPosition = fileRecords - numExamples();
+        DataSet ds = getNextDataSet(1, numExamples());
+
+        readerPosition = position;
+        rowsRead = read;
+
+        preprocessor.transform(ds);
+
+        return ds;
+    }
+
     /**
      * Returns the next DataSet with a specific number of minibatches and examples.
-     * Does not automatically normalize.
+     * Does not automatically normalize.  Each window is copied from the parsed
+     * columns into a pooled staging buffer laid out in 'f' order, which is then
+     * copied into the feature/label arrays in one bulk call.
      * @param numBatches the number of minibatches in the DataSet
      * @param numExamples the number of examples in each minibatch
      * @return the next DataSet with numBatches minibatches of numExamples examples each
      */
     public DataSet getNextDataSet(int numBatches, int numExamples)
     {
+        int cols = inputColumns();
 
         // index 0 = numBatches
         // index 1 = inputColumns()
         // index 2 = numExamples
         //Why 'f' order here? See http://deeplearning4j.org/usingrnns.html#data section "Alternative: Implementing a custom DataSetIterator"
-        INDArray input = Nd4j.create(new int[]{numBatches, inputColumns(), numExamples}, 'f');
-        INDArray labels = Nd4j.create(new int[]{numBatches, totalOutcomes(), numExamples}, 'f');
+        //in 'f' order element [i, k, j] is at i + numBatches * (k + cols * j)
+        float[][] buffers = getBuffers(numBatches, numExamples);
+        float[] features = buffers[0];
+        float[] outcomes = buffers[1];
+        float[] masks = buffers[2];
+
+        float[] maskColumn = data.getMask();
 
         for (int i = 0; i < numBatches; i++)
         {
+            copyWindow(readerPosition, buffers, i, numBatches, numExamples);
+
+            readerPosition += numExamples;
+            rowsRead += numExamples;
+        }
+
+        INDArray input = Nd4j.create(features, new int[]{numBatches, cols, numExamples}, 'f');
+        INDArray labels = Nd4j.create(outcomes, new int[]{numBatches, totalOutcomes(), numExamples}, 'f');
+
+        if (maskColumn == null)
+        {
+            return new DataSet(input, labels);
+        }
+
+        //masked records (inside a long logger outage) are left out of the loss
+        INDArray mask = Nd4j.create(masks, new int[]{numBatches, numExamples}, 'f');
+
+        return new DataSet(input, labels, mask, mask);
+    }
+
+    /**
+     * Copies one window of records (not normalized) into a row of 'f' order
+     * staging buffers shaped like getNextDataSet's.  Records without a mask
+     * get a mask of 1 so windows from several files can share one batch.
+     * @param start the first record of the window
+     * @param buffers the feature (index 0), label (index 1) and mask (index 2) buffers
+     * @param row the row of the batch to fill
+     * @param numBatches the number of rows in the batch
+     * @param numExamples the number of records in the window
+     */
+    public void copyWindow(int start, float[][] buffers, int row, int numBatches, int numExamples)
+    {
+        int cols = inputColumns();
+        float[] features = buffers[0];
+        float[] outcomes = buffers[1];
+        float[] masks = buffers[2];
+
+        float[] labelColumn = getLabelColumn();
+        float[] maskColumn = data.getMask();
+
+        //first column is date (skip it - its slot stays 0)
+        for (int j = 0; j < numExamples; j++)
+        {
+            features[row + numBatches * cols * j] = 0;
+        }
+
+        for (int k = 1; k < cols; k++)
+        {
+            float[] column = getFeatureColumn(k);
+            int index = row + numBatches * k;
+            int stride = numBatches * cols;
+
             for (int j = 0; j < numExamples; j++)
             {
-                List nextValues = reader.next();
+                features[index] = column == null ? 0 : column[start + j];
+                index += stride;
+            }
+        }
 
-                //first column is date (skip it)
-                for (int k = 1; k < inputColumns(); k++)
-                {
-                    //get the value in each column for a single record and put in input INDArray
-                    input.putScalar(new int[]{i, k, j}, Float.parseFloat(nextValues.get(k).toString()));
-                }
+        for (int j = 0; j < numExamples; j++)
+        {
+            outcomes[row + numBatches * j] = labelColumn[start + j];
+        }
+
+        for (int j = 0; j < numExamples; j++)
+        {
+            masks[row + numBatches * j] = maskColumn == null ? 1 : maskColumn[start + j];
+        }
+    }
+
+    /**
+     * Returns a DataSet of overlapping windows without copying any data.
+     * Window i starts at start + i * stride; the returned arrays are strided
+     * views into the shared feature/label arrays, which are built (and
+     * normalized) the first time this is called.  The views must not be
+     * modified in place.
+     * @param numBatches the number of windows in the DataSet
+     * @param start the first record of the first window
+     * @return the DataSet of window views
+     */
+    public DataSet getWindowView(int numBatches, int start)
+    {
+        if (sharedFeatures == null)
+        {
+            buildSharedArrays();
+        }
+
+        int cols = inputColumns();
+        int numExamples = numExamples();
+
+        //in 'f' order record r, column k of the shared features is at k + cols * r
+        INDArray input = Nd4j.create(sharedFeatures.data(), new int[]{numBatches, cols, numExamples},
+                new int[]{cols * getStride(), 1, cols}, (long) cols * start, 'f');
+        INDArray labels = Nd4j.create(sharedLabels.data(), new int[]{numBatches, totalOutcomes(), numExamples},
+                new int[]{getStride(), 1, 1}, start, 'f');
+
+        rowsRead += numBatches * numExamples;
 
-                double label = Double.parseDouble(nextValues.get(inputColumns()).toString());
-                labels.putScalar(new int[]{i, 0, j}, label);
+        if (sharedMask == null)
+        {
+            return new DataSet(input, labels);
+        }
+
+        INDArray mask = Nd4j.create(sharedMask.data(), new int[]{numBatches, numExamples},
+                new int[]{getStride(), 1}, start, 'f');
+
+        return new DataSet(input, labels, mask, mask);
+    }
+
+    /**
+     * Builds the shared feature and label arrays holding every record and
+     * normalizes the features once with the preProcessor.
+     */
+    private void buildSharedArrays()
+    {
+        int cols = inputColumns();
+        float[] features = new float[cols * fileRecords];
+
+        //first column is date (its slot stays 0)
+        for (int k = 1; k < cols; k++)
+        {
+            float[] column = getFeatureColumn(k);
+
+            for (int r = 0; column != null && r < fileRecords; r++)
+            {
+                features[k + cols * r] = column[r];
             }
         }
 
-        return new DataSet(input, labels);
+        //the column arrays can be longer than fileRecords (they grow as rows are appended)
+        DataSet all = new DataSet(Nd4j.create(features, new int[]{1, cols, fileRecords}, 'f'),
+                Nd4j.create(Arrays.copyOf(getLabelColumn(), fileRecords), new int[]{1, totalOutcomes(), fileRecords}, 'f'));
+
+        preprocessor.transform(all);
+
+        sharedFeatures = all.getFeatures();
+        sharedLabels = all.getLabels();
+        sharedMask = data.getMask() == null ? null
+                : Nd4j.create(Arrays.copyOf(data.getMask(), fileRecords), new int[]{1, fileRecords}, 'f');
+    }
+
+    /**
+     * Returns the pooled feature and label staging buffers for a batch shape,
+     * allocating them the first time the shape is used.
+     * @param numBatches the number of minibatches in the DataSet
+     * @param numExamples the number of examples in each minibatch
+     * @return the feature buffer (index 0), label buffer (index 1) and mask
+     * buffer (index 2)
+     */
+    private float[][] getBuffers(int numBatches, int numExamples)
+    {
+        Long key = ((long) numBatches << 32) | numExamples;
+        float[][] buffers = bufferPool.get(key);
+
+        if (buffers == null)
+        {
+            buffers = new float[][]{new float[numBatches * inputColumns() * numExamples],
+                    new float[numBatches * totalOutcomes() * numExamples],
+                    new float[numBatches * numExamples]};
+
+            bufferPool.put(key, buffers);
+        }
+
+        return buffers;
     }
 
     /**
@@ -215,7 +620,14 @@ public class IRSIterator implements DataSetIterator
      */
     public int totalExamples()
     {
-        return fileRecords / (batch() * numExamples());
+        if (fileRecords < numExamples())
+        {
+            return 0;
+        }
+
+        int windows = (fileRecords - numExamples()) / windowStep() + 1;
+
+        return windows / batch();
     }
 
     /**
@@ -259,30 +671,34 @@ public class IRSIterator implements DataSetIterator
     }
 
     /**
-     * Resets the RecordReader and next line to read.
+     * Resets the next record to read.  This is the only place the read
+     * position is rewound during normal iteration.
      */
     public void reset()
     {
-        nextStartOffset = 1;
-
-        reader.reset();
+        nextStartOffset = 0;
+        readerPosition = 0;
+        rowsRead = 0;
     }
 
     /**
-     * Sets the RecordReader to read a specific line next.
-     * @param line the next line that should be read from the RecordReader
+     * Sets getNextDataSet to read a specific record next.  Only needed
+     * for random access; next() streams forward without calling this.
+     * @param record the number of records to skip (0 = first record after the header)
      */
-    public void scanTo(int line)
+    public void scanTo(int record)
     {
-        reader.reset();
-
-        int curLine = 1;
+        readerPosition = Math.max(0, Math.min(record, fileRecords));
+    }
 
-        while (curLine < line && reader.hasNext())
-        {
-            reader.next();
-            ++curLine;
-        }
+    /**
+     * Returns how many records have been read into DataSets since the
+     * last reset (used to check that an epoch is a single pass).
+     * @return the number of records read since the last reset
+     */
+    public long getRowsRead()
+    {
+        return rowsRead;
     }
 
     /**
@@ -341,7 +757,59 @@ public class IRSIterator implements DataSetIterator
      */
     public int cursor()
     {
-        return nextStartOffset / (batch() * numExamples());
+        return nextStartOffset / (batch() * windowStep());
+    }
+
+    /**
+     * Moves to a DataSet in the current pass (e.g., to resume a pass that
+     * was interrupted); the inverse of cursor().
+     * @param dataSets the number of DataSets to skip from the first record
+     */
+    public void seek(int dataSets)
+    {
+        nextStartOffset = Math.max(0, dataSets) * batch() * windowStep();
+    }
+
+    /**
+     * Sets the stride between sliding windows.  A stride smaller than the
+     * example length gives overlapping windows; 0 (the default) cuts the file
+     * into non-overlapping blocks of exampleSize records.
+     * @param windowStride the number of records between window starts
+     */
+    public void setStride(int windowStride)
+    {
+        if (windowStride < 0)
+        {
+            System.out.println("\nStride provided is < 0; stride is being set to 0 " +
+                    "(non-overlapping blocks).\n");
+
+            stride = 0;
+        }
+        else
+        {
+            stride = windowStride;
+
+            //print to console - this isn't a message to be displayed to the user
+            System.out.println("Stride was set to " + getStride());
+        }
+    }
+
+    /**
+     * Returns the stride between sliding windows.
+     * @return the stride (0 = non-overlapping blocks)
+     */
+    public int getStride()
+    {
+        return stride;
+    }
+
+    /**
+     * Returns the number of records between the starts of consecutive windows.
+     * @return the stride, or the example length if no stride is set
+     */
+    private int windowStep()
+    {
+        return getStride() > 0 ? getStride() : numExamples();
     }
 
     /**
@@ -379,6 +847,93 @@ public class IRSIterator implements DataSetIterator
     public void setPreProcessor()
     {
         preprocessor = new NormalizerMinMaxScaler(-10, 10);
+        preprocessor.fitLabel(false);
+    }
+
+    /**
+     * Fits the preProcessor's feature min/max over the records in the fit
+     * range (every record in the file unless setFitRange was called) in a
+     * single pass over the parsed columns.  NaN values are ignored.
+     */
+    public void fitPreProcessor()
+    {
+        if (data == null)
+        {
+            return;
+        }
+
+        int records = (int) (fileRecords * fitFraction);
+
+        float[] min = new float[inputColumns()];
+        float[] max = new float[inputColumns()];
+
+        //first column is date (its slot is always 0)
+        for (int k = 1; k < inputColumns(); k++)
+        {
+            float[] column = getFeatureColumn(k);
+            float lo = Float.POSITIVE_INFINITY;
+            float hi = Float.NEGATIVE_INFINITY;
+
+            for (int r = 0; column != null && r < records; r++)
+            {
+                float value = column[r];
+
+                if (value < lo)
+                {
+                    lo = value;
+                }
+
+                if (value > hi)
+                {
+                    hi = value;
+                }
+            }
+
+            min[k] = lo <= hi ? lo : 0;
+            max[k] = lo <= hi ? hi : 0;
+        }
+
+        preprocessor.setFeatureStats(Nd4j.create(min), Nd4j.create(max));
+
+        //shared arrays were normalized with the old stats
+        sharedFeatures = null;
+        sharedLabels = null;
+    }
+
+    /**
+     * Limits the records the preProcessor is fit over to the first part of
+     * the file, so records held out for validation don't set the scale.
+     * The preProcessor is fit again unless it was passed in.
+     * @param fraction the fraction of the records, from the first, to fit over
+     */
+    public void setFitRange(double fraction)
+    {
+        fraction = Math.max(0, Math.min(fraction, 1));
+
+        if (fraction != fitFraction)
+        {
+            fitFraction = fraction;
+
+            if (fitOwnNormalizer)
+            {
+                fitPreProcessor();
+            }
+        }
+    }
+
+    /**
+     * Replaces the preProcessor with one that was already fit (e.g., the
+     * normalizer saved with a trained model) so the same scaling is applied.
+     * @param normalizer the fitted normalizer to use
+     */
+    public void setNormalizer(NormalizerMinMaxScaler normalizer)
+    {
+        preprocessor = normalizer;
+        fitOwnNormalizer = false;
+
+        //shared arrays were normalized with the old stats
+        sharedFeatures = null;
+        sharedLabels = null;
     }
 
     /**
@@ -403,37 +958,169 @@ public class IRSIterator implements DataSetIterator
     }
 
     /**
-     * Sets the fileRecords variable.
-     * @param numLinesToSkip number of lines to skip (i.e., skip file header)
-     * @param file the file that the number of records is being calculated for
-     * @param path the path for the file passed in - used if Exceptions occur
+     * Sets how the records are put on a time grid and resamples the csv
+     * data again.  The normalizer is fit again unless it was passed in.
+     * @param sensorResampler the resampler to use, or null to use the
+     * records as they were read
      */
-    private void setRecords(int numLinesToSkip, File file, String path)
+    public void setResampler(SensorResampler sensorResampler)
     {
-        //get file length
-        try
+        resampler = sensorResampler;
+        refreshData();
+    }
+
+    /**
+     * Sets how the records are rolled up into longer time buckets (e.g.,
+     * hourly, to train on 24 steps a day instead of 288) and prepares the
+     * csv data again.  The example size is still counted in records, so
+     * it covers that much more time; it's shortened if there aren't enough
+     * records left.  The normalizer is fit again unless it was passed in.
+     * @param sensorDownsampler the downsampler to use, or null to keep every record
+     */
+    public void setDownsampler(SensorDownsampler sensorDownsampler)
+    {
+        downsampler = sensorDownsampler;
+        refreshData();
+
+        //fewer buckets than the example size would leave no DataSet to train on
+        if (data != null && fileRecords <= numExamples())
         {
-            BufferedReader br = new BufferedReader(new FileReader(file));
+            setExampleSize(numExamples());
+        }
+    }
 
-            fileRecords = -numLinesToSkip;
+    /**
+     * Prepares the csv data again after the resampler or downsampler
+     * changed, and starts over from the first record.
+     */
+    private void refreshData()
+    {
+        if (rawData == null)
+        {
+            return;
+        }
 
-            while (br.readLine() != null)
-            {
-                fileRecords++;
-            }
+        data = prepareData();
+        fileRecords = data.rows();
+        bufferPool.clear();
+        reset();
 
-            br.close();
+        //print to console - this isn't a message to be displayed to the user
+        System.out.println("Number of fileRecords " + fileRecords);
+
+        if (fitOwnNormalizer)
+        {
+            fitPreProcessor();
         }
-        catch (FileNotFoundException e)
+        else
         {
-            //print to console - this isn't a message to be displayed to the user
-            System.out.println("Caught FileNotFoundException: could not open the data file at " + path);
+            sharedFeatures = null;
+            sharedLabels = null;
         }
-        catch (IOException e)
+    }
+
+    /**
+     * Resamples the csv data, adds any selected derived channels (see
+     * RollingFeatures), which are computed on the resampled grid, masks
+     * the records with a missing value, and then rolls the records up into
+     * buckets if a downsampler is set.
+     * @return the data to make DataSets from
+     */
+    private SensorData prepareData()
+    {
+        SensorData prepared = resampler == null ? rawData : resampler.resample(rawData);
+
+        if (RollingFeatures.anySelected(channels))
+        {
+            int cadence = resampler == null ? SensorResampler.DEFAULT_CADENCE : resampler.getCadence();
+
+            prepared = new RollingFeatures(rawData.getHeader(), cadence).extend(prepared, channels);
+        }
+
+        //empty or non-numeric fields are parsed as NaN, which must not reach the network
+        SensorData complete = prepared.maskMissing();
+
+        if (complete != prepared)
         {
             //print to console - this isn't a message to be displayed to the user
-            System.out.println("Caught IOException: could not read file at " + path);
+            System.out.println("Records with empty or non-numeric fields are masked.");
+
+            prepared = complete;
+        }
+
+        if (downsampler != null)
+        {
+            prepared = downsampler.downsample(prepared);
         }
+
+        return prepared;
+    }
+
+    /**
+     * Returns the resampler used to put the records on a time grid.
+     * @return the resampler, or null if the records are used as read
+     */
+    public SensorResampler getResampler()
+    {
+        return resampler;
+    }
+
+    /**
+     * Returns the downsampler used to roll the records up into buckets.
+     * @return the downsampler, or null if every record is kept
+     */
+    public SensorDownsampler getDownsampler()
+    {
+        return downsampler;
+    }
+
+    /**
+     * Returns the parsed column used for a feature slot (from the csv
+     * header's column map).
+     * @param slot the feature slot
+     * @return the column values, or null if the slot stays 0
+     */
+    public float[] getFeatureColumn(int slot)
+    {
+        int column = schema.getFeatureColumn(slot);
+
+        return column < 0 ? null : data.getColumn(column);
+    }
+
+    /**
+     * Returns the parsed label (observed) column.
+     * @return the label values
+     */
+    public float[] getLabelColumn()
+    {
+        return data.getColumn(schema.getLabelColumn());
+    }
+
+    /**
+     * Returns the map from csv columns to feature slots.
+     * @return the column map (null if the file couldn't be read)
+     */
+    public SensorSchema getSchema()
+    {
+        return schema;
+    }
+
+    /**
+     * Returns the number of records the DataSets are built from.
+     * @return the number of records (after resampling and downsampling)
+     */
+    public int getRecordCount()
+    {
+        return fileRecords;
+    }
+
+    /**
+     * Returns the csv data the DataSets are built from (after resampling).
+     * @return the csv data (null if the file couldn't be read)
+     */
+    public SensorData getData()
+    {
+        return data;
     }
 
     /**
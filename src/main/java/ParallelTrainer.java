@@ -0,0 +1,432 @@
+/*
+ * File:    ParallelTrainer.java
+ * Created: October 17, 2026
+ * Author:  agent
+ * Project: Irrigation Recommendation System (IRS)
+ */
+
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.optimize.api.IterationListener;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.dataset.api.iterator.DataSetIterator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * <p>
+ * The ParallelTrainer class trains a network data-parallel: each worker
+ * thread has its own copy (replica) of the network and fits a different
+ * share of the DataSets, and every few DataSets per worker the replicas'
+ * parameters (and updater state) are averaged and copied back to all of
+ * them.  After each pass the averaged parameters are copied into the
+ * original network.
+ * </p>
+ *
+ * <p>
+ * Training goes in rounds: the calling thread reads workers x frequency
+ * DataSets from the iterator, hands each worker frequency of them, waits
+ * for every worker to fit its share and then averages.  A higher
+ * averaging frequency means less time spent averaging but replicas that
+ * drift further apart before they're averaged.  A RoundListener is told
+ * after every round, e.g., so a checkpoint can be taken in the middle of
+ * a pass (see sync).  Only the first replica
+ * keeps the network's listeners, so scores are still reported once;
+ * a TrainingTelemetry listener is kept by every replica so it counts
+ * every worker's iterations, and it's given each worker's fit times and
+ * the time spent reading each round.
+ * </p>
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class ParallelTrainer
+{
+    /* Variables */
+
+    /**
+     * The network the averaged parameters are copied into.
+     */
+    private final MultiLayerNetwork model;
+
+    /**
+     * One copy of the network per worker.
+     */
+    private final MultiLayerNetwork[] replicas;
+
+    /**
+     * The number of DataSets each worker fits between averages.
+     */
+    private final int averagingFrequency;
+
+    /**
+     * Runs the workers.
+     */
+    private ExecutorService pool;
+
+    /**
+     * Records the fit and wait times, or null.
+     */
+    private TrainingTelemetry telemetry;
+
+    /**
+     * The number of DataSets fit since this trainer was created.
+     */
+    private long dataSetsFit;
+
+    /**
+     * The number of times the replicas were averaged.
+     */
+    private long averages;
+
+    /**
+     * The total time spent averaging, in nanoseconds.
+     */
+    private long averagingNanos;
+
+    /* Constructors */
+
+    /**
+     * Default constructor for the ParallelTrainer class.
+     * @param network the network to train
+     * @param workers the number of worker threads (and replicas)
+     * @param frequency the number of DataSets each worker fits between averages
+     */
+    public ParallelTrainer(MultiLayerNetwork network, int workers, int frequency)
+    {
+        if (workers <= 0)
+        {
+            //print to console - this isn't a message to be displayed to the user
+            System.out.println("\nNumber of workers provided is <= 0; number of workers is " +
+                    "being set to the number of processors.\n");
+
+            workers = Runtime.getRuntime().availableProcessors();
+        }
+
+        if (frequency <= 0)
+        {
+            //print to console - this isn't a message to be displayed to the user
+            System.out.println("\nAveraging frequency provided is <= 0; averaging frequency is " +
+                    "being set to default of 1.\n");
+
+            frequency = 1;
+        }
+
+        model = network;
+        averagingFrequency = frequency;
+        replicas = new MultiLayerNetwork[workers];
+
+        List<IterationListener> counters = new ArrayList<IterationListener>();
+
+        for (IterationListener listener : network.getListeners())
+        {
+            if (listener instanceof TrainingTelemetry)
+            {
+                counters.add(listener);
+                telemetry = (TrainingTelemetry) listener;
+            }
+        }
+
+        for (int w = 0; w < workers; w++)
+        {
+            replicas[w] = network.clone();
+            replicas[w].setListeners(w == 0 ? network.getListeners() : counters);
+        }
+    }
+
+    /* Methods */
+
+    /**
+     * Fits one pass over an iterator (the iterator isn't reset first).
+     * @param iter the DataSets to fit
+     * @return the last DataSet fit, or null if the iterator was empty
+     */
+    public DataSet fit(DataSetIterator iter)
+    {
+        return fit(iter, null);
+    }
+
+    /**
+     * Fits one pass over an iterator (the iterator isn't reset first),
+     * telling a listener after each round.
+     * @param iter the DataSets to fit
+     * @param listener told after each round, or null
+     * @return the last DataSet fit, or null if the iterator was empty
+     */
+    public DataSet fit(DataSetIterator iter, RoundListener listener)
+    {
+        if (pool == null)
+        {
+            pool = Executors.newFixedThreadPool(replicas.length);
+        }
+
+        DataSet last = null;
+
+        while (iter.hasNext())
+        {
+            //deal the next round of DataSets out to the workers in turn
+            List<List<DataSet>> shares = new ArrayList<List<DataSet>>();
+
+            for (int w = 0; w < replicas.length; w++)
+            {
+                shares.add(new ArrayList<DataSet>(averagingFrequency));
+            }
+
+            long waitStart = System.nanoTime();
+
+            for (int n = 0; n < replicas.length * averagingFrequency && iter.hasNext(); n++)
+            {
+                last = iter.next();
+                shares.get(n % replicas.length).add(last);
+            }
+
+            if (telemetry != null)
+            {
+                telemetry.recordWait(System.nanoTime() - waitStart);
+            }
+
+            List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+            int active = 0;
+
+            for (int w = 0; w < replicas.length && !shares.get(w).isEmpty(); w++)
+            {
+                results.add(pool.submit(fitTask(replicas[w], shares.get(w), telemetry)));
+                active++;
+            }
+
+            for (Future<Integer> result : results)
+            {
+                dataSetsFit += waitFor(result);
+            }
+
+            average(active);
+
+            //every DataSet read so far has been fit and averaged, so the round is a safe place to stop
+            if (listener != null)
+            {
+                listener.roundFinished(dataSetsFit);
+            }
+        }
+
+        sync();
+
+        return last;
+    }
+
+    /**
+     * Copies the averaged parameters and updater state into the original
+     * network (e.g., before it's checkpointed between rounds).
+     */
+    public void sync()
+    {
+        model.setParams(replicas[0].params());
+        copyUpdaterState(replicas[0], model);
+    }
+
+    /**
+     * Returns a task that fits a replica on its share of a round.
+     * @param replica the replica to fit
+     * @param share the DataSets to fit
+     * @param telemetry records each fit, or null
+     * @return the task; it returns the number of DataSets fit
+     */
+    private static Callable<Integer> fitTask(final MultiLayerNetwork replica, final List<DataSet> share,
+                                             final TrainingTelemetry telemetry)
+    {
+        return new Callable<Integer>()
+        {
+            public Integer call()
+            {
+                for (DataSet ds : share)
+                {
+                    long fitStart = System.nanoTime();
+
+                    replica.fit(ds);
+
+                    if (telemetry != null)
+                    {
+                        telemetry.recordFit(ds.getFeatures().size(0) * (long) ds.getFeatures().size(2),
+                                System.nanoTime() - fitStart);
+                    }
+                }
+
+                return share.size();
+            }
+        };
+    }
+
+    /**
+     * Waits for a worker to finish its share of a round.
+     * @param result the worker's result
+     * @return the number of DataSets the worker fit
+     */
+    private static int waitFor(Future<Integer> result)
+    {
+        try
+        {
+            return result.get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a worker.", e);
+        }
+        catch (ExecutionException e)
+        {
+            throw new IllegalStateException("A worker failed: " + e.getCause(), e.getCause());
+        }
+    }
+
+    /**
+     * Averages the parameters and updater state of the replicas that
+     * trained in this round and copies the averages to every replica.
+     * @param active the number of replicas (from the first) that trained
+     */
+    private void average(int active)
+    {
+        long start = System.nanoTime();
+
+        if (active > 1)
+        {
+            INDArray params = replicas[0].params().dup();
+
+            for (int w = 1; w < active; w++)
+            {
+                params.addi(replicas[w].params());
+            }
+
+            params.divi(active);
+
+            INDArray state = updaterState(replicas[0]);
+
+            if (state != null)
+            {
+                state = state.dup();
+
+                for (int w = 1; w < active; w++)
+                {
+                    state.addi(updaterState(replicas[w]));
+                }
+
+                state.divi(active);
+            }
+
+            for (MultiLayerNetwork replica : replicas)
+            {
+                replica.setParams(params);
+
+                if (state != null && updaterState(replica) != null)
+                {
+                    updaterState(replica).assign(state);
+                }
+            }
+        }
+        else
+        {
+            //only the first replica trained; the others just catch up to it
+            for (int w = 1; w < replicas.length; w++)
+            {
+                replicas[w].setParams(replicas[0].params());
+                copyUpdaterState(replicas[0], replicas[w]);
+            }
+        }
+
+        averages++;
+        averagingNanos += System.nanoTime() - start;
+    }
+
+    /**
+     * Copies one network's updater state into another's, if both have one.
+     * @param from the network to copy from
+     * @param to the network to copy to
+     */
+    private static void copyUpdaterState(MultiLayerNetwork from, MultiLayerNetwork to)
+    {
+        INDArray source = updaterState(from);
+        INDArray target = updaterState(to);
+
+        if (source != null && target != null)
+        {
+            target.assign(source);
+        }
+    }
+
+    /**
+     * Returns a network's updater state (e.g., the RMSProp running
+     * averages), which is a view that can be written in place.
+     * @param network the network
+     * @return the updater state, or null if the network has none yet
+     */
+    private static INDArray updaterState(MultiLayerNetwork network)
+    {
+        return network.getUpdater() == null ? null : network.getUpdater().getStateViewArray();
+    }
+
+    /**
+     * Stops the worker threads.
+     */
+    public void shutdown()
+    {
+        if (pool != null)
+        {
+            pool.shutdown();
+            pool = null;
+        }
+    }
+
+    /**
+     * Returns the number of worker threads.
+     * @return the number of workers
+     */
+    public int getWorkers()
+    {
+        return replicas.length;
+    }
+
+    /**
+     * Returns the number of DataSets each worker fits between averages.
+     * @return the averaging frequency
+     */
+    public int getAveragingFrequency()
+    {
+        return averagingFrequency;
+    }
+
+    /**
+     * Returns the number of DataSets fit so far.
+     * @return the number of DataSets fit
+     */
+    public long getDataSetsFit()
+    {
+        return dataSetsFit;
+    }
+
+    /**
+     * Returns a one line summary of the training so far.
+     * @return the training statistics
+     */
+    public String stats()
+    {
+        return String.format("Parallel training (%d workers, averaging every %d): %d DataSets, %d averages " +
+                "taking %.1f ms", replicas.length, averagingFrequency, dataSetsFit, averages, averagingNanos / 1e6);
+    }
+
+    /* Public Classes */
+
+    /**
+     * Told when the workers finish a round and the replicas are averaged.
+     */
+    public interface RoundListener
+    {
+        /**
+         * Called on the training thread after each round.
+         * @param dataSetsFit the number of DataSets fit since the trainer was created
+         */
+        void roundFinished(long dataSetsFit);
+    }
+}
@@ -0,0 +1,414 @@
+/*
+ * File:    PrefetchingIterator.java
+ * Created: October 17, 2026
+ * Author:  agent
+ * Project: Irrigation Recommendation System (IRS)
+ */
+
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.dataset.api.DataSetPreProcessor;
+import org.nd4j.linalg.dataset.api.iterator.DataSetIterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * The PrefetchingIterator class wraps another DataSetIterator and reads
+ * (and normalizes) its next DataSets on a background thread, holding up
+ * to a fixed number of them in a bounded queue.  This lets the RNN train
+ * on one DataSet while the next ones are being read.  It also counts how
+ * often the consumer found the queue empty and had to wait.
+ * </p>
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class PrefetchingIterator implements DataSetIterator
+{
+    /* Variables */
+
+    /**
+     * Placed on the queue after the last DataSet of a pass.
+     */
+    private static final DataSet END = new DataSet();
+
+    /**
+     * The iterator DataSets are read from (only used by the worker thread
+     * while a pass is running).
+     */
+    private final DataSetIterator source;
+
+    /**
+     * The maximum number of DataSets read ahead.
+     */
+    private final int queueDepth;
+
+    /**
+     * The DataSets read ahead by the worker thread.
+     */
+    private BlockingQueue<DataSet> queue;
+
+    /**
+     * The thread reading DataSets from the source.
+     */
+    private Thread worker;
+
+    /**
+     * The next DataSet to hand out (already taken off the queue).
+     */
+    private DataSet nextDataSet;
+
+    /**
+     * An exception thrown by the source on the worker thread.
+     */
+    private volatile RuntimeException failure;
+
+    /**
+     * The number of DataSets handed out.
+     */
+    private final AtomicLong taken = new AtomicLong();
+
+    /**
+     * The number of times the queue was empty when a DataSet was needed.
+     */
+    private final AtomicLong emptyWaits = new AtomicLong();
+
+    /**
+     * The total time spent waiting on an empty queue (nanoseconds).
+     */
+    private final AtomicLong waitNanos = new AtomicLong();
+
+    /* Constructors */
+
+    /**
+     * Default constructor for the PrefetchingIterator class.
+     * @param iterator the iterator to read DataSets from
+     * @param depth the number of DataSets to read ahead
+     */
+    public PrefetchingIterator(DataSetIterator iterator, int depth)
+    {
+        if (depth <= 0)
+        {
+            //print to console - this isn't a message to be displayed to the user
+            System.out.println("\nPrefetch queue depth provided is <= 0; queue depth is " +
+                    "being set to default size of 2.\n");
+
+            depth = 2;
+        }
+
+        source = iterator;
+        queueDepth = depth;
+    }
+
+    /* Methods */
+
+    /**
+     * Starts the worker thread for a new pass over the source if one
+     * isn't running.
+     */
+    private void start()
+    {
+        if (worker != null)
+        {
+            return;
+        }
+
+        queue = new ArrayBlockingQueue<DataSet>(queueDepth);
+        failure = null;
+
+        final BlockingQueue<DataSet> out = queue;
+
+        worker = new Thread(new Runnable()
+        {
+            public void run()
+            {
+                try
+                {
+                    while (source.hasNext())
+                    {
+                        out.put(source.next());
+                    }
+                }
+                catch (InterruptedException e)
+                {
+                    return;
+                }
+                catch (RuntimeException e)
+                {
+                    failure = e;
+                }
+
+                try
+                {
+                    out.put(END);
+                }
+                catch (InterruptedException e)
+                {
+                    //stopped by reset/shutdown
+                }
+            }
+        }, "IRS-prefetch");
+
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Stops the worker thread and discards anything it read ahead.
+     */
+    public void shutdown()
+    {
+        if (worker != null)
+        {
+            worker.interrupt();
+
+            try
+            {
+                worker.join();
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+
+            worker = null;
+        }
+
+        queue = null;
+        nextDataSet = null;
+    }
+
+    /**
+     * Determines if another DataSet is available, waiting for the worker
+     * thread if the queue is empty.
+     * @return if there's another DataSet in this pass
+     */
+    public boolean hasNext()
+    {
+        start();
+
+        if (nextDataSet == null)
+        {
+            nextDataSet = queue.poll();
+
+            if (nextDataSet == null)
+            {
+                emptyWaits.incrementAndGet();
+                long begin = System.nanoTime();
+
+                try
+                {
+                    nextDataSet = queue.take();
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for the next DataSet.", e);
+                }
+
+                waitNanos.addAndGet(System.nanoTime() - begin);
+            }
+        }
+
+        if (nextDataSet == END && failure != null)
+        {
+            throw failure;
+        }
+
+        return nextDataSet != END;
+    }
+
+    /**
+     * Returns the next DataSet read by the worker thread.
+     * @return the next DataSet
+     */
+    public DataSet next()
+    {
+        if (!hasNext())
+        {
+            throw new NoSuchElementException();
+        }
+
+        DataSet ds = nextDataSet;
+        nextDataSet = null;
+        taken.incrementAndGet();
+
+        return ds;
+    }
+
+    /**
+     * Not supported; DataSets are read ahead with the source's batch size.
+     * @param num the number of minibatches
+     * @return nothing
+     */
+    public DataSet next(int num)
+    {
+        throw new UnsupportedOperationException("Functionality not implemented");
+    }
+
+    /**
+     * Stops the current pass and resets the source; the next call to
+     * hasNext starts reading ahead again.
+     */
+    public void reset()
+    {
+        shutdown();
+        source.reset();
+    }
+
+    /**
+     * Returns the number of DataSets handed out.
+     * @return the number of DataSets handed out
+     */
+    public long getTakenCount()
+    {
+        return taken.get();
+    }
+
+    /**
+     * Returns how many times the queue was empty when a DataSet was needed.
+     * @return the number of waits on an empty queue
+     */
+    public long getEmptyQueueCount()
+    {
+        return emptyWaits.get();
+    }
+
+    /**
+     * Returns the total time spent waiting on an empty queue.
+     * @return the wait time in nanoseconds
+     */
+    public long getWaitNanos()
+    {
+        return waitNanos.get();
+    }
+
+    /**
+     * Returns the queue depth.
+     * @return the number of DataSets read ahead
+     */
+    public int getQueueDepth()
+    {
+        return queueDepth;
+    }
+
+    /**
+     * Returns a one line summary of the queue statistics.
+     * @return the queue statistics
+     */
+    public String stats()
+    {
+        return String.format("Prefetch queue (depth %d) was empty %d of %d times; waited %.1f ms",
+                queueDepth, getEmptyQueueCount(), getTakenCount(), getWaitNanos() / 1e6);
+    }
+
+    /**
+     * Returns the source's total number of DataSets.
+     * @return the number of DataSets in a pass
+     */
+    public int totalExamples()
+    {
+        return source.totalExamples();
+    }
+
+    /**
+     * Returns the source's number of input columns.
+     * @return the number of input columns
+     */
+    public int inputColumns()
+    {
+        return source.inputColumns();
+    }
+
+    /**
+     * Returns the source's number of output columns.
+     * @return the number of output columns
+     */
+    public int totalOutcomes()
+    {
+        return source.totalOutcomes();
+    }
+
+    /**
+     * Returns whether the source can be reset.
+     * @return if the source can be reset
+     */
+    public boolean resetSupported()
+    {
+        return source.resetSupported();
+    }
+
+    /**
+     * Returns false since this iterator already reads ahead.
+     * @return false
+     */
+    public boolean asyncSupported()
+    {
+        return false;
+    }
+
+    /**
+     * Returns the source's minibatch size.
+     * @return the minibatch size
+     */
+    public int batch()
+    {
+        return source.batch();
+    }
+
+    /**
+     * Returns the source's cursor; this runs ahead of the DataSets handed out.
+     * @return the source's cursor
+     */
+    public int cursor()
+    {
+        return source.cursor();
+    }
+
+    /**
+     * Returns the source's example length.
+     * @return the number of examples
+     */
+    public int numExamples()
+    {
+        return source.numExamples();
+    }
+
+    /**
+     * Sets the source's preProcessor.
+     * @param preProcessor the preprocessor to use
+     */
+    public void setPreProcessor(DataSetPreProcessor preProcessor)
+    {
+        source.setPreProcessor(preProcessor);
+    }
+
+    /**
+     * Returns the source's preProcessor.
+     * @return the preProcessor in use
+     */
+    public DataSetPreProcessor getPreProcessor()
+    {
+        return source.getPreProcessor();
+    }
+
+    /**
+     * Returns the source's labels.
+     * @return a list of labels
+     */
+    public List<String> getLabels()
+    {
+        return source.getLabels();
+    }
+
+    /**
+     * Removes the iterator; not currently supported.
+     */
+    public void remove()
+    {
+        throw new UnsupportedOperationException("Functionality not implemented");
+    }
+}
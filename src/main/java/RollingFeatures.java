@@ -0,0 +1,410 @@
+/*
+ * File:    RollingFeatures.java
+ * Created: October 17, 2026
+ * Author:  agent
+ * Project: Irrigation Recommendation System (IRS)
+ */
+
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * <p>
+ * The RollingFeatures class derives rolling aggregates from the sensor
+ * columns in one pass over the records: rain over the last 24 hours, mean
+ * ET over the last 24 and 72 hours, and the change in VWC over the last
+ * hour at each sensor depth.  Each aggregate keeps a fixed-size primitive
+ * ring buffer, so every record costs O(1) and nothing is allocated per
+ * record.  The derived columns are added to the SensorData after the
+ * csv's own columns and are selected by name like any other channel
+ * (see SensorSchema); they're only computed when selected.
+ * </p>
+ *
+ * <p>
+ * Window lengths are counted in records, so the records should be on a
+ * fixed time grid (see SensorResampler).  A NaN reading counts as 0 in
+ * the rain sum and is left out of the ET means.
+ * </p>
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class RollingFeatures
+{
+    /* Variables */
+
+    /**
+     * Rain over the last 24 hours.
+     */
+    public static final String RAIN_24H = "rain24h";
+
+    /**
+     * Mean ET over the last 24 hours.
+     */
+    public static final String ET_24H = "et24h";
+
+    /**
+     * Mean ET over the last 72 hours.
+     */
+    public static final String ET_72H = "et72h";
+
+    /**
+     * The change in VWC over the last hour, per port.
+     */
+    public static final String VWC_DELTA = "vwcdelta";
+
+    /**
+     * Every derived channel, in slot order.
+     */
+    public static final String[] CHANNELS = {RAIN_24H, ET_24H, ET_72H, VWC_DELTA};
+
+    /**
+     * The most time a derived value looks back over (the 72 hour ET mean).
+     */
+    public static final int WARM_UP_MINUTES = 72 * 60;
+
+    /**
+     * Marks a derived column title in the header.
+     */
+    public static final String SUFFIX = " (derived)";
+
+    /**
+     * The csv column of each source (rain, ET, VWC per port).
+     */
+    private SensorSchema sources;
+
+    /**
+     * The column each derived value is written to (-1 if not selected);
+     * indexed rain24h, et24h, et72h.
+     */
+    private int[] outputColumns;
+
+    /**
+     * The column each port's VWC delta is written to (-1 if not selected).
+     */
+    private int[] deltaColumns;
+
+    /**
+     * Rain over the last 24 hours.
+     */
+    private RingSum rain24h;
+
+    /**
+     * ET over the last 24 hours.
+     */
+    private RingSum et24h;
+
+    /**
+     * ET over the last 72 hours.
+     */
+    private RingSum et72h;
+
+    /**
+     * The last hour of VWC readings for each port.
+     */
+    private RingSum[] vwcHour;
+
+    /* Constructors */
+
+    /**
+     * Default constructor for the RollingFeatures class.
+     * @param header the csv's column titles (without derived columns)
+     * @param cadenceMinutes the minutes between records
+     */
+    public RollingFeatures(String[] header, int cadenceMinutes)
+    {
+        int perHour = Math.max(1, 60 / Math.max(1, cadenceMinutes));
+
+        sources = SensorSchema.fromHeader(header);
+        rain24h = new RingSum(24 * perHour);
+        et24h = new RingSum(24 * perHour);
+        et72h = new RingSum(WARM_UP_MINUTES / 60 * perHour);
+        vwcHour = new RingSum[sources.getPortCount()];
+
+        for (int p = 0; p < vwcHour.length; p++)
+        {
+            //one extra slot holds the reading from an hour ago
+            vwcHour[p] = new RingSum(perHour + 1);
+        }
+    }
+
+    /* Methods */
+
+    /**
+     * Returns whether any derived channel is selected.
+     * @param selected the selected channels, or null
+     * @return if a derived channel is selected
+     */
+    public static boolean anySelected(Set<String> selected)
+    {
+        if (selected == null)
+        {
+            return false;
+        }
+
+        for (String channel : CHANNELS)
+        {
+            if (selected.contains(channel))
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns the title of a derived column.
+     * @param channel the derived channel
+     * @param port the port number (for VWC deltas)
+     * @return the column title
+     */
+    public static String title(String channel, int port)
+    {
+        return (VWC_DELTA.equals(channel) ? "Port " + port + " " : "") + channel + SUFFIX;
+    }
+
+    /**
+     * Adds the selected derived columns to the data and computes them for
+     * every record.  The columns of the data are shared, not copied.
+     * @param data the csv data (on a fixed time grid)
+     * @param selected the selected channels
+     * @return the data with the derived columns after the csv's own columns
+     */
+    public SensorData extend(SensorData data, Set<String> selected)
+    {
+        String[] header = data.getHeader();
+        int[] ports = sources.getPorts();
+        int capacity = data.getColumn(sources.getLabelColumn()).length;
+
+        String[] titles = Arrays.copyOf(header, header.length + 3 + ports.length);
+        float[][] columns = new float[titles.length][];
+        int next = header.length;
+
+        for (int c = 0; c < header.length; c++)
+        {
+            columns[c] = data.getColumn(c);
+        }
+
+        outputColumns = new int[]{-1, -1, -1};
+        deltaColumns = new int[ports.length];
+        Arrays.fill(deltaColumns, -1);
+
+        for (int i = 0; i < 3; i++)
+        {
+            if (selected.contains(CHANNELS[i]))
+            {
+                outputColumns[i] = next;
+                titles[next] = title(CHANNELS[i], 0);
+                columns[next++] = new float[capacity];
+            }
+        }
+
+        for (int p = 0; p < ports.length && selected.contains(VWC_DELTA); p++)
+        {
+            deltaColumns[p] = next;
+            titles[next] = title(VWC_DELTA, ports[p]);
+            columns[next++] = new float[capacity];
+        }
+
+        SensorData extended = new SensorData(Arrays.copyOf(titles, next), data.getTimes(),
+                Arrays.copyOf(columns, next), data.getMask(), data.rows());
+
+        compute(extended);
+
+        return extended;
+    }
+
+    /**
+     * Computes the derived columns for every record (O(1) per record).
+     * @param extended the data with the derived columns added
+     */
+    private void compute(SensorData extended)
+    {
+        float[] rain = column(extended, sources.getFeatureColumn(rainSlot()));
+        float[] et = column(extended, sources.getFeatureColumn(rainSlot() + 2));
+
+        for (int r = 0; r < extended.rows(); r++)
+        {
+            float rainNow = rain == null ? Float.NaN : rain[r];
+            float etNow = et == null ? Float.NaN : et[r];
+
+            write(extended, outputColumns[0], r, (float) rain24h.push(rainNow));
+
+            et24h.push(etNow);
+            et72h.push(etNow);
+            write(extended, outputColumns[1], r, et24h.mean());
+            write(extended, outputColumns[2], r, et72h.mean());
+
+            for (int p = 0; p < vwcHour.length; p++)
+            {
+                float[] vwc = column(extended, sources.getFeatureColumn(1 + 3 * p));
+                float vwcNow = vwc == null ? Float.NaN : vwc[r];
+
+                vwcHour[p].push(vwcNow);
+                write(extended, deltaColumns[p], r, vwcHour[p].change());
+            }
+        }
+    }
+
+    /**
+     * Returns the feature slot of the rain column in the source schema
+     * (the weather slots follow the three slots of each port).
+     * @return the rain slot
+     */
+    private int rainSlot()
+    {
+        return 1 + 3 * sources.getPortCount();
+    }
+
+    /**
+     * Returns a column of the data, or null for a missing column.
+     * @param data the data
+     * @param col the csv column, or -1
+     * @return the column values, or null
+     */
+    private static float[] column(SensorData data, int col)
+    {
+        return col < 0 ? null : data.getColumn(col);
+    }
+
+    /**
+     * Writes a derived value if its column is selected.
+     * @param data the extended data
+     * @param col the derived column, or -1
+     * @param row the record
+     * @param value the derived value
+     */
+    private static void write(SensorData data, int col, int row, float value)
+    {
+        if (col >= 0)
+        {
+            data.getColumn(col)[row] = value;
+        }
+    }
+
+    /* Private Classes */
+
+    /**
+     * A running sum over the last n readings, kept in a primitive ring
+     * buffer.
+     */
+    private static class RingSum
+    {
+        /**
+         * The last n readings (NaN for a missing reading).
+         */
+        private final float[] ring;
+
+        /**
+         * Where the next reading goes.
+         */
+        private int head;
+
+        /**
+         * The number of readings pushed, up to the ring size.
+         */
+        private int filled;
+
+        /**
+         * The sum of the valid readings in the ring.
+         */
+        private double sum;
+
+        /**
+         * The number of valid readings in the ring.
+         */
+        private int valid;
+
+        /**
+         * Default constructor for the RingSum class.
+         * @param size the number of readings to keep
+         */
+        private RingSum(int size)
+        {
+            ring = new float[size];
+        }
+
+        /**
+         * Adds a reading, dropping the oldest one if the ring is full.
+         * @param value the reading (NaN if missing)
+         * @return the sum of the valid readings in the ring
+         */
+        private double push(float value)
+        {
+            if (filled == ring.length)
+            {
+                float oldest = ring[head];
+
+                if (!Float.isNaN(oldest))
+                {
+                    sum -= oldest;
+                    valid--;
+                }
+            }
+            else
+            {
+                filled++;
+            }
+
+            ring[head] = value;
+            head = head + 1 == ring.length ? 0 : head + 1;
+
+            if (!Float.isNaN(value))
+            {
+                sum += value;
+                valid++;
+            }
+
+            //start again from the ring once per lap so rounding doesn't build up
+            if (head == 0)
+            {
+                resum();
+            }
+
+            return sum;
+        }
+
+        /**
+         * Recomputes the sum from the ring.
+         */
+        private void resum()
+        {
+            sum = 0;
+
+            for (int i = 0; i < filled; i++)
+            {
+                if (!Float.isNaN(ring[i]))
+                {
+                    sum += ring[i];
+                }
+            }
+        }
+
+        /**
+         * Returns the mean of the valid readings in the ring.
+         * @return the mean, or NaN if there are none
+         */
+        private float mean()
+        {
+            return valid == 0 ? Float.NaN : (float) (sum / valid);
+        }
+
+        /**
+         * Returns the newest reading minus the oldest one in the ring.
+         * @return the change across the ring (0 until the ring has two readings)
+         */
+        private float change()
+        {
+            if (filled < 2)
+            {
+                return 0;
+            }
+
+            int newest = head == 0 ? ring.length - 1 : head - 1;
+            int oldest = filled == ring.length ? head : 0;
+
+            return ring[newest] - ring[oldest];
+        }
+    }
+}
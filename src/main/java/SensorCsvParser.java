@@ -0,0 +1,950 @@
+/*
+ * File:    SensorCsvParser.java
+ * Created: October 17, 2026
+ * Author:  agent
+ * Project: Irrigation Recommendation System (IRS)
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * <p>
+ * The SensorCsvParser class reads a sensor csv file into a SensorData
+ * object.  The file is memory-mapped and numbers are decoded straight
+ * from the bytes into primitive float columns, so no objects are created
+ * per row or per cell.  Quotes around a field are ignored (a quoted
+ * field can't contain a comma); a field that isn't a number (or is
+ * empty) is stored as NaN (see SensorData.maskMissing).  The first
+ * column (time/date, e.g., 5/26/17 13:20 or 5/26/2017 1:20 PM) is
+ * decoded into epoch minutes, and only the columns named in the
+ * header's column map are decoded.
+ * </p>
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class SensorCsvParser
+{
+    /* Variables */
+
+    /**
+     * The largest region of the file that is mapped at one time.
+     */
+    private static final long MAX_REGION = 1L << 30;
+
+    /**
+     * Exact powers of ten used when decoding numbers.
+     */
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    /**
+     * The smallest byte range handed to a parsing thread.
+     */
+    private static final int MIN_CHUNK = 1 << 22;
+
+    /**
+     * Position of the next byte to decode in the current buffer.
+     */
+    private int pos;
+
+    /**
+     * The digit groups of the time/date being decoded.
+     */
+    private final int[] timeFields = new int[5];
+
+    /**
+     * The channels to decode (see SensorSchema), or null for every channel.
+     */
+    private Set<String> channels;
+
+    /* Constructors */
+
+    /**
+     * Default constructor for the SensorCsvParser class; decodes every
+     * channel in the header's column map.
+     */
+    public SensorCsvParser()
+    {
+        this(null);
+    }
+
+    /**
+     * Constructor for the SensorCsvParser class that only decodes some
+     * channels; the fields of the other columns are skipped.
+     * @param selected the channels to decode, or null for every channel
+     */
+    public SensorCsvParser(Set<String> selected)
+    {
+        SensorSchema.checkChannels(selected);
+        channels = selected;
+    }
+
+    /* Methods */
+
+    /**
+     * Parses a sensor csv file using every available core.  The first line
+     * is read as the header and the first column (time/date) is read as
+     * the record times.
+     * @param file the csv file to parse
+     * @return the parsed file
+     * @throws IOException if the file can't be read
+     */
+    public static SensorData parse(File file) throws IOException
+    {
+        return parse(file, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Parses a sensor csv file with a given number of threads.
+     * @param file the csv file to parse
+     * @param threads the number of threads to parse with
+     * @return the parsed file
+     * @throws IOException if the file can't be read
+     */
+    public static SensorData parse(File file, int threads) throws IOException
+    {
+        return parse(file, threads, null);
+    }
+
+    /**
+     * Parses only some channels of a sensor csv file.
+     * @param file the csv file to parse
+     * @param threads the number of threads to parse with
+     * @param selected the channels to decode, or null for every channel
+     * @return the parsed file (columns that weren't decoded are null)
+     * @throws IOException if the file can't be read
+     */
+    public static SensorData parse(File file, int threads, Set<String> selected) throws IOException
+    {
+        return new SensorCsvParser(selected).parseFile(file, threads);
+    }
+
+    /**
+     * Parses a sensor csv file by mapping it one region at a time.  Each
+     * region is split into byte ranges that start on a line boundary; the
+     * rows in each range are counted in parallel, which gives every range
+     * its first row, and then the ranges are decoded in parallel straight
+     * into their slice of the columns, so the rows stay in file order.
+     * @param file the csv file to parse
+     * @param threads the number of threads to parse with
+     * @return the parsed file
+     * @throws IOException if the file can't be read
+     */
+    public SensorData parseFile(File file, int threads) throws IOException
+    {
+        return parseFile(file, Long.MAX_VALUE, threads);
+    }
+
+    /**
+     * Parses the first bytes of a sensor csv file (e.g., only the complete
+     * lines of a file that is still being written).
+     * @param file the csv file to parse
+     * @param limit the number of bytes to parse (capped at the file length)
+     * @param threads the number of threads to parse with
+     * @return the parsed bytes
+     * @throws IOException if the file can't be read
+     */
+    public SensorData parseFile(File file, long limit, int threads) throws IOException
+    {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+
+        try
+        {
+            FileChannel channel = raf.getChannel();
+            long size = Math.min(limit, channel.size());
+
+            ByteBuffer first = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, MAX_REGION));
+            int headerEnd = lineEnd(first, 0, first.limit());
+            String[] header = parseHeader(first, 0, headerEnd);
+            long start = Math.min(size, (long) headerEnd + 1);
+
+            List<Chunk> chunks = new ArrayList<Chunk>();
+
+            while (start < size)
+            {
+                ByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(size - start, MAX_REGION));
+                int end = regionEnd(region, start + region.limit() == size);
+
+                split(region, 0, end, threads, chunks);
+                start += end;
+            }
+
+            return decode(header, chunks, threads);
+        }
+        finally
+        {
+            raf.close();
+        }
+    }
+
+    /**
+     * Parses sensor csv contents that are already in memory (e.g., a csv
+     * read out of a zip archive).
+     * @param buf the csv contents, from position 0 to the limit
+     * @param threads the number of threads to parse with
+     * @return the parsed contents
+     * @throws IOException if parsing fails
+     */
+    public static SensorData parse(ByteBuffer buf, int threads) throws IOException
+    {
+        return parse(buf, threads, null);
+    }
+
+    /**
+     * Parses only some channels of sensor csv contents that are already in
+     * memory.
+     * @param buf the csv contents, from position 0 to the limit
+     * @param threads the number of threads to parse with
+     * @param selected the channels to decode, or null for every channel
+     * @return the parsed contents (columns that weren't decoded are null)
+     * @throws IOException if parsing fails
+     */
+    public static SensorData parse(ByteBuffer buf, int threads, Set<String> selected) throws IOException
+    {
+        int headerEnd = lineEnd(buf, 0, buf.limit());
+        String[] header = parseHeader(buf, 0, headerEnd);
+
+        List<Chunk> chunks = new ArrayList<Chunk>();
+        split(buf, Math.min(buf.limit(), headerEnd + 1), buf.limit(), threads, chunks);
+
+        return new SensorCsvParser(selected).decode(header, chunks, threads);
+    }
+
+    /**
+     * Counts the rows in each byte range in parallel, which gives every range
+     * its first row, and then decodes the ranges in parallel straight into
+     * their slice of the columns.
+     * @param header the column titles
+     * @param chunks the byte ranges, in file order
+     * @param threads the number of threads to parse with
+     * @return the parsed data
+     * @throws IOException if parsing fails
+     */
+    private SensorData decode(String[] header, List<Chunk> chunks, int threads) throws IOException
+    {
+        ExecutorService pool = null;
+
+        try
+        {
+            if (threads > 1 && chunks.size() > 1)
+            {
+                pool = Executors.newFixedThreadPool(Math.min(threads, chunks.size()), new ThreadFactory()
+                {
+                    public Thread newThread(Runnable r)
+                    {
+                        Thread t = new Thread(r, "IRS-parser");
+                        t.setDaemon(true);
+                        return t;
+                    }
+                });
+            }
+
+            //first pass counts rows so the columns can be allocated exactly once
+            List<Callable<Integer>> counts = new ArrayList<Callable<Integer>>();
+
+            for (final Chunk chunk : chunks)
+            {
+                counts.add(new Callable<Integer>()
+                {
+                    public Integer call()
+                    {
+                        chunk.rows = countRows(chunk.buf, chunk.from, chunk.to);
+                        return chunk.rows;
+                    }
+                });
+            }
+
+            run(pool, counts);
+
+            int rows = 0;
+
+            for (Chunk chunk : chunks)
+            {
+                chunk.firstRow = rows;
+                rows += chunk.rows;
+            }
+
+            final float[][] columns = allocateColumns(header, rows, channels);
+            final long[] times = new long[rows];
+
+            //second pass decodes each range into its own slice of the columns
+            List<Callable<Integer>> decodes = new ArrayList<Callable<Integer>>();
+
+            for (final Chunk chunk : chunks)
+            {
+                decodes.add(new Callable<Integer>()
+                {
+                    public Integer call()
+                    {
+                        return new SensorCsvParser().parseRows(chunk.buf, chunk.from, chunk.to, times, columns, chunk.firstRow);
+                    }
+                });
+            }
+
+            run(pool, decodes);
+
+            return new SensorData(header, times, columns, null, rows);
+        }
+        finally
+        {
+            if (pool != null)
+            {
+                pool.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Splits the complete lines of a region into byte ranges of at least
+     * MIN_CHUNK bytes, each starting at the beginning of a line.
+     * @param region the region
+     * @param start the first byte of the first line
+     * @param end the end of the complete lines (exclusive)
+     * @param threads the number of threads that will parse the ranges
+     * @param chunks the list the ranges are added to
+     */
+    private static void split(ByteBuffer region, int start, int end, int threads, List<Chunk> chunks)
+    {
+        int pieces = Math.max(1, Math.min(threads, (end - start) / MIN_CHUNK));
+        int from = start;
+
+        for (int i = 1; i <= pieces && from < end; i++)
+        {
+            int to = i == pieces ? end : Math.min(end, lineEnd(region, (int) (start + (long) (end - start) * i / pieces), end) + 1);
+
+            if (to > from)
+            {
+                chunks.add(new Chunk(region.duplicate(), from, to));
+                from = to;
+            }
+        }
+    }
+
+    /**
+     * Runs the tasks on the pool (or on this thread if there's no pool) and
+     * waits for all of them to finish.
+     * @param pool the thread pool, or null
+     * @param tasks the tasks to run
+     * @throws IOException if a task failed
+     */
+    private static void run(ExecutorService pool, List<Callable<Integer>> tasks) throws IOException
+    {
+        try
+        {
+            if (pool == null)
+            {
+                for (Callable<Integer> task : tasks)
+                {
+                    task.call();
+                }
+            }
+            else
+            {
+                for (Future<Integer> result : pool.invokeAll(tasks))
+                {
+                    result.get();
+                }
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while parsing.");
+        }
+        catch (ExecutionException e)
+        {
+            throw new IOException("Error while parsing: " + e.getCause());
+        }
+        catch (Exception e)
+        {
+            throw new IOException("Error while parsing: " + e);
+        }
+    }
+
+    /**
+     * Allocates a float array for every csv column in the header's column
+     * map (see SensorSchema); the other columns are skipped when parsing.
+     * @param header the column titles
+     * @param rows the number of rows in each column
+     * @param selected the channels in the column map, or null for every channel
+     * @return the allocated columns
+     */
+    public static float[][] allocateColumns(String[] header, int rows, Set<String> selected)
+    {
+        boolean[] used = SensorSchema.fromHeader(header, selected).usedColumns();
+        float[][] columns = new float[header.length][];
+
+        for (int c = 1; c < header.length; c++)
+        {
+            if (used[c])
+            {
+                columns[c] = new float[rows];
+            }
+        }
+
+        return columns;
+    }
+
+    /**
+     * Splits the header line into column titles.
+     * @param buf the buffer containing the header
+     * @param from the first byte of the header
+     * @param to the end of the header line (exclusive)
+     * @return the column titles
+     */
+    public static String[] parseHeader(ByteBuffer buf, int from, int to)
+    {
+        byte[] bytes = new byte[to - from];
+
+        for (int i = 0; i < bytes.length; i++)
+        {
+            bytes[i] = buf.get(from + i);
+        }
+
+        String line = new String(bytes, Charset.forName("UTF-8")).trim();
+
+        String[] titles = line.split(",", -1);
+
+        for (int i = 0; i < titles.length; i++)
+        {
+            titles[i] = titles[i].trim();
+
+            if (titles[i].length() > 1 && titles[i].startsWith("\"") && titles[i].endsWith("\""))
+            {
+                titles[i] = titles[i].substring(1, titles[i].length() - 1).trim();
+            }
+        }
+
+        return titles;
+    }
+
+    /**
+     * Returns the index of the newline ending the line that starts at from,
+     * or to if the line isn't terminated.
+     * @param buf the buffer to search
+     * @param from the first byte of the line
+     * @param to the end of the searchable bytes (exclusive)
+     * @return the index of the newline (or to)
+     */
+    public static int lineEnd(ByteBuffer buf, int from, int to)
+    {
+        int i = from;
+
+        while (i < to && buf.get(i) != '\n')
+        {
+            i++;
+        }
+
+        return i;
+    }
+
+    /**
+     * Returns how many bytes of a mapped region hold complete lines.
+     * @param region the mapped region
+     * @param last whether the region ends at the end of the file
+     * @return the number of bytes up to and including the last newline
+     */
+    private static int regionEnd(ByteBuffer region, boolean last)
+    {
+        int end = region.limit();
+
+        if (last)
+        {
+            return end;
+        }
+
+        while (end > 0 && region.get(end - 1) != '\n')
+        {
+            end--;
+        }
+
+        if (end == 0)
+        {
+            throw new IllegalStateException("Line longer than " + MAX_REGION + " bytes.");
+        }
+
+        return end;
+    }
+
+    /**
+     * Counts the non-blank lines in a range of the buffer.
+     * @param buf the buffer to count
+     * @param from the first byte to count
+     * @param to the end of the range (exclusive)
+     * @return the number of rows in the range
+     */
+    public static int countRows(ByteBuffer buf, int from, int to)
+    {
+        int rows = 0;
+        boolean hasData = false;
+
+        for (int i = from; i < to; i++)
+        {
+            byte b = buf.get(i);
+
+            if (b == '\n')
+            {
+                if (hasData)
+                {
+                    rows++;
+                }
+
+                hasData = false;
+            }
+            else if (b != '\r')
+            {
+                hasData = true;
+            }
+        }
+
+        return hasData ? rows + 1 : rows;
+    }
+
+    /**
+     * Decodes the rows in a range of the buffer into the columns.
+     * @param buf the buffer to decode
+     * @param from the first byte of the first row
+     * @param to the end of the range (exclusive)
+     * @param times the record times to write the first column to (null to skip it)
+     * @param columns the columns to write to (null columns are skipped)
+     * @param firstRow the row index to write the first decoded row to
+     * @return the number of rows decoded
+     */
+    public int parseRows(ByteBuffer buf, int from, int to, long[] times, float[][] columns, int firstRow)
+    {
+        int row = firstRow;
+        pos = from;
+
+        while (pos < to)
+        {
+            byte b = buf.get(pos);
+
+            //skip blank lines
+            if (b == '\n' || b == '\r')
+            {
+                pos++;
+                continue;
+            }
+
+            int col = 0;
+
+            while (true)
+            {
+                if (col == 0 && times != null)
+                {
+                    times[row] = decodeTime(buf, to);
+                }
+                else if (col < columns.length && columns[col] != null)
+                {
+                    columns[col][row] = decodeField(buf, to);
+                }
+                else
+                {
+                    skipField(buf, to);
+                }
+
+                col++;
+
+                if (pos >= to || buf.get(pos) != ',')
+                {
+                    break;
+                }
+
+                pos++;
+            }
+
+            //fill any columns missing from a short row
+            for (int c = col; c < columns.length; c++)
+            {
+                if (columns[c] != null)
+                {
+                    columns[c][row] = Float.NaN;
+                }
+            }
+
+            //move past the end of the line (including anything after a bad field)
+            while (pos < to && buf.get(pos) != '\n')
+            {
+                pos++;
+            }
+
+            pos++;
+            row++;
+        }
+
+        return row - firstRow;
+    }
+
+    /**
+     * Moves past a field without decoding it.
+     * @param buf the buffer being decoded
+     * @param to the end of the range (exclusive)
+     */
+    private void skipField(ByteBuffer buf, int to)
+    {
+        while (pos < to)
+        {
+            byte b = buf.get(pos);
+
+            if (b == ',' || b == '\n' || b == '\r')
+            {
+                return;
+            }
+
+            pos++;
+        }
+    }
+
+    /**
+     * Decodes the number in the field starting at pos and leaves pos on the
+     * delimiter that ends the field.
+     * @param buf the buffer being decoded
+     * @param to the end of the range (exclusive)
+     * @return the decoded value, or NaN if the field isn't a number
+     */
+    private float decodeField(ByteBuffer buf, int to)
+    {
+        long mantissa = 0;
+        int exponent = 0;
+        int digits = 0;
+        boolean negative = false;
+        boolean anyDigits = false;
+        boolean valid = true;
+
+        boolean quoted = false;
+
+        while (pos < to && (buf.get(pos) == ' ' || (buf.get(pos) == '"' && !quoted)))
+        {
+            quoted |= buf.get(pos) == '"';
+            pos++;
+        }
+
+        if (pos < to && (buf.get(pos) == '-' || buf.get(pos) == '+'))
+        {
+            negative = buf.get(pos) == '-';
+            pos++;
+        }
+
+        //integer part
+        while (pos < to)
+        {
+            int d = buf.get(pos) - '0';
+
+            if (d < 0 || d > 9)
+            {
+                break;
+            }
+
+            if (digits < 18)
+            {
+                mantissa = mantissa * 10 + d;
+
+                if (mantissa != 0)
+                {
+                    digits++;
+                }
+            }
+            else
+            {
+                exponent++;
+            }
+
+            anyDigits = true;
+            pos++;
+        }
+
+        //fractional part
+        if (pos < to && buf.get(pos) == '.')
+        {
+            pos++;
+
+            while (pos < to)
+            {
+                int d = buf.get(pos) - '0';
+
+                if (d < 0 || d > 9)
+                {
+                    break;
+                }
+
+                if (digits < 18)
+                {
+                    mantissa = mantissa * 10 + d;
+                    exponent--;
+
+                    if (mantissa != 0)
+                    {
+                        digits++;
+                    }
+                }
+
+                anyDigits = true;
+                pos++;
+            }
+        }
+
+        //exponent part
+        if (anyDigits && pos < to && (buf.get(pos) == 'e' || buf.get(pos) == 'E'))
+        {
+            pos++;
+
+            boolean negativeExponent = false;
+            int exp = 0;
+
+            if (pos < to && (buf.get(pos) == '-' || buf.get(pos) == '+'))
+            {
+                negativeExponent = buf.get(pos) == '-';
+                pos++;
+            }
+
+            valid = pos < to && buf.get(pos) >= '0' && buf.get(pos) <= '9';
+
+            while (pos < to && buf.get(pos) >= '0' && buf.get(pos) <= '9')
+            {
+                if (exp < 1000)
+                {
+                    exp = exp * 10 + (buf.get(pos) - '0');
+                }
+
+                pos++;
+            }
+
+            exponent += negativeExponent ? -exp : exp;
+        }
+
+        while (pos < to && (buf.get(pos) == ' ' || (buf.get(pos) == '"' && quoted)))
+        {
+            quoted &= buf.get(pos) != '"';
+            pos++;
+        }
+
+        //anything else before the delimiter means this isn't a number
+        if (pos < to && buf.get(pos) != ',' && buf.get(pos) != '\n' && buf.get(pos) != '\r')
+        {
+            valid = false;
+            skipField(buf, to);
+        }
+
+        if (!anyDigits || !valid)
+        {
+            return Float.NaN;
+        }
+
+        double value = mantissa;
+
+        if (exponent < 0)
+        {
+            value = -exponent < POWERS_OF_TEN.length ? value / POWERS_OF_TEN[-exponent] : value / Math.pow(10, -exponent);
+        }
+        else if (exponent > 0)
+        {
+            value = exponent < POWERS_OF_TEN.length ? value * POWERS_OF_TEN[exponent] : value * Math.pow(10, exponent);
+        }
+
+        return (float) (negative ? -value : value);
+    }
+
+    /**
+     * Decodes the time/date field starting at pos into minutes since
+     * 1/1/1970 and leaves pos on the delimiter that ends the field.
+     * Accepts M/d/yy H:mm (e.g., 5/26/17 13:20), M/d/yyyy H:mm and
+     * yyyy-MM-dd HH:mm, each with optional seconds (which are dropped), a
+     * 12-hour clock with AM/PM (e.g., 5/26/2017 1:20 PM) and quotes around
+     * the field.  The logger's clock is read as UTC so daylight saving
+     * doesn't move records.
+     * @param buf the buffer being decoded
+     * @param to the end of the range (exclusive)
+     * @return the time in epoch minutes, or SensorData.NO_TIME if the field
+     * isn't a time/date
+     */
+    private long decodeTime(ByteBuffer buf, int to)
+    {
+        //groups of digits: month, day, year (or year, month, day), hours, minutes, seconds
+        int[] fields = timeFields;
+        int groups = 0;
+        int firstDigits = 0;
+
+        //'A' or 'P' for a 12-hour clock, 0 for a 24-hour one
+        byte meridiem = 0;
+
+        while (pos < to)
+        {
+            byte b = buf.get(pos);
+
+            if (b == ',' || b == '\n' || b == '\r')
+            {
+                break;
+            }
+
+            if ((b == 'A' || b == 'a' || b == 'P' || b == 'p') && pos + 1 < to &&
+                    (buf.get(pos + 1) == 'M' || buf.get(pos + 1) == 'm'))
+            {
+                meridiem = b == 'A' || b == 'a' ? (byte) 'A' : (byte) 'P';
+                pos += 2;
+                continue;
+            }
+
+            if (b < '0' || b > '9')
+            {
+                if (b != '/' && b != '-' && b != ':' && b != ' ' && b != 'T' && b != '"')
+                {
+                    skipField(buf, to);
+                    return SensorData.NO_TIME;
+                }
+
+                pos++;
+                continue;
+            }
+
+            int value = 0;
+            int digits = 0;
+
+            while (pos < to && buf.get(pos) >= '0' && buf.get(pos) <= '9')
+            {
+                if (digits < 9)
+                {
+                    value = value * 10 + (buf.get(pos) - '0');
+                }
+
+                digits++;
+                pos++;
+            }
+
+            if (groups == 0)
+            {
+                firstDigits = digits;
+            }
+
+            if (groups < fields.length)
+            {
+                fields[groups] = value;
+            }
+
+            groups++;
+        }
+
+        if (groups < 3)
+        {
+            return SensorData.NO_TIME;
+        }
+
+        int year;
+        int month;
+        int day;
+        int hour = groups > 3 ? fields[3] : 0;
+        int minute = groups > 4 ? fields[4] : 0;
+
+        if (firstDigits == 4)
+        {
+            year = fields[0];
+            month = fields[1];
+            day = fields[2];
+        }
+        else
+        {
+            month = fields[0];
+            day = fields[1];
+            year = fields[2] < 100 ? 2000 + fields[2] : fields[2];
+        }
+
+        if (meridiem != 0)
+        {
+            if (hour < 1 || hour > 12)
+            {
+                return SensorData.NO_TIME;
+            }
+
+            //12 AM is midnight and 12 PM is noon
+            hour = hour % 12 + (meridiem == 'P' ? 12 : 0);
+        }
+
+        if (month < 1 || month > 12 || day < 1 || day > 31 || hour > 23 || minute > 59)
+        {
+            return SensorData.NO_TIME;
+        }
+
+        return daysFromCivil(year, month, day) * 1440L + hour * 60 + minute;
+    }
+
+    /**
+     * Returns the number of days from 1/1/1970 to a date in the
+     * proleptic Gregorian calendar.
+     * @param year the year
+     * @param month the month (1-12)
+     * @param day the day of the month
+     * @return the days since 1/1/1970
+     */
+    public static long daysFromCivil(int year, int month, int day)
+    {
+        //shift the year to start in March so the leap day is last
+        int y = month <= 2 ? year - 1 : year;
+        int era = (y >= 0 ? y : y - 399) / 400;
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+
+        return era * 146097L + dayOfEra - 719468;
+    }
+
+    /* Private Classes */
+
+    /**
+     * A byte range of a mapped region that starts at the beginning of a line.
+     */
+    private static class Chunk
+    {
+        /**
+         * The region the range is in (a duplicate per range).
+         */
+        private final ByteBuffer buf;
+
+        /**
+         * The first byte of the range.
+         */
+        private final int from;
+
+        /**
+         * The end of the range (exclusive).
+         */
+        private final int to;
+
+        /**
+         * The number of rows in the range.
+         */
+        private int rows;
+
+        /**
+         * The index of the range's first row in the columns.
+         */
+        private int firstRow;
+
+        /**
+         * Default constructor for the Chunk class.
+         * @param region the region the range is in
+         * @param start the first byte of the range
+         * @param end the end of the range (exclusive)
+         */
+        private Chunk(ByteBuffer region, int start, int end)
+        {
+            buf = region;
+            from = start;
+            to = end;
+        }
+    }
+}
@@ -0,0 +1,319 @@
+/*
+ * File:    SensorData.java
+ * Created: October 17, 2026
+ * Author:  agent
+ * Project: Irrigation Recommendation System (IRS)
+ */
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * The SensorData class holds the contents of a sensor csv file as
+ * primitive float columns (one array per csv column).  Columns that
+ * were not parsed (e.g., the time/date column) are null; the time/date
+ * column is kept as epoch minutes instead.  Resampled data can also have
+ * a mask marking the records that fill a gap in the readings.  The arrays
+ * can be longer than rows() so that rows can be appended.
+ * </p>
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class SensorData
+{
+    /* Variables */
+
+    /**
+     * Stored for a record whose time/date couldn't be read.
+     */
+    public static final long NO_TIME = Long.MIN_VALUE;
+
+    /**
+     * The column titles from the csv header.
+     */
+    private String[] header;
+
+    /**
+     * The parsed values, indexed as columns[csvColumn][row].
+     */
+    private float[][] columns;
+
+    /**
+     * The time/date of each record in minutes since 1/1/1970 (the logger's
+     * clock, read as UTC), or null if the times weren't read.
+     */
+    private long[] times;
+
+    /**
+     * 1 for a record that was observed (or filled) and 0 for one inside a
+     * masked gap, or null if every record was observed.
+     */
+    private float[] mask;
+
+    /**
+     * The number of data rows (not counting the header).
+     */
+    private int rows;
+
+    /* Constructors */
+
+    /**
+     * Default constructor for the SensorData class.
+     * @param columnTitles the column titles from the csv header
+     * @param values the parsed values, indexed as values[csvColumn][row]
+     * @param numRows the number of data rows in each column
+     */
+    public SensorData(String[] columnTitles, float[][] values, int numRows)
+    {
+        this(columnTitles, null, values, null, numRows);
+    }
+
+    /**
+     * Constructor for the SensorData class with record times and a mask.
+     * @param columnTitles the column titles from the csv header
+     * @param timestamps the time of each record in epoch minutes, or null
+     * @param values the parsed values, indexed as values[csvColumn][row]
+     * @param observed the mask (1 observed, 0 masked) of each record, or null
+     * @param numRows the number of data rows in each column
+     */
+    public SensorData(String[] columnTitles, long[] timestamps, float[][] values, float[] observed, int numRows)
+    {
+        header = columnTitles;
+        times = timestamps;
+        columns = values;
+        mask = observed;
+        rows = numRows;
+    }
+
+    /* Methods */
+
+    /**
+     * Makes sure every column can hold a number of rows, growing the
+     * column arrays (by at least half) if needed.
+     * @param minRows the number of rows the columns must be able to hold
+     */
+    public void ensureCapacity(int minRows)
+    {
+        for (int c = 0; c < columns.length; c++)
+        {
+            if (columns[c] != null && columns[c].length < minRows)
+            {
+                int capacity = Math.max(minRows, columns[c].length + (columns[c].length >> 1));
+
+                columns[c] = Arrays.copyOf(columns[c], capacity);
+            }
+        }
+
+        if (times != null && times.length < minRows)
+        {
+            times = Arrays.copyOf(times, Math.max(minRows, times.length + (times.length >> 1)));
+        }
+
+        if (mask != null && mask.length < minRows)
+        {
+            mask = Arrays.copyOf(mask, Math.max(minRows, mask.length + (mask.length >> 1)));
+        }
+    }
+
+    /**
+     * Returns a copy of a range of rows (e.g., to hold some records out
+     * for validation).
+     * @param from the first row
+     * @param to one past the last row
+     * @return the rows from..to-1, with their times and mask
+     */
+    public SensorData slice(int from, int to)
+    {
+        float[][] values = new float[columns.length][];
+
+        for (int c = 0; c < columns.length; c++)
+        {
+            values[c] = columns[c] == null ? null : Arrays.copyOfRange(columns[c], from, to);
+        }
+
+        return new SensorData(header, times == null ? null : Arrays.copyOfRange(times, from, to), values,
+                mask == null ? null : Arrays.copyOfRange(mask, from, to), to - from);
+    }
+
+    /**
+     * Returns a copy of the rows in the last stretch of time (e.g., just
+     * the records a recommendation looks at).  Without times, each row
+     * counts as one record on the default grid (see SensorResampler).
+     * @param minutes how far back from the newest record to go
+     * @return the rows from the first one inside the stretch to the end
+     */
+    public SensorData last(long minutes)
+    {
+        if (times == null)
+        {
+            return slice(Math.max(0, rows - (int) Math.min(rows, minutes / SensorResampler.DEFAULT_CADENCE)), rows);
+        }
+
+        int newest = rows - 1;
+
+        while (newest >= 0 && times[newest] == NO_TIME)
+        {
+            newest--;
+        }
+
+        if (newest < 0)
+        {
+            return this;
+        }
+
+        //stop at the first dated row that's too old; the rows are appended in time order
+        int from = newest;
+
+        while (from > 0 && (times[from - 1] == NO_TIME || times[from - 1] >= times[newest] - minutes))
+        {
+            from--;
+        }
+
+        return from == 0 ? this : slice(from, rows);
+    }
+
+    /**
+     * Masks the records that have a missing value (NaN, e.g., an empty or
+     * non-numeric csv field) so they can be left out of training.  The
+     * missing value is replaced by the column's last reading (0 before the
+     * first one) so every value is finite.
+     * @return this data if no value is missing, otherwise a copy with the
+     * records marked 0 in the mask
+     */
+    public SensorData maskMissing()
+    {
+        boolean missing = false;
+
+        for (int c = 0; c < columns.length && !missing; c++)
+        {
+            for (int r = 0; columns[c] != null && r < rows && !missing; r++)
+            {
+                missing = Float.isNaN(columns[c][r]);
+            }
+        }
+
+        if (!missing)
+        {
+            return this;
+        }
+
+        float[][] values = new float[columns.length][];
+        float[] observed = new float[rows];
+
+        if (mask == null)
+        {
+            Arrays.fill(observed, 1);
+        }
+        else
+        {
+            System.arraycopy(mask, 0, observed, 0, rows);
+        }
+
+        for (int c = 0; c < columns.length; c++)
+        {
+            if (columns[c] == null)
+            {
+                continue;
+            }
+
+            values[c] = Arrays.copyOf(columns[c], rows);
+            float last = 0;
+
+            for (int r = 0; r < rows; r++)
+            {
+                if (Float.isNaN(values[c][r]))
+                {
+                    values[c][r] = last;
+                    observed[r] = 0;
+                }
+                else
+                {
+                    last = values[c][r];
+                }
+            }
+        }
+
+        return new SensorData(header, times == null ? null : Arrays.copyOf(times, rows), values, observed, rows);
+    }
+
+    /**
+     * Sets the number of data rows (after rows were written to the columns).
+     * @param numRows the number of data rows
+     */
+    public void setRows(int numRows)
+    {
+        rows = numRows;
+    }
+
+    /**
+     * Returns the number of data rows.
+     * @return the number of data rows
+     */
+    public int rows()
+    {
+        return rows;
+    }
+
+    /**
+     * Returns the number of columns in the csv.
+     * @return the number of columns
+     */
+    public int numColumns()
+    {
+        return columns.length;
+    }
+
+    /**
+     * Returns the column titles from the csv header.
+     * @return the column titles
+     */
+    public String[] getHeader()
+    {
+        return header;
+    }
+
+    /**
+     * Returns the backing array for a column; the array is not copied and
+     * may be longer than rows().
+     * @param col the csv column index
+     * @return the column values, or null if the column wasn't parsed
+     */
+    public float[] getColumn(int col)
+    {
+        return columns[col];
+    }
+
+    /**
+     * Returns the backing array of record times; the array is not copied and
+     * may be longer than rows().
+     * @return the time of each record in epoch minutes (NO_TIME if it couldn't
+     * be read), or null if the times weren't read
+     */
+    public long[] getTimes()
+    {
+        return times;
+    }
+
+    /**
+     * Returns the backing mask array; the array is not copied and may be
+     * longer than rows().
+     * @return 1 for each observed record and 0 for each masked one, or null
+     * if every record was observed
+     */
+    public float[] getMask()
+    {
+        return mask;
+    }
+
+    /**
+     * Returns a single value.
+     * @param col the csv column index
+     * @param row the data row index
+     * @return the value at the given column and row
+     */
+    public float get(int col, int row)
+    {
+        return columns[col][row];
+    }
+}
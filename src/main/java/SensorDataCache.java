@@ -0,0 +1,500 @@
+/*
+ * File:    SensorDataCache.java
+ * Created: October 17, 2026
+ * Author:  agent
+ * Project: Irrigation Recommendation System (IRS)
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * <p>
+ * The SensorDataCache class keeps a binary columnar copy of each parsed
+ * sensor csv in a sidecar file next to it (e.g., data.csv.irsc).  The
+ * sidecar stores the SHA-1 of the csv contents; when the hash still matches,
+ * later reads memory-map the sidecar and copy the columns out in bulk
+ * instead of parsing the text again.  If the csv changes, the sidecar is
+ * rewritten on the next read.
+ * </p>
+ *
+ * <p>
+ * Sidecar layout (little-endian): the magic "IRSC", format version,
+ * 20-byte content hash, csv length, row count, column count, header
+ * length and UTF-8 header, padding to a 4-byte boundary, a present flag
+ * for the record times and one per column, then the record times (epoch
+ * minutes as longs) and the float values of each present column.
+ * </p>
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class SensorDataCache
+{
+    /* Variables */
+
+    /**
+     * Marks the start of a sidecar file ("IRSC").
+     */
+    private static final int MAGIC = 0x43535249;
+
+    /**
+     * Version of the sidecar layout; bump when the layout changes.
+     */
+    private static final int VERSION = 2;
+
+    /**
+     * Extension added to the csv file name for its sidecar.
+     */
+    public static final String EXTENSION = ".irsc";
+
+    /**
+     * Bytes hashed per mapped region.
+     */
+    private static final long HASH_REGION = 1L << 30;
+
+    /* Methods */
+
+    /**
+     * Returns the parsed contents of a csv, reading the sidecar if it matches
+     * the csv and parsing (then writing the sidecar) if it doesn't.
+     * @param csv the csv file to load
+     * @return the parsed file
+     * @throws IOException if the csv can't be read
+     */
+    public static SensorData load(File csv) throws IOException
+    {
+        return load(csv, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Returns the parsed contents of a csv, parsing it with a given number
+     * of threads if the sidecar doesn't match.
+     * @param csv the csv file to load
+     * @param threads the number of threads to parse with
+     * @return the parsed file
+     * @throws IOException if the csv can't be read
+     */
+    public static SensorData load(File csv, int threads) throws IOException
+    {
+        return load(csv, threads, null);
+    }
+
+    /**
+     * Returns some channels of a csv.  Only the selected columns are copied
+     * out of the sidecar.  If it has to be parsed, every column is parsed
+     * and written to the sidecar, so a later load with other channels can
+     * still use it, and the unselected columns are dropped afterwards.
+     * @param csv the csv file to load
+     * @param threads the number of threads to parse with
+     * @param selected the channels to load, or null for every channel
+     * @return the loaded file (columns that weren't loaded are null)
+     * @throws IOException if the csv can't be read
+     */
+    public static SensorData load(File csv, int threads, Set<String> selected) throws IOException
+    {
+        byte[] hash = contentHash(csv);
+        File sidecar = sidecarFor(csv);
+
+        if (sidecar.isFile())
+        {
+            try
+            {
+                SensorData cached = read(sidecar, hash, selected);
+
+                if (cached != null)
+                {
+                    //print to console - this isn't a message to be displayed to the user
+                    System.out.println("Loaded cached columns from " + sidecar.getPath());
+
+                    return cached;
+                }
+            }
+            catch (IOException e)
+            {
+                //print to console - this isn't a message to be displayed to the user
+                System.out.println("Caught IOException: could not read cache file at " + sidecar.getPath());
+            }
+            catch (RuntimeException e)
+            {
+                //print to console - this isn't a message to be displayed to the user
+                System.out.println("Caught " + e.getClass().getSimpleName() + ": cache file at " +
+                        sidecar.getPath() + " is corrupt; parsing the csv");
+            }
+        }
+
+        SensorData data = SensorCsvParser.parse(csv, threads, null);
+
+        try
+        {
+            write(sidecar, hash, csv.length(), data);
+        }
+        catch (IOException e)
+        {
+            //the cache is only an optimization, so a read-only directory isn't an error
+            //print to console - this isn't a message to be displayed to the user
+            System.out.println("Caught IOException: could not write cache file at " + sidecar.getPath());
+        }
+
+        return project(data, selected);
+    }
+
+    /**
+     * Drops the columns that aren't used by some channels.
+     * @param data the parsed csv
+     * @param selected the channels to keep, or null for every channel
+     * @return the data with the unused columns null (the kept columns are shared)
+     */
+    private static SensorData project(SensorData data, Set<String> selected)
+    {
+        if (selected == null)
+        {
+            return data;
+        }
+
+        boolean[] used = SensorSchema.fromHeader(data.getHeader(), selected).usedColumns();
+        float[][] columns = new float[data.numColumns()][];
+
+        for (int c = 0; c < columns.length; c++)
+        {
+            columns[c] = c < used.length && used[c] ? data.getColumn(c) : null;
+        }
+
+        return new SensorData(data.getHeader(), data.getTimes(), columns, data.getMask(), data.rows());
+    }
+
+    /**
+     * Returns the sidecar file used for a csv.
+     * @param csv the csv file
+     * @return the sidecar file
+     */
+    public static File sidecarFor(File csv)
+    {
+        return new File(csv.getPath() + EXTENSION);
+    }
+
+    /**
+     * Computes the SHA-1 of a file's contents.
+     * @param file the file to hash
+     * @return the 20-byte hash
+     * @throws IOException if the file can't be read
+     */
+    public static byte[] contentHash(File file) throws IOException
+    {
+        MessageDigest digest;
+
+        try
+        {
+            digest = MessageDigest.getInstance("SHA-1");
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException("SHA-1 is not available.", e);
+        }
+
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+
+        try
+        {
+            FileChannel channel = raf.getChannel();
+            long size = channel.size();
+
+            for (long start = 0; start < size; start += HASH_REGION)
+            {
+                digest.update(channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(size - start, HASH_REGION)));
+            }
+        }
+        finally
+        {
+            raf.close();
+        }
+
+        return digest.digest();
+    }
+
+    /**
+     * Reads a sidecar file.
+     * @param sidecar the sidecar file
+     * @param hash the hash of the current csv contents
+     * @return the cached data, or null if the sidecar is stale or not a sidecar
+     * @throws IOException if the sidecar can't be read
+     */
+    public static SensorData read(File sidecar, byte[] hash) throws IOException
+    {
+        return read(sidecar, hash, null);
+    }
+
+    /**
+     * Reads some channels from a sidecar file; the other columns are
+     * skipped without being copied.
+     * @param sidecar the sidecar file
+     * @param hash the hash of the current csv contents
+     * @param selected the channels to read, or null for every channel
+     * @return the cached data, or null if the sidecar is stale, not a sidecar,
+     * truncated, or doesn't have every selected column
+     * @throws IOException if the sidecar can't be read
+     */
+    public static SensorData read(File sidecar, byte[] hash, Set<String> selected) throws IOException
+    {
+        RandomAccessFile raf = new RandomAccessFile(sidecar, "r");
+
+        try
+        {
+            FileChannel channel = raf.getChannel();
+            ByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buf.order(ByteOrder.LITTLE_ENDIAN);
+
+            if (buf.remaining() < 8 || buf.getInt() != MAGIC || buf.getInt() != VERSION)
+            {
+                return null;
+            }
+
+            byte[] storedHash = new byte[hash.length];
+
+            if (buf.remaining() < storedHash.length)
+            {
+                return null;
+            }
+
+            buf.get(storedHash);
+
+            if (!Arrays.equals(hash, storedHash))
+            {
+                return null;
+            }
+
+            if (buf.remaining() < 20)
+            {
+                return null;
+            }
+
+            buf.getLong();
+            int rows = buf.getInt();
+            int numColumns = buf.getInt();
+            int headerLength = buf.getInt();
+
+            //a truncated or corrupt sidecar is treated like a stale one
+            if (rows < 0 || numColumns < 0 || headerLength < 0 || buf.remaining() < headerLength)
+            {
+                return null;
+            }
+
+            byte[] headerBytes = new byte[headerLength];
+            buf.get(headerBytes);
+
+            if (align(buf.position()) + 4L * (numColumns + 1) > buf.limit())
+            {
+                return null;
+            }
+
+            buf.position(align(buf.position()));
+
+            String[] header = new String(headerBytes, Charset.forName("UTF-8")).split(",", -1);
+
+            boolean timesPresent = buf.getInt() != 0;
+            boolean[] present = new boolean[numColumns];
+
+            for (int c = 0; c < numColumns; c++)
+            {
+                present[c] = buf.getInt() != 0;
+            }
+
+            boolean[] used = SensorSchema.fromHeader(header, selected).usedColumns();
+            long dataBytes = timesPresent ? rows * 8L : 0;
+
+            if (used.length < numColumns)
+            {
+                return null;
+            }
+
+            for (int c = 0; c < numColumns; c++)
+            {
+                if (used[c] && !present[c])
+                {
+                    return null;
+                }
+
+                dataBytes += present[c] ? rows * 4L : 0;
+            }
+
+            if (buf.remaining() < dataBytes)
+            {
+                return null;
+            }
+
+            long[] times = null;
+
+            if (timesPresent)
+            {
+                times = new long[rows];
+                buf.asLongBuffer().get(times);
+                buf.position(buf.position() + rows * 8);
+            }
+
+            float[][] columns = new float[numColumns][];
+
+            for (int c = 0; c < numColumns; c++)
+            {
+                if (present[c] && used[c])
+                {
+                    columns[c] = new float[rows];
+                    buf.asFloatBuffer().get(columns[c]);
+                }
+
+                if (present[c])
+                {
+                    buf.position(buf.position() + rows * 4);
+                }
+            }
+
+            return new SensorData(header, times, columns, null, rows);
+        }
+        finally
+        {
+            raf.close();
+        }
+    }
+
+    /**
+     * Writes a sidecar file.  The data is written to a uniquely named
+     * temporary file in the sidecar's directory that is then renamed, so
+     * readers never see a partially written sidecar.
+     * @param sidecar the sidecar file
+     * @param hash the hash of the csv contents
+     * @param csvLength the length of the csv in bytes
+     * @param data the parsed csv
+     * @throws IOException if the sidecar can't be written
+     */
+    public static void write(File sidecar, byte[] hash, long csvLength, SensorData data) throws IOException
+    {
+        byte[] headerBytes = join(data.getHeader()).getBytes(Charset.forName("UTF-8"));
+        int numColumns = data.numColumns();
+        int rows = data.rows();
+
+        int headerSize = align(4 + 4 + hash.length + 8 + 4 + 4 + 4 + headerBytes.length) + 4 + 4 * numColumns;
+
+        ByteBuffer head = ByteBuffer.allocate(headerSize).order(ByteOrder.LITTLE_ENDIAN);
+        head.putInt(MAGIC);
+        head.putInt(VERSION);
+        head.put(hash);
+        head.putLong(csvLength);
+        head.putInt(rows);
+        head.putInt(numColumns);
+        head.putInt(headerBytes.length);
+        head.put(headerBytes);
+        head.position(align(head.position()));
+        head.putInt(data.getTimes() != null ? 1 : 0);
+
+        for (int c = 0; c < numColumns; c++)
+        {
+            head.putInt(data.getColumn(c) != null ? 1 : 0);
+        }
+
+        head.flip();
+
+        //a unique name, so loads of the same csv on different threads or processes don't write into one file
+        File tmp = File.createTempFile(sidecar.getName() + ".", ".tmp", sidecar.getAbsoluteFile().getParentFile());
+        RandomAccessFile raf = new RandomAccessFile(tmp, "rw");
+        boolean written = false;
+
+        try
+        {
+            FileChannel channel = raf.getChannel();
+
+            while (head.hasRemaining())
+            {
+                channel.write(head);
+            }
+
+            ByteBuffer values = ByteBuffer.allocateDirect(rows * 8).order(ByteOrder.LITTLE_ENDIAN);
+
+            if (data.getTimes() != null)
+            {
+                values.asLongBuffer().put(data.getTimes(), 0, rows);
+                values.limit(rows * 8);
+
+                while (values.hasRemaining())
+                {
+                    channel.write(values);
+                }
+            }
+
+            for (int c = 0; c < numColumns; c++)
+            {
+                if (data.getColumn(c) != null)
+                {
+                    values.clear();
+                    values.asFloatBuffer().put(data.getColumn(c), 0, rows);
+                    values.limit(rows * 4);
+
+                    while (values.hasRemaining())
+                    {
+                        channel.write(values);
+                    }
+                }
+            }
+
+            written = true;
+        }
+        finally
+        {
+            raf.close();
+
+            if (!written)
+            {
+                tmp.delete();
+            }
+        }
+
+        if (!tmp.renameTo(sidecar))
+        {
+            //renameTo won't replace an existing file on some platforms
+            if (!sidecar.delete() || !tmp.renameTo(sidecar))
+            {
+                tmp.delete();
+                throw new IOException("Could not move " + tmp.getPath() + " to " + sidecar.getPath());
+            }
+        }
+    }
+
+    /**
+     * Rounds a position up to the next 4-byte boundary.
+     * @param position the position to round
+     * @return the aligned position
+     */
+    private static int align(int position)
+    {
+        return (position + 3) & ~3;
+    }
+
+    /**
+     * Joins the column titles back into a header line.
+     * @param titles the column titles
+     * @return the comma separated titles
+     */
+    private static String join(String[] titles)
+    {
+        StringBuilder sb = new StringBuilder();
+
+        for (int i = 0; i < titles.length; i++)
+        {
+            if (i > 0)
+            {
+                sb.append(',');
+            }
+
+            sb.append(titles[i]);
+        }
+
+        return sb.toString();
+    }
+}
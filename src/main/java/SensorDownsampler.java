@@ -0,0 +1,444 @@
+/*
+ * File:    SensorDownsampler.java
+ * Created: October 17, 2026
+ * Author:  agent
+ * Project: Irrigation Recommendation System (IRS)
+ */
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * <p>
+ * The SensorDownsampler class rolls a sensor series up into longer time
+ * buckets (e.g., 15 minutes, an hour or a day) in one pass over the
+ * records, so a model can be trained on far fewer time steps.  At 5
+ * minutes a day is 288 steps; hourly it's 24 and daily it's 1.
+ * </p>
+ *
+ * <p>
+ * Each channel has a rule for combining the records in a bucket: MEAN,
+ * SUM or LAST.  By default rain is summed, ET (a running total within the
+ * day) and the derived channels (already rolling aggregates) take the
+ * last value, and everything else, including the label, is averaged.
+ * Records masked by the resampler are left out of a bucket unless every
+ * record in it is masked, in which case the bucket is masked too.
+ * </p>
+ *
+ * <p>
+ * Buckets start on multiples of the bucket length since 1/1/1970 (so
+ * daily buckets start at midnight on the logger's clock).  Records
+ * without times are grouped by count, assuming 5 minutes between records.
+ * </p>
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class SensorDownsampler
+{
+    /* Variables */
+
+    /**
+     * 15 minute buckets.
+     */
+    public static final int QUARTER_HOUR = 15;
+
+    /**
+     * Hourly buckets.
+     */
+    public static final int HOUR = 60;
+
+    /**
+     * Daily buckets.
+     */
+    public static final int DAY = 24 * 60;
+
+    /**
+     * How the records in a bucket are combined.
+     */
+    public enum Rule
+    {
+        /** The mean of the records. */
+        MEAN,
+
+        /** The sum of the records. */
+        SUM,
+
+        /** The last record. */
+        LAST
+    }
+
+    /**
+     * The bucket length in minutes.
+     */
+    private int bucket;
+
+    /**
+     * The rule for each channel that isn't averaged.
+     */
+    private Map<String, Rule> rules;
+
+    /**
+     * The number of records read by the last downsample.
+     */
+    private int recordsIn;
+
+    /**
+     * The number of buckets written by the last downsample.
+     */
+    private int bucketsOut;
+
+    /**
+     * The number of buckets masked by the last downsample.
+     */
+    private int maskedBuckets;
+
+    /* Constructors */
+
+    /**
+     * Default constructor for the SensorDownsampler class; uses the
+     * default rules.
+     * @param bucketMinutes the bucket length in minutes
+     */
+    public SensorDownsampler(int bucketMinutes)
+    {
+        if (bucketMinutes <= 0)
+        {
+            //print to console - this isn't a message to be displayed to the user
+            System.out.println("\nBucket length provided is <= 0; bucket length is " +
+                    "being set to default of " + HOUR + " minutes.\n");
+
+            bucketMinutes = HOUR;
+        }
+
+        bucket = bucketMinutes;
+        rules = new TreeMap<String, Rule>();
+        rules.put("rain", Rule.SUM);
+        rules.put("et", Rule.LAST);
+
+        for (String channel : RollingFeatures.CHANNELS)
+        {
+            rules.put(channel, Rule.LAST);
+        }
+    }
+
+    /* Methods */
+
+    /**
+     * Parses a downsampling spec as written by getSpec, e.g., "60" or
+     * "60,rain=sum,et=last".
+     * @param spec the bucket length in minutes, optionally followed by
+     * channel=rule pairs
+     * @return the downsampler, or null for an empty spec
+     */
+    public static SensorDownsampler parse(String spec)
+    {
+        if (spec == null || spec.trim().isEmpty())
+        {
+            return null;
+        }
+
+        String[] parts = spec.split(",");
+        SensorDownsampler downsampler = new SensorDownsampler(Integer.parseInt(parts[0].trim()));
+
+        for (int i = 1; i < parts.length; i++)
+        {
+            String[] pair = parts[i].split("=");
+
+            if (pair.length != 2)
+            {
+                throw new IllegalArgumentException("Expected channel=rule but found " + parts[i] + ".");
+            }
+
+            downsampler.setRule(pair[0].trim().toLowerCase(), Rule.valueOf(pair[1].trim().toUpperCase()));
+        }
+
+        return downsampler;
+    }
+
+    /**
+     * Returns the spec that parse turns back into this downsampler.
+     * @return the bucket length and the rule of each channel that isn't averaged
+     */
+    public String getSpec()
+    {
+        StringBuilder spec = new StringBuilder().append(bucket);
+
+        for (Map.Entry<String, Rule> rule : rules.entrySet())
+        {
+            spec.append(',').append(rule.getKey()).append('=').append(rule.getValue().name().toLowerCase());
+        }
+
+        return spec.toString();
+    }
+
+    /**
+     * Sets how a channel's records are combined.
+     * @param channel the channel (see SensorSchema.CHANNELS and
+     * RollingFeatures.CHANNELS, or SensorSchema.LABEL)
+     * @param rule the rule for the channel
+     */
+    public void setRule(String channel, Rule rule)
+    {
+        if (!channel.equals(SensorSchema.LABEL) && !Arrays.asList(SensorSchema.CHANNELS).contains(channel) &&
+                !Arrays.asList(RollingFeatures.CHANNELS).contains(channel))
+        {
+            throw new IllegalArgumentException("Unknown channel " + channel + ".");
+        }
+
+        if (rule == Rule.MEAN)
+        {
+            rules.remove(channel);
+        }
+        else
+        {
+            rules.put(channel, rule);
+        }
+    }
+
+    /**
+     * Returns how a channel's records are combined.
+     * @param channel the channel, or null for an unrecognized column
+     * @return the rule for the channel
+     */
+    public Rule getRule(String channel)
+    {
+        Rule rule = channel == null ? null : rules.get(channel);
+
+        return rule == null ? Rule.MEAN : rule;
+    }
+
+    /**
+     * Rolls a series up into buckets.  The input isn't changed.
+     * @param data the series (normally already resampled)
+     * @return the downsampled series (with a mask if any bucket was masked)
+     */
+    public SensorData downsample(SensorData data)
+    {
+        int rows = data.rows();
+        int numColumns = data.numColumns();
+        long[] times = data.getTimes();
+        float[] mask = data.getMask();
+        String[] header = data.getHeader();
+
+        Rule[] columnRules = new Rule[numColumns];
+        float[][] columns = new float[numColumns][];
+        int capacity = rows / Math.max(1, bucket / SensorResampler.DEFAULT_CADENCE) + 2;
+
+        for (int c = 0; c < numColumns; c++)
+        {
+            if (data.getColumn(c) != null)
+            {
+                columnRules[c] = getRule(SensorSchema.channelOf(header[c]));
+                columns[c] = new float[capacity];
+            }
+        }
+
+        SensorData out = new SensorData(header, times == null ? null : new long[capacity], columns,
+                new float[capacity], 0);
+
+        //running totals of the current bucket: over every record, and over the observed records only
+        double[] sumAll = new double[numColumns];
+        double[] sumObserved = new double[numColumns];
+        float[] lastAll = new float[numColumns];
+        float[] lastObserved = new float[numColumns];
+        int countAll = 0;
+        int countObserved = 0;
+
+        long currentBucket = 0;
+        int recordsPerBucket = Math.max(1, bucket / SensorResampler.DEFAULT_CADENCE);
+        int buckets = 0;
+
+        recordsIn = 0;
+        maskedBuckets = 0;
+
+        for (int r = 0; r < rows; r++)
+        {
+            long key;
+
+            if (times == null)
+            {
+                key = r / recordsPerBucket;
+            }
+            else if (times[r] == SensorData.NO_TIME)
+            {
+                continue;
+            }
+            else
+            {
+                key = floorDiv(times[r], bucket);
+            }
+
+            if (countAll > 0 && key != currentBucket)
+            {
+                emit(out, buckets++, currentBucket, columnRules, sumAll, sumObserved, lastAll, lastObserved,
+                        countAll, countObserved);
+
+                Arrays.fill(sumAll, 0);
+                Arrays.fill(sumObserved, 0);
+                countAll = 0;
+                countObserved = 0;
+            }
+
+            currentBucket = key;
+            recordsIn++;
+
+            boolean observed = mask == null || mask[r] != 0;
+
+            for (int c = 0; c < numColumns; c++)
+            {
+                if (columns[c] != null)
+                {
+                    float value = data.get(c, r);
+
+                    sumAll[c] += value;
+                    lastAll[c] = value;
+
+                    if (observed)
+                    {
+                        sumObserved[c] += value;
+                        lastObserved[c] = value;
+                    }
+                }
+            }
+
+            countAll++;
+            countObserved += observed ? 1 : 0;
+        }
+
+        if (countAll > 0)
+        {
+            emit(out, buckets++, currentBucket, columnRules, sumAll, sumObserved, lastAll, lastObserved,
+                    countAll, countObserved);
+        }
+
+        out.setRows(buckets);
+        bucketsOut = buckets;
+
+        //print to console - this isn't a message to be displayed to the user
+        System.out.println(stats());
+
+        if (maskedBuckets == 0)
+        {
+            return new SensorData(header, out.getTimes(), columns(out), null, buckets);
+        }
+
+        return out;
+    }
+
+    /**
+     * Writes one bucket to the output.
+     * @param out the downsampled series
+     * @param row the bucket's row in the output
+     * @param key the bucket number (its start time in bucket lengths)
+     * @param columnRules the rule for each column (null if not parsed)
+     * @param sumAll the sum of every record in the bucket, per column
+     * @param sumObserved the sum of the observed records, per column
+     * @param lastAll the last record, per column
+     * @param lastObserved the last observed record, per column
+     * @param countAll the number of records in the bucket
+     * @param countObserved the number of observed records in the bucket
+     */
+    private void emit(SensorData out, int row, long key, Rule[] columnRules, double[] sumAll, double[] sumObserved,
+                      float[] lastAll, float[] lastObserved, int countAll, int countObserved)
+    {
+        boolean observed = countObserved > 0;
+        double[] sum = observed ? sumObserved : sumAll;
+        float[] last = observed ? lastObserved : lastAll;
+        int count = observed ? countObserved : countAll;
+
+        out.ensureCapacity(row + 1);
+
+        for (int c = 0; c < columnRules.length; c++)
+        {
+            if (columnRules[c] == Rule.SUM)
+            {
+                out.getColumn(c)[row] = (float) sum[c];
+            }
+            else if (columnRules[c] == Rule.LAST)
+            {
+                out.getColumn(c)[row] = last[c];
+            }
+            else if (columnRules[c] == Rule.MEAN)
+            {
+                out.getColumn(c)[row] = (float) (sum[c] / count);
+            }
+        }
+
+        if (out.getTimes() != null)
+        {
+            out.getTimes()[row] = key * bucket;
+        }
+
+        out.getMask()[row] = observed ? 1 : 0;
+        maskedBuckets += observed ? 0 : 1;
+    }
+
+    /**
+     * Returns the column arrays of a series.
+     * @param data the series
+     * @return the column arrays (null for columns that weren't parsed)
+     */
+    private static float[][] columns(SensorData data)
+    {
+        float[][] values = new float[data.numColumns()][];
+
+        for (int c = 0; c < values.length; c++)
+        {
+            values[c] = data.getColumn(c);
+        }
+
+        return values;
+    }
+
+    /**
+     * Divides, rounding toward negative infinity.
+     * @param x the dividend
+     * @param y the divisor (positive)
+     * @return the floor of x / y
+     */
+    private static long floorDiv(long x, long y)
+    {
+        long q = x / y;
+
+        return (x % y != 0 && x < 0) ? q - 1 : q;
+    }
+
+    /**
+     * Returns a one line summary of the last downsample.
+     * @return the downsampling statistics
+     */
+    public String stats()
+    {
+        return String.format("Downsampled to %d minutes: %d records into %d buckets, %d masked",
+                bucket, recordsIn, bucketsOut, maskedBuckets);
+    }
+
+    /**
+     * Returns the bucket length.
+     * @return the bucket length in minutes
+     */
+    public int getBucketMinutes()
+    {
+        return bucket;
+    }
+
+    /**
+     * Returns the number of buckets written by the last downsample.
+     * @return the number of buckets
+     */
+    public int getBucketCount()
+    {
+        return bucketsOut;
+    }
+
+    /**
+     * Returns the number of buckets masked by the last downsample.
+     * @return the number of masked buckets
+     */
+    public int getMaskedCount()
+    {
+        return maskedBuckets;
+    }
+}
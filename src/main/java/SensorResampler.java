@@ -0,0 +1,571 @@
+/*
+ * File:    SensorResampler.java
+ * Created: October 17, 2026
+ * Author:  agent
+ * Project: Irrigation Recommendation System (IRS)
+ */
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <p>
+ * The SensorResampler class puts a sensor series onto a fixed time grid
+ * (every 5 minutes by default) in one pass over the records, so that a
+ * logger outage shows up as missing time instead of the records on either
+ * side of it looking adjacent.  Gaps up to a maximum length are filled
+ * (holding the last reading or interpolating); longer gaps, or every gap
+ * with GapFill.MASK, are masked: the last reading is held so the values
+ * stay finite, and the records are marked 0 in the mask so they can be
+ * left out of training.  Channels that hold a total since the last
+ * record (rain) are 0 in every record made up for a gap instead.
+ * </p>
+ *
+ * <p>
+ * Records without a time are dropped, as are records earlier than one
+ * already placed on the grid; when two records fall in the same grid
+ * slot the later one is kept.  A record whose time jumps further than a
+ * maximum (a week by default) from the record before it is dropped too,
+ * unless the records after it carry on from its time (e.g., after a long
+ * outage), so one mistyped date doesn't stretch the grid.  If most
+ * records have no time (e.g., the time/date format isn't understood), the
+ * series isn't resampled.
+ * </p>
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class SensorResampler
+{
+    /* Variables */
+
+    /**
+     * The default grid spacing in minutes (the loggers record every 5 minutes).
+     */
+    public static final int DEFAULT_CADENCE = 5;
+
+    /**
+     * The default longest gap, in minutes, that is filled instead of masked.
+     */
+    public static final int DEFAULT_MAX_FILL = 30;
+
+    /**
+     * The default largest jump, in minutes, between a record and the one
+     * before it that is kept without the next records confirming it.
+     */
+    public static final int DEFAULT_MAX_JUMP = 7 * 1440;
+
+    /**
+     * The number of records after a jump that must carry on from it for
+     * the jump to be kept.
+     */
+    private static final int CONFIRMATIONS = 3;
+
+    /**
+     * The channels whose readings are totals over the time since the last
+     * record; repeating or interpolating them would add rain that never
+     * fell once the records are summed (see SensorDownsampler).
+     */
+    public static final String[] INTERVAL_TOTALS = {"rain"};
+
+    /**
+     * How the records in a gap get their values.
+     */
+    public enum GapFill
+    {
+        /** Repeat the last reading before the gap. */
+        HOLD,
+
+        /** Interpolate between the readings on either side of the gap. */
+        LINEAR,
+
+        /** Hold the last reading but mask the records. */
+        MASK
+    }
+
+    /**
+     * The grid spacing in minutes.
+     */
+    private int cadence;
+
+    /**
+     * How gaps are filled.
+     */
+    private GapFill fill;
+
+    /**
+     * The longest gap, in minutes, that is filled instead of masked.
+     */
+    private int maxFill;
+
+    /**
+     * The largest jump, in minutes, that is kept without confirmation.
+     */
+    private int maxJump = DEFAULT_MAX_JUMP;
+
+    /**
+     * Which columns of the series being resampled are interval totals.
+     */
+    private boolean[] totals;
+
+    /**
+     * The number of gaps found by the last resample.
+     */
+    private int gaps;
+
+    /**
+     * The number of grid records filled by the last resample.
+     */
+    private int filledRecords;
+
+    /**
+     * The number of grid records masked by the last resample.
+     */
+    private int maskedRecords;
+
+    /**
+     * The number of records dropped by the last resample.
+     */
+    private int droppedRecords;
+
+    /**
+     * The number of records dropped by the last resample because their time
+     * didn't fit the records around them.
+     */
+    private int outlierRecords;
+
+    /* Constructors */
+
+    /**
+     * Default constructor for the SensorResampler class; uses a 5 minute
+     * grid, interpolates gaps up to 30 minutes and masks longer ones.
+     */
+    public SensorResampler()
+    {
+        this(DEFAULT_CADENCE, GapFill.LINEAR, DEFAULT_MAX_FILL);
+    }
+
+    /**
+     * Constructor for the SensorResampler class.
+     * @param cadenceMinutes the grid spacing in minutes
+     * @param gapFill how gaps are filled
+     * @param maxFillMinutes the longest gap, in minutes, that is filled
+     * (longer gaps are masked)
+     */
+    public SensorResampler(int cadenceMinutes, GapFill gapFill, int maxFillMinutes)
+    {
+        if (cadenceMinutes <= 0)
+        {
+            //print to console - this isn't a message to be displayed to the user
+            System.out.println("\nCadence provided is <= 0; cadence is " +
+                    "being set to default of " + DEFAULT_CADENCE + " minutes.\n");
+
+            cadenceMinutes = DEFAULT_CADENCE;
+        }
+
+        cadence = cadenceMinutes;
+        fill = gapFill == null ? GapFill.LINEAR : gapFill;
+        maxFill = Math.max(0, maxFillMinutes);
+    }
+
+    /* Methods */
+
+    /**
+     * Resamples a series onto the grid.  The input isn't changed.
+     * @param data the parsed series
+     * @return the resampled series (with a mask if any record was masked),
+     * or data itself if most of its records have no time
+     */
+    public SensorData resample(SensorData data)
+    {
+        gaps = 0;
+        filledRecords = 0;
+        maskedRecords = 0;
+        droppedRecords = 0;
+        outlierRecords = 0;
+
+        long[] times = data.getTimes();
+
+        if (times == null)
+        {
+            return data;
+        }
+
+        int rows = data.rows();
+        int undated = 0;
+
+        for (int r = 0; r < rows; r++)
+        {
+            undated += times[r] == SensorData.NO_TIME ? 1 : 0;
+        }
+
+        //a time/date format that isn't understood would otherwise drop most of the file
+        if (undated * 2 > rows)
+        {
+            //print to console - this isn't a message to be displayed to the user
+            System.out.println("The time/date of " + undated + " of " + rows + " records couldn't be read; " +
+                    "the records are used as read instead of being resampled.");
+
+            return data;
+        }
+
+        int numColumns = data.numColumns();
+        float[][] columns = new float[numColumns][];
+        List<String> intervalTotals = Arrays.asList(INTERVAL_TOTALS);
+        totals = new boolean[numColumns];
+
+        for (int c = 0; c < numColumns; c++)
+        {
+            if (data.getColumn(c) != null)
+            {
+                columns[c] = new float[rows];
+                totals[c] = intervalTotals.contains(SensorSchema.channelOf(data.getHeader()[c]));
+            }
+        }
+
+        SensorData out = new SensorData(data.getHeader(), new long[rows], columns, new float[rows], 0);
+
+        long gridStart = 0;
+        int lastSlot = -1;
+        int lastRow = -1;
+
+        for (int r = 0; r < rows; r++)
+        {
+            long time = times[r];
+
+            if (time == SensorData.NO_TIME)
+            {
+                droppedRecords++;
+                continue;
+            }
+
+            //a time far from the records around it (e.g., a mistyped year) would stretch the grid
+            if (isOutlier(times, r, rows, lastRow < 0 ? SensorData.NO_TIME : times[lastRow]))
+            {
+                droppedRecords++;
+                outlierRecords++;
+                continue;
+            }
+
+            if (lastRow < 0)
+            {
+                gridStart = floorDiv(time, cadence) * cadence;
+            }
+
+            long offset = floorDiv(time - gridStart, cadence);
+
+            if (offset < lastSlot || offset > Integer.MAX_VALUE - 1)
+            {
+                droppedRecords++;
+                continue;
+            }
+
+            int slot = (int) offset;
+
+            if (slot == lastSlot)
+            {
+                //the later record in a slot replaces the earlier one
+                droppedRecords++;
+                copyRecord(data, r, out, slot, 1);
+                lastRow = r;
+                continue;
+            }
+
+            out.ensureCapacity(slot + 1);
+
+            int missing = slot - lastSlot - 1;
+
+            if (lastRow >= 0 && missing > 0)
+            {
+                fillGap(data, lastRow, r, out, lastSlot, missing);
+            }
+
+            copyRecord(data, r, out, slot, 1);
+            lastSlot = slot;
+            lastRow = r;
+        }
+
+        int gridRows = lastSlot + 1;
+        long[] gridTimes = out.getTimes();
+
+        for (int i = 0; i < gridRows; i++)
+        {
+            gridTimes[i] = gridStart + (long) i * cadence;
+        }
+
+        out.setRows(gridRows);
+
+        //print to console - this isn't a message to be displayed to the user
+        System.out.println(stats());
+
+        if (maskedRecords == 0)
+        {
+            //every record was observed or filled
+            float[][] values = new float[numColumns][];
+
+            for (int c = 0; c < numColumns; c++)
+            {
+                values[c] = out.getColumn(c);
+            }
+
+            return new SensorData(out.getHeader(), out.getTimes(), values, null, gridRows);
+        }
+
+        return out;
+    }
+
+    /**
+     * Returns whether a record's time jumps too far from the record before it
+     * without the records after it carrying on from that time.
+     * @param times the record times
+     * @param r the record
+     * @param rows the number of records
+     * @param previous the time of the last record placed on the grid, or
+     * SensorData.NO_TIME if it's the first
+     * @return if the record should be dropped
+     */
+    private boolean isOutlier(long[] times, int r, int rows, long previous)
+    {
+        long from = times[r];
+
+        if (previous != SensorData.NO_TIME && Math.abs(from - previous) <= maxJump)
+        {
+            return false;
+        }
+
+        int confirmed = 0;
+
+        for (int n = r + 1; n < rows && confirmed < CONFIRMATIONS; n++)
+        {
+            if (times[n] == SensorData.NO_TIME)
+            {
+                continue;
+            }
+
+            if (Math.abs(times[n] - from) > maxJump)
+            {
+                return true;
+            }
+
+            from = times[n];
+            confirmed++;
+        }
+
+        //a jump at the very end of the file can't be confirmed
+        return confirmed == 0 && previous != SensorData.NO_TIME;
+    }
+
+    /**
+     * Fills the grid records between two observed records.
+     * @param data the series being resampled
+     * @param before the record before the gap
+     * @param after the record after the gap
+     * @param out the resampled series
+     * @param lastSlot the grid slot of the record before the gap
+     * @param missing the number of grid records in the gap
+     */
+    private void fillGap(SensorData data, int before, int after, SensorData out, int lastSlot, int missing)
+    {
+        gaps++;
+
+        boolean masked = fill == GapFill.MASK || (long) (missing + 1) * cadence > maxFill;
+
+        for (int i = 1; i <= missing; i++)
+        {
+            if (!masked && fill == GapFill.LINEAR)
+            {
+                float t = i / (float) (missing + 1);
+
+                for (int c = 0; c < data.numColumns(); c++)
+                {
+                    if (out.getColumn(c) != null)
+                    {
+                        float a = data.get(c, before);
+                        float b = data.get(c, after);
+
+                        //a missing reading on one side isn't interpolated; the other side is held
+                        if (Float.isNaN(a))
+                        {
+                            a = b;
+                        }
+                        else if (Float.isNaN(b))
+                        {
+                            b = a;
+                        }
+
+                        out.getColumn(c)[lastSlot + i] = a + (b - a) * t;
+                    }
+                }
+
+                out.getMask()[lastSlot + i] = 1;
+            }
+            else
+            {
+                copyRecord(data, before, out, lastSlot + i, masked ? 0 : 1);
+            }
+
+            //nothing was recorded for the gap, so no rain is counted in it
+            for (int c = 0; c < totals.length; c++)
+            {
+                if (totals[c])
+                {
+                    out.getColumn(c)[lastSlot + i] = 0;
+                }
+            }
+        }
+
+        if (masked)
+        {
+            maskedRecords += missing;
+        }
+        else
+        {
+            filledRecords += missing;
+        }
+    }
+
+    /**
+     * Copies a record's values into a grid record.
+     * @param data the series being resampled
+     * @param row the record to copy
+     * @param out the resampled series
+     * @param slot the grid record to write
+     * @param observed the mask value for the grid record
+     */
+    private static void copyRecord(SensorData data, int row, SensorData out, int slot, float observed)
+    {
+        for (int c = 0; c < data.numColumns(); c++)
+        {
+            if (out.getColumn(c) != null)
+            {
+                out.getColumn(c)[slot] = data.get(c, row);
+            }
+        }
+
+        out.getMask()[slot] = observed;
+    }
+
+    /**
+     * Divides, rounding toward negative infinity.
+     * @param x the dividend
+     * @param y the divisor (positive)
+     * @return the floor of x / y
+     */
+    private static long floorDiv(long x, long y)
+    {
+        long q = x / y;
+
+        return (x % y != 0 && x < 0) ? q - 1 : q;
+    }
+
+    /**
+     * Returns a one line summary of the last resample.
+     * @return the resampling statistics
+     */
+    public String stats()
+    {
+        return String.format("Resampled to %d minutes: %d gaps, %d records filled, %d masked, %d dropped " +
+                "(%d out of sequence)", cadence, gaps, filledRecords, maskedRecords, droppedRecords, outlierRecords);
+    }
+
+    /**
+     * Returns the grid spacing.
+     * @return the grid spacing in minutes
+     */
+    public int getCadence()
+    {
+        return cadence;
+    }
+
+    /**
+     * Returns how gaps are filled.
+     * @return the gap fill
+     */
+    public GapFill getGapFill()
+    {
+        return fill;
+    }
+
+    /**
+     * Returns the longest gap that is filled instead of masked.
+     * @return the longest filled gap in minutes
+     */
+    public int getMaxFill()
+    {
+        return maxFill;
+    }
+
+    /**
+     * Sets the largest jump between a record and the one before it that is
+     * kept without the next records carrying on from it.
+     * @param maxJumpMinutes the largest jump in minutes
+     */
+    public void setMaxJump(int maxJumpMinutes)
+    {
+        if (maxJumpMinutes <= 0)
+        {
+            //print to console - this isn't a message to be displayed to the user
+            System.out.println("\nMaximum jump provided is <= 0; maximum jump is being set to default of " +
+                    DEFAULT_MAX_JUMP + " minutes.\n");
+
+            maxJumpMinutes = DEFAULT_MAX_JUMP;
+        }
+
+        maxJump = maxJumpMinutes;
+    }
+
+    /**
+     * Returns the largest jump that is kept without confirmation.
+     * @return the largest jump in minutes
+     */
+    public int getMaxJump()
+    {
+        return maxJump;
+    }
+
+    /**
+     * Returns the number of gaps found by the last resample.
+     * @return the number of gaps
+     */
+    public int getGapCount()
+    {
+        return gaps;
+    }
+
+    /**
+     * Returns the number of grid records filled by the last resample.
+     * @return the number of filled records
+     */
+    public int getFilledCount()
+    {
+        return filledRecords;
+    }
+
+    /**
+     * Returns the number of grid records masked by the last resample.
+     * @return the number of masked records
+     */
+    public int getMaskedCount()
+    {
+        return maskedRecords;
+    }
+
+    /**
+     * Returns the number of records dropped by the last resample.
+     * @return the number of dropped records
+     */
+    public int getDroppedCount()
+    {
+        return droppedRecords;
+    }
+
+    /**
+     * Returns the number of records dropped by the last resample because
+     * their time didn't fit the records around them.
+     * @return the number of out of sequence records
+     */
+    public int getOutlierCount()
+    {
+        return outlierRecords;
+    }
+}
@@ -0,0 +1,624 @@
+/*
+ * File:    SensorSchema.java
+ * Created: October 17, 2026
+ * Author:  agent
+ * Project: Irrigation Recommendation System (IRS)
+ */
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * <p>
+ * The SensorSchema class maps the columns of a sensor csv to the slots of
+ * a DataSet using the csv header.  Each probe port (Port N (VWC), Port N
+ * (EC), Port N (temp)) gets three feature slots, in port order, followed
+ * by rain, relative humidity and ET; the observed column is the label.
+ * Slot 0 is the time/date slot and is always 0, which keeps the layout
+ * of the original 1-3 sensor files (7, 10 or 13 input columns).  Any
+ * number of ports is supported.
+ * </p>
+ *
+ * <p>
+ * Only the columns in the map are parsed.  A model can also name the
+ * channels it uses (e.g., everything but EC on a site where EC is noisy);
+ * the map then only has slots for those channels, and the other columns
+ * are skipped without being decoded.  Derived channels (see
+ * RollingFeatures) can be selected the same way.  If the header doesn't
+ * name any ports or an observed column, the columns are used by position
+ * as before: every column between time/date and the last one is a
+ * feature and the last one is the label.
+ * </p>
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class SensorSchema
+{
+    /* Variables */
+
+    /**
+     * Matches a probe column, e.g., Port 3 (VWC).
+     */
+    private static final Pattern PORT = Pattern.compile("(?i)\\s*port\\s*(\\d+)\\s*\\(\\s*(vwc|ec|temp)\\s*\\)\\s*");
+
+    /**
+     * Matches a derived VWC delta column, e.g., Port 3 vwcdelta (derived).
+     */
+    private static final Pattern DERIVED_DELTA = Pattern.compile("(?i)\\s*port\\s*(\\d+)\\s+vwcdelta \\(derived\\)\\s*");
+
+    /**
+     * The measurements recorded for each port, in slot order.
+     */
+    private static final String[] PORT_MEASUREMENTS = {"vwc", "ec", "temp"};
+
+    /**
+     * The weather measurements, in slot order.
+     */
+    private static final String[] WEATHER = {"rain", "humidity", "et"};
+
+    /**
+     * The number of weather columns (rain, humidity, ET).
+     */
+    private static final int WEATHER_COLUMNS = WEATHER.length;
+
+    /**
+     * Every channel name a model can select.
+     */
+    public static final String[] CHANNELS = {"vwc", "ec", "temp", "rain", "humidity", "et"};
+
+    /**
+     * The title of the label column.
+     */
+    public static final String LABEL = "observed";
+
+    /**
+     * The csv column for each feature slot (-1 for a slot that stays 0).
+     */
+    private int[] featureColumns;
+
+    /**
+     * The csv column of the label.
+     */
+    private int labelColumn;
+
+    /**
+     * The port numbers found in the header, in slot order.
+     */
+    private int[] ports;
+
+    /**
+     * The number of columns in the csv.
+     */
+    private int numColumns;
+
+    /**
+     * The channels in the map, or null for every channel.
+     */
+    private Set<String> channels;
+
+    /**
+     * Csv columns that aren't features but are needed to compute the
+     * selected derived channels (see RollingFeatures).
+     */
+    private int[] sourceColumns = new int[0];
+
+    /* Constructors */
+
+    /**
+     * Default constructor for the SensorSchema class.
+     * @param features the csv column for each feature slot (-1 for none)
+     * @param label the csv column of the label
+     * @param portNumbers the port numbers, in slot order
+     * @param csvColumns the number of columns in the csv
+     */
+    private SensorSchema(int[] features, int label, int[] portNumbers, int csvColumns)
+    {
+        featureColumns = features;
+        labelColumn = label;
+        ports = portNumbers;
+        numColumns = csvColumns;
+    }
+
+    /* Methods */
+
+    /**
+     * Builds the column map for a csv header using every channel.
+     * @param header the column titles
+     * @return the column map
+     */
+    public static SensorSchema fromHeader(String[] header)
+    {
+        return fromHeader(header, null);
+    }
+
+    /**
+     * Builds the column map for a csv header using only some channels.
+     * Derived channels (see RollingFeatures) are only used when selected;
+     * their slots follow the weather slots.
+     * @param header the column titles
+     * @param selected the channels to use (see CHANNELS), or null for every channel
+     * @return the column map
+     */
+    public static SensorSchema fromHeader(String[] header, Set<String> selected)
+    {
+        checkChannels(selected);
+
+        //port number -> csv column of each measurement
+        TreeMap<Integer, int[]> portColumns = new TreeMap<Integer, int[]>();
+        int rain = -1;
+        int humidity = -1;
+        int et = -1;
+        int label = -1;
+
+        //derived channel -> csv column, and port number -> csv column of its VWC delta
+        TreeMap<String, Integer> derived = new TreeMap<String, Integer>();
+        TreeMap<Integer, Integer> deltas = new TreeMap<Integer, Integer>();
+
+        for (int c = 1; c < header.length; c++)
+        {
+            String title = header[c].trim().toLowerCase();
+            Matcher port = PORT.matcher(title);
+            Matcher delta = DERIVED_DELTA.matcher(title);
+
+            if (delta.matches())
+            {
+                deltas.put(Integer.parseInt(delta.group(1)), c);
+            }
+            else if (title.endsWith(RollingFeatures.SUFFIX))
+            {
+                derived.put(title.substring(0, title.length() - RollingFeatures.SUFFIX.length()), c);
+            }
+            else if (port.matches())
+            {
+                int number = Integer.parseInt(port.group(1));
+                int[] measurements = portColumns.get(number);
+
+                if (measurements == null)
+                {
+                    measurements = new int[]{-1, -1, -1};
+                    portColumns.put(number, measurements);
+                }
+
+                for (int m = 0; m < PORT_MEASUREMENTS.length; m++)
+                {
+                    if (PORT_MEASUREMENTS[m].equals(port.group(2)))
+                    {
+                        measurements[m] = c;
+                    }
+                }
+            }
+            else if (title.contains("rain"))
+            {
+                rain = c;
+            }
+            else if (title.contains("hum"))
+            {
+                humidity = c;
+            }
+            else if (title.equals("et") || title.startsWith("et ") || title.startsWith("et("))
+            {
+                et = c;
+            }
+            else if (title.equals(LABEL))
+            {
+                label = c;
+            }
+        }
+
+        if (portColumns.isEmpty() || label < 0)
+        {
+            if (selected != null)
+            {
+                //print to console - this isn't a message to be displayed to the user
+                System.out.println("The csv header doesn't name its channels; every column will be used.");
+            }
+
+            return positional(header.length);
+        }
+
+        List<Integer> features = new ArrayList<Integer>();
+        int[] portNumbers = new int[portColumns.size()];
+        int p = 0;
+
+        //time/date slot stays 0
+        features.add(-1);
+
+        for (Integer number : portColumns.keySet())
+        {
+            portNumbers[p++] = number;
+
+            for (int m = 0; m < PORT_MEASUREMENTS.length; m++)
+            {
+                if (selected == null || selected.contains(PORT_MEASUREMENTS[m]))
+                {
+                    features.add(portColumns.get(number)[m]);
+                }
+            }
+        }
+
+        int[] weather = {rain, humidity, et};
+
+        for (int w = 0; w < WEATHER.length; w++)
+        {
+            if (selected == null || selected.contains(WEATHER[w]))
+            {
+                features.add(weather[w]);
+            }
+        }
+
+        List<Integer> sources = new ArrayList<Integer>();
+
+        //derived slots stay 0 if the derived columns haven't been added yet
+        for (int d = 0; selected != null && d < RollingFeatures.CHANNELS.length; d++)
+        {
+            String channel = RollingFeatures.CHANNELS[d];
+
+            if (!selected.contains(channel))
+            {
+                continue;
+            }
+
+            if (channel.equals(RollingFeatures.VWC_DELTA))
+            {
+                for (Integer number : portColumns.keySet())
+                {
+                    features.add(deltas.containsKey(number) ? deltas.get(number) : -1);
+                    sources.add(portColumns.get(number)[0]);
+                }
+            }
+            else
+            {
+                features.add(derived.containsKey(channel) ? derived.get(channel) : -1);
+                sources.add(channel.equals(RollingFeatures.RAIN_24H) ? rain : et);
+            }
+        }
+
+        int[] slots = new int[features.size()];
+
+        for (int k = 0; k < slots.length; k++)
+        {
+            slots[k] = features.get(k);
+        }
+
+        SensorSchema schema = new SensorSchema(slots, label, portNumbers, header.length);
+        schema.channels = selected;
+        schema.sourceColumns = new int[sources.size()];
+
+        for (int i = 0; i < sources.size(); i++)
+        {
+            schema.sourceColumns[i] = sources.get(i);
+        }
+
+        return schema;
+    }
+
+    /**
+     * Returns the channel a csv column title holds, matched the same way
+     * as in fromHeader.
+     * @param title the column title
+     * @return the channel (see CHANNELS and RollingFeatures.CHANNELS),
+     * LABEL for the label column, or null if the title isn't recognized
+     */
+    public static String channelOf(String title)
+    {
+        title = title.trim().toLowerCase();
+        Matcher port = PORT.matcher(title);
+
+        if (DERIVED_DELTA.matcher(title).matches())
+        {
+            return RollingFeatures.VWC_DELTA;
+        }
+        else if (title.endsWith(RollingFeatures.SUFFIX))
+        {
+            return title.substring(0, title.length() - RollingFeatures.SUFFIX.length());
+        }
+        else if (port.matches())
+        {
+            return port.group(2);
+        }
+        else if (title.contains("rain"))
+        {
+            return "rain";
+        }
+        else if (title.contains("hum"))
+        {
+            return "humidity";
+        }
+        else if (title.equals("et") || title.startsWith("et ") || title.startsWith("et("))
+        {
+            return "et";
+        }
+        else if (title.equals(LABEL))
+        {
+            return LABEL;
+        }
+
+        return null;
+    }
+
+    /**
+     * Makes sure every selected channel is one of CHANNELS.
+     * @param selected the selected channels, or null
+     */
+    public static void checkChannels(Set<String> selected)
+    {
+        if (selected == null)
+        {
+            return;
+        }
+
+        for (String channel : selected)
+        {
+            if (!Arrays.asList(CHANNELS).contains(channel) && !Arrays.asList(RollingFeatures.CHANNELS).contains(channel))
+            {
+                throw new IllegalArgumentException("Unknown channel " + channel + "; channels are " +
+                        Arrays.toString(CHANNELS) + " and " + Arrays.toString(RollingFeatures.CHANNELS) + ".");
+            }
+        }
+    }
+
+    /**
+     * Parses a comma separated list of channels (e.g., "vwc,temp,rain").
+     * @param list the channel list, or null/empty for every channel
+     * @return the channels, or null for every channel
+     */
+    public static Set<String> parseChannels(String list)
+    {
+        if (list == null || list.trim().isEmpty())
+        {
+            return null;
+        }
+
+        Set<String> selected = new TreeSet<String>();
+
+        for (String channel : list.split(","))
+        {
+            if (!channel.trim().isEmpty())
+            {
+                selected.add(channel.trim().toLowerCase());
+            }
+        }
+
+        checkChannels(selected);
+
+        return selected;
+    }
+
+    /**
+     * Builds the column map used when the header isn't recognized: every
+     * column between time/date and the last one is a feature, in csv order,
+     * and the last column is the label.
+     * @param csvColumns the number of columns in the csv
+     * @return the column map
+     */
+    public static SensorSchema positional(int csvColumns)
+    {
+        int[] features = new int[Math.max(1, csvColumns - 1)];
+
+        features[0] = -1;
+
+        for (int k = 1; k < features.length; k++)
+        {
+            features[k] = k;
+        }
+
+        int numPorts = Math.max(0, (features.length - 1 - WEATHER_COLUMNS) / PORT_MEASUREMENTS.length);
+        int[] portNumbers = new int[numPorts];
+
+        for (int p = 0; p < numPorts; p++)
+        {
+            portNumbers[p] = p + 1;
+        }
+
+        return new SensorSchema(features, csvColumns - 1, portNumbers, csvColumns);
+    }
+
+    /**
+     * Returns the number of input columns used for a number of ports (the
+     * time/date slot, three slots per port and the weather slots).
+     * @param numPorts the number of probe ports
+     * @return the number of input columns
+     */
+    public static int inputColumnsFor(int numPorts)
+    {
+        return 1 + PORT_MEASUREMENTS.length * numPorts + WEATHER_COLUMNS;
+    }
+
+    /**
+     * Reads the column map from the header of the data a path refers to
+     * (the first csv of a directory, glob or zip archive).
+     * @param path a csv, zip, directory, or glob in the file name
+     * @return the column map, or null if no header could be read
+     */
+    public static SensorSchema read(String path)
+    {
+        List<File> files = SensorSource.resolve(path);
+
+        if (files.isEmpty())
+        {
+            return null;
+        }
+
+        File file = files.get(0);
+
+        try
+        {
+            String line = null;
+
+            if (file.getName().toLowerCase().endsWith(".zip"))
+            {
+                ZipFile zip = new ZipFile(file);
+
+                try
+                {
+                    Enumeration<? extends ZipEntry> entries = zip.entries();
+
+                    while (line == null && entries.hasMoreElements())
+                    {
+                        ZipEntry entry = entries.nextElement();
+
+                        if (!entry.isDirectory() && entry.getName().toLowerCase().endsWith(".csv"))
+                        {
+                            line = firstLine(new BufferedReader(new InputStreamReader(zip.getInputStream(entry), "UTF-8")));
+                        }
+                    }
+                }
+                finally
+                {
+                    zip.close();
+                }
+            }
+            else
+            {
+                line = firstLine(new BufferedReader(new FileReader(file)));
+            }
+
+            return line == null ? null : fromHeader(line.split(",", -1));
+        }
+        catch (IOException e)
+        {
+            //print to console - this isn't a message to be displayed to the user
+            System.out.println("Caught IOException: could not read the header of " + file.getPath());
+
+            return null;
+        }
+    }
+
+    /**
+     * Reads the first line from a reader and closes it.
+     * @param br the reader
+     * @return the first line, or null if there isn't one
+     * @throws IOException if the reader fails
+     */
+    private static String firstLine(BufferedReader br) throws IOException
+    {
+        try
+        {
+            return br.readLine();
+        }
+        finally
+        {
+            br.close();
+        }
+    }
+
+    /**
+     * Returns which csv columns need to be parsed.
+     * @return true for each csv column used as a feature, the label, or
+     * the source of a selected derived channel
+     */
+    public boolean[] usedColumns()
+    {
+        boolean[] used = new boolean[numColumns];
+
+        for (int column : featureColumns)
+        {
+            if (column >= 0 && column < numColumns)
+            {
+                used[column] = true;
+            }
+        }
+
+        for (int column : sourceColumns)
+        {
+            if (column >= 0 && column < numColumns)
+            {
+                used[column] = true;
+            }
+        }
+
+        if (labelColumn >= 0 && labelColumn < numColumns)
+        {
+            used[labelColumn] = true;
+        }
+
+        return used;
+    }
+
+    /**
+     * Returns the number of input columns (feature slots).
+     * @return the number of input columns
+     */
+    public int inputColumns()
+    {
+        return featureColumns.length;
+    }
+
+    /**
+     * Returns the csv column for a feature slot.
+     * @param slot the feature slot
+     * @return the csv column, or -1 if the slot stays 0
+     */
+    public int getFeatureColumn(int slot)
+    {
+        return featureColumns[slot];
+    }
+
+    /**
+     * Returns the csv column of the label.
+     * @return the csv column of the label
+     */
+    public int getLabelColumn()
+    {
+        return labelColumn;
+    }
+
+    /**
+     * Returns the channels in the map.
+     * @return the selected channels, or null for every channel
+     */
+    public Set<String> getChannels()
+    {
+        return channels;
+    }
+
+    /**
+     * Returns the number of probe ports.
+     * @return the number of ports
+     */
+    public int getPortCount()
+    {
+        return ports.length;
+    }
+
+    /**
+     * Returns the port numbers, in slot order.
+     * @return the port numbers
+     */
+    public int[] getPorts()
+    {
+        return ports;
+    }
+
+    /**
+     * Returns a one line description of the column map.
+     * @return the description
+     */
+    public String toString()
+    {
+        List<String> slots = new ArrayList<String>();
+
+        for (int column : featureColumns)
+        {
+            slots.add(String.valueOf(column));
+        }
+
+        return String.format("%d ports, channels %s, %d input columns (csv columns %s), label column %d",
+                ports.length, channels == null ? "all" : channels, featureColumns.length, slots, labelColumn);
+    }
+}
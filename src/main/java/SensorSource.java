@@ -0,0 +1,635 @@
+/*
+ * File:    SensorSource.java
+ * Created: October 17, 2026
+ * Author:  agent
+ * Project: Irrigation Recommendation System (IRS)
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.FileSystems;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * <p>
+ * The SensorSource class loads sensor data from a single csv, a zip
+ * archive of csvs, a directory (every csv and zip in it), or a glob in the
+ * file name part of a path (e.g., /data/field7/2017-*.csv).  The files are
+ * read in parallel and kept as one sequence per csv, ordered by their first
+ * timestamp.  Files that follow each other in time are joined into one
+ * time-ordered SensorData; files that overlap in time (e.g., one per
+ * field) are kept as separate series.  Nothing is concatenated on disk.
+ * </p>
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class SensorSource
+{
+    /* Variables */
+
+    /**
+     * The path, directory or glob the data was loaded from.
+     */
+    private String location;
+
+    /**
+     * The loaded sequences, one per csv, ordered by first timestamp.
+     */
+    private List<SensorData> sequences;
+
+    /**
+     * The name of each sequence (file name, or archive!entry for zips).
+     */
+    private List<String> names;
+
+    /**
+     * The channels to load (see SensorSchema), or null for every channel.
+     */
+    private Set<String> channels;
+
+    /* Constructors */
+
+    /**
+     * Default constructor for the SensorSource class; loads every csv that
+     * the location refers to.
+     * @param path a csv, zip, directory, or glob in the file name
+     * @throws IOException if no csv could be found or one can't be read
+     */
+    public SensorSource(String path) throws IOException
+    {
+        this(path, null);
+    }
+
+    /**
+     * Constructor for the SensorSource class that only loads some channels
+     * of each csv.
+     * @param path a csv, zip, directory, or glob in the file name
+     * @param selected the channels to load, or null for every channel
+     * @throws IOException if no csv could be found or one can't be read
+     */
+    public SensorSource(String path, Set<String> selected) throws IOException
+    {
+        SensorSchema.checkChannels(selected);
+
+        location = path;
+        channels = selected;
+        sequences = new ArrayList<SensorData>();
+        names = new ArrayList<String>();
+
+        List<File> files = resolve(path);
+
+        if (files.isEmpty())
+        {
+            throw new IOException("No csv or zip files found at " + path);
+        }
+
+        load(files);
+    }
+
+    /* Methods */
+
+    /**
+     * Returns the csv and zip files a location refers to.
+     * @param path a csv, zip, directory, or glob in the file name
+     * @return the matching files, sorted by name
+     */
+    public static List<File> resolve(String path)
+    {
+        File file = new File(path);
+        List<File> files = new ArrayList<File>();
+
+        if (file.isFile())
+        {
+            files.add(file);
+        }
+        else if (file.isDirectory())
+        {
+            addMatches(file, "*.{csv,zip}", files);
+        }
+        else if (file.getParentFile() != null && file.getParentFile().isDirectory())
+        {
+            addMatches(file.getParentFile(), file.getName(), files);
+        }
+        else if (file.getParentFile() == null)
+        {
+            addMatches(new File("."), path, files);
+        }
+
+        Collections.sort(files);
+
+        return files;
+    }
+
+    /**
+     * Adds the csv and zip files in a directory whose names match a glob.
+     * @param dir the directory to search
+     * @param glob the glob for the file names
+     * @param files the list matching files are added to
+     */
+    private static void addMatches(File dir, String glob, List<File> files)
+    {
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + glob);
+        File[] children = dir.listFiles();
+
+        if (children == null)
+        {
+            return;
+        }
+
+        for (File child : children)
+        {
+            String name = child.getName().toLowerCase();
+
+            if (child.isFile() && matcher.matches(child.toPath().getFileName())
+                    && (name.endsWith(".csv") || name.endsWith(".zip")))
+            {
+                files.add(child);
+            }
+        }
+    }
+
+    /**
+     * Loads the files in parallel, one thread per core; each file is parsed
+     * on a single thread so the files themselves are the unit of parallelism.
+     * @param files the csv and zip files to load
+     * @throws IOException if a file can't be read
+     */
+    private void load(List<File> files) throws IOException
+    {
+        int threads = Math.min(files.size(), Runtime.getRuntime().availableProcessors());
+
+        //a single file gets every core for parsing instead
+        final int parseThreads = files.size() == 1 ? Runtime.getRuntime().availableProcessors() : 1;
+        final Set<String> selected = channels;
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<List<Sequence>>> results = new ArrayList<Future<List<Sequence>>>();
+
+        try
+        {
+            for (final File file : files)
+            {
+                results.add(pool.submit(new Callable<List<Sequence>>()
+                {
+                    public List<Sequence> call() throws IOException
+                    {
+                        return file.getName().toLowerCase().endsWith(".zip") ? loadZip(file, selected) : loadCsv(file, parseThreads, selected);
+                    }
+                }));
+            }
+
+            List<Sequence> loaded = new ArrayList<Sequence>();
+
+            for (Future<List<Sequence>> result : results)
+            {
+                loaded.addAll(result.get());
+            }
+
+            //order by first timestamp, then by name
+            Collections.sort(loaded, new Comparator<Sequence>()
+            {
+                public int compare(Sequence a, Sequence b)
+                {
+                    if (a.firstTime != b.firstTime)
+                    {
+                        return a.firstTime < b.firstTime ? -1 : 1;
+                    }
+
+                    return a.name.compareTo(b.name);
+                }
+            });
+
+            for (Sequence sequence : loaded)
+            {
+                sequences.add(sequence.data);
+                names.add(sequence.name);
+
+                //print to console - this isn't a message to be displayed to the user
+                System.out.println("Loaded " + sequence.data.rows() + " records from " + sequence.name);
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading " + location);
+        }
+        catch (ExecutionException e)
+        {
+            if (e.getCause() instanceof IOException)
+            {
+                throw (IOException) e.getCause();
+            }
+
+            throw new IOException("Error loading " + location + ": " + e.getCause());
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Loads a single csv (through the sidecar cache).
+     * @param file the csv file
+     * @param threads the number of threads to parse with
+     * @param selected the channels to load, or null for every channel
+     * @return the loaded sequence
+     * @throws IOException if the file can't be read
+     */
+    private static List<Sequence> loadCsv(File file, int threads, Set<String> selected) throws IOException
+    {
+        return Collections.singletonList(new Sequence(file.getName(), SensorDataCache.load(file, threads, selected)));
+    }
+
+    /**
+     * Loads every csv in a zip archive.
+     * @param file the zip file
+     * @param selected the channels to load, or null for every channel
+     * @return the loaded sequences
+     * @throws IOException if the archive can't be read
+     */
+    private static List<Sequence> loadZip(File file, Set<String> selected) throws IOException
+    {
+        List<Sequence> loaded = new ArrayList<Sequence>();
+        ZipFile zip = new ZipFile(file);
+
+        try
+        {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+
+            while (entries.hasMoreElements())
+            {
+                ZipEntry entry = entries.nextElement();
+
+                if (entry.isDirectory() || !entry.getName().toLowerCase().endsWith(".csv"))
+                {
+                    continue;
+                }
+
+                byte[] bytes = readFully(zip.getInputStream(entry), entry.getSize());
+
+                loaded.add(new Sequence(file.getName() + "!" + entry.getName(),
+                        SensorCsvParser.parse(ByteBuffer.wrap(bytes), 1, selected)));
+            }
+        }
+        finally
+        {
+            zip.close();
+        }
+
+        return loaded;
+    }
+
+    /**
+     * Reads a stream to the end.
+     * @param in the stream to read (closed when done)
+     * @param size the expected size, or -1 if unknown
+     * @return the bytes read
+     * @throws IOException if the stream can't be read
+     */
+    private static byte[] readFully(InputStream in, long size) throws IOException
+    {
+        try
+        {
+            byte[] bytes = new byte[size > 0 ? (int) size : 1 << 16];
+            int length = 0;
+            int n;
+
+            while ((n = in.read(bytes, length, bytes.length - length)) != -1)
+            {
+                length += n;
+
+                if (length == bytes.length)
+                {
+                    int next = in.read();
+
+                    if (next == -1)
+                    {
+                        break;
+                    }
+
+                    bytes = Arrays.copyOf(bytes, bytes.length * 2);
+                    bytes[length++] = (byte) next;
+                }
+            }
+
+            return length == bytes.length ? bytes : Arrays.copyOf(bytes, length);
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+
+    /**
+     * Returns the time of the first record that has one.
+     * @param data the parsed csv
+     * @return the first time in epoch minutes, or Long.MAX_VALUE if there
+     * isn't one
+     */
+    private static long firstTime(SensorData data)
+    {
+        long[] times = data.getTimes();
+
+        for (int r = 0; times != null && r < data.rows(); r++)
+        {
+            if (times[r] != SensorData.NO_TIME)
+            {
+                return times[r];
+            }
+        }
+
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * Returns the latest time in a parsed csv.
+     * @param data the parsed csv
+     * @return the latest record time, or Long.MIN_VALUE if no record has one
+     */
+    private static long lastTime(SensorData data)
+    {
+        long[] times = data.getTimes();
+        long last = Long.MIN_VALUE;
+
+        for (int r = 0; times != null && r < data.rows(); r++)
+        {
+            if (times[r] != SensorData.NO_TIME && times[r] > last)
+            {
+                last = times[r];
+            }
+        }
+
+        return last;
+    }
+
+    /**
+     * Returns the loaded sequences, one per csv, ordered by first timestamp.
+     * @return the sequences
+     */
+    public List<SensorData> getSequences()
+    {
+        return sequences;
+    }
+
+    /**
+     * Returns the name of each sequence (same order as getSequences).
+     * @return the sequence names
+     */
+    public List<String> getNames()
+    {
+        return names;
+    }
+
+    /**
+     * Returns every sequence as one time-ordered SensorData, for files that
+     * follow each other in time (e.g., one field's data split by year).  If
+     * there's only one sequence it's returned as is; otherwise the columns
+     * are copied into new arrays.  Every csv must have the same columns.
+     * @return the merged data
+     * @throws IllegalArgumentException if two files overlap in time (e.g.,
+     * two fields' data), since their readings can't form one series; use
+     * series() for those
+     */
+    public SensorData merged()
+    {
+        //the sequences are ordered by first time, so each must start after every earlier one ends
+        int latest = 0;
+
+        for (int i = 1; i < sequences.size(); i++)
+        {
+            if (lastTime(sequences.get(latest)) >= firstTime(sequences.get(i)))
+            {
+                throw new IllegalArgumentException(names.get(latest) + " and " + names.get(i) + " overlap in " +
+                        "time (e.g., they're from different fields), so they can't be merged into one series.");
+            }
+
+            latest = lastTime(sequences.get(i)) > lastTime(sequences.get(latest)) ? i : latest;
+        }
+
+        List<Integer> all = new ArrayList<Integer>();
+
+        for (int i = 0; i < sequences.size(); i++)
+        {
+            all.add(i);
+        }
+
+        return join(all);
+    }
+
+    /**
+     * Returns the sequences joined into as few time-ordered series as
+     * possible.  A file is joined after one that ends before it starts
+     * (preferring the file whose name shares the longest prefix with it,
+     * e.g., field7-2017.csv before field7-2018.csv); files that overlap in
+     * time (e.g., two fields) are kept in separate series, which can be
+     * trained on together (see IRSFunctions.addSeries).
+     * @return the series, the one with the earliest record first
+     */
+    public List<SensorData> series()
+    {
+        List<List<Integer>> chains = new ArrayList<List<Integer>>();
+        long[] ends = new long[sequences.size()];
+
+        for (int i = 0; i < sequences.size(); i++)
+        {
+            ends[i] = lastTime(sequences.get(i));
+        }
+
+        for (int i = 0; i < sequences.size(); i++)
+        {
+            List<Integer> best = null;
+            int bestPrefix = -1;
+
+            for (List<Integer> chain : chains)
+            {
+                int last = chain.get(chain.size() - 1);
+                int prefix = commonPrefix(names.get(last), names.get(i));
+
+                if (ends[last] < firstTime(sequences.get(i)) && prefix > bestPrefix)
+                {
+                    best = chain;
+                    bestPrefix = prefix;
+                }
+            }
+
+            if (best == null)
+            {
+                best = new ArrayList<Integer>();
+                chains.add(best);
+            }
+
+            best.add(i);
+        }
+
+        List<SensorData> series = new ArrayList<SensorData>();
+
+        for (List<Integer> chain : chains)
+        {
+            if (chains.size() > 1)
+            {
+                StringBuilder files = new StringBuilder();
+
+                for (int i : chain)
+                {
+                    files.append(files.length() == 0 ? "" : ", ").append(names.get(i));
+                }
+
+                //print to console - this isn't a message to be displayed to the user
+                System.out.println("Series " + (series.size() + 1) + " of " + chains.size() + ": " + files);
+            }
+
+            series.add(join(chain));
+        }
+
+        return series;
+    }
+
+    /**
+     * Joins sequences end to end.
+     * @param chain the indexes of the sequences, in time order
+     * @return the joined data (the sequence itself if there's only one)
+     */
+    private SensorData join(List<Integer> chain)
+    {
+        SensorData first = sequences.get(chain.get(0));
+
+        if (chain.size() == 1)
+        {
+            return first;
+        }
+
+        int rows = 0;
+
+        for (int i : chain)
+        {
+            if (!Arrays.equals(first.getHeader(), sequences.get(i).getHeader()))
+            {
+                throw new IllegalArgumentException("The columns in " + names.get(i) +
+                        " don't match the columns in " + names.get(chain.get(0)) + ".");
+            }
+
+            rows += sequences.get(i).rows();
+        }
+
+        float[][] columns = new float[first.numColumns()][];
+        long[] times = new long[rows];
+        int offset = 0;
+
+        for (int i : chain)
+        {
+            SensorData sequence = sequences.get(i);
+
+            if (sequence.getTimes() != null)
+            {
+                System.arraycopy(sequence.getTimes(), 0, times, offset, sequence.rows());
+            }
+            else
+            {
+                Arrays.fill(times, offset, offset + sequence.rows(), SensorData.NO_TIME);
+            }
+
+            offset += sequence.rows();
+        }
+
+        for (int c = 0; c < columns.length; c++)
+        {
+            if (first.getColumn(c) == null)
+            {
+                continue;
+            }
+
+            columns[c] = new float[rows];
+            offset = 0;
+
+            for (int i : chain)
+            {
+                SensorData sequence = sequences.get(i);
+
+                System.arraycopy(sequence.getColumn(c), 0, columns[c], offset, sequence.rows());
+                offset += sequence.rows();
+            }
+        }
+
+        return new SensorData(first.getHeader(), times, columns, null, rows);
+    }
+
+    /**
+     * Returns the length of the prefix two names share.
+     * @param a the first name
+     * @param b the second name
+     * @return the number of leading characters that match
+     */
+    private static int commonPrefix(String a, String b)
+    {
+        int n = 0;
+
+        while (n < a.length() && n < b.length() && a.charAt(n) == b.charAt(n))
+        {
+            n++;
+        }
+
+        return n;
+    }
+
+    /**
+     * Returns where the data was loaded from.
+     * @return the path, directory or glob
+     */
+    public String getLocation()
+    {
+        return location;
+    }
+
+    /* Private Classes */
+
+    /**
+     * A loaded csv along with its name and first timestamp.
+     */
+    private static class Sequence
+    {
+        /**
+         * The file (or archive entry) name.
+         */
+        private final String name;
+
+        /**
+         * The timestamp of the first record (used for ordering).
+         */
+        private final long firstTime;
+
+        /**
+         * The parsed csv.
+         */
+        private final SensorData data;
+
+        /**
+         * Default constructor for the Sequence class.
+         * @param sequenceName the file (or archive entry) name
+         * @param parsed the parsed csv
+         */
+        private Sequence(String sequenceName, SensorData parsed)
+        {
+            name = sequenceName;
+            firstTime = firstTime(parsed);
+            data = parsed;
+        }
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ * File:    SensorTail.java
+ * Created: October 17, 2026
+ * Author:  agent
+ * Project: Irrigation Recommendation System (IRS)
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Set;
+
+/**
+ * <p>
+ * The SensorTail class follows a sensor csv that a logger keeps appending
+ * to.  The whole file is parsed once; after that, poll() parses only the
+ * bytes added since the last call and appends the new rows to the same
+ * SensorData, so a refresh costs time in proportion to the new rows.
+ * </p>
+ *
+ * <p>
+ * A last line without a newline (e.g., one the logger is still writing)
+ * is parsed but kept provisional: the next poll parses it again from the
+ * start of the line and replaces the row.  If the file gets shorter (e.g.,
+ * it was rotated or rewritten), it is parsed again from the start.
+ * </p>
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class SensorTail
+{
+    /* Variables */
+
+    /**
+     * The csv file being followed.
+     */
+    private File file;
+
+    /**
+     * The rows parsed so far.
+     */
+    private SensorData data;
+
+    /**
+     * The byte offset of the first line that hasn't been parsed for good.
+     */
+    private long offset;
+
+    /**
+     * The number of rows (0 or 1) parsed from an unterminated last line.
+     */
+    private int provisionalRows;
+
+    /**
+     * The file length at the last poll.
+     */
+    private long lastSize;
+
+    /**
+     * The channels to parse (see SensorSchema), or null for every channel.
+     */
+    private Set<String> channels;
+
+    /* Constructors */
+
+    /**
+     * Default constructor for the SensorTail class; parses the whole file.
+     * @param csv the csv file to follow
+     * @throws IOException if the file can't be read
+     */
+    public SensorTail(File csv) throws IOException
+    {
+        this(csv, null);
+    }
+
+    /**
+     * Constructor for the SensorTail class that only parses some channels.
+     * @param csv the csv file to follow
+     * @param selected the channels to parse, or null for every channel
+     * @throws IOException if the file can't be read
+     */
+    public SensorTail(File csv, Set<String> selected) throws IOException
+    {
+        file = csv;
+        channels = selected;
+        reload();
+    }
+
+    /* Methods */
+
+    /**
+     * Parses the whole file again and finds where the unparsed bytes start.
+     * @throws IOException if the file can't be read
+     */
+    public void reload() throws IOException
+    {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+
+        try
+        {
+            FileChannel channel = raf.getChannel();
+            long size = channel.size();
+
+            data = SensorCsvParser.parse(file, Runtime.getRuntime().availableProcessors(), channels);
+            offset = lastLineStart(channel, size);
+            provisionalRows = offset > 0 && offset < size
+                    ? SensorCsvParser.countRows(channel.map(FileChannel.MapMode.READ_ONLY, offset, size - offset), 0, (int) (size - offset))
+                    : 0;
+            lastSize = size;
+        }
+        finally
+        {
+            raf.close();
+        }
+    }
+
+    /**
+     * Parses any rows appended since the last poll.
+     * @return the change in the number of rows
+     * @throws IOException if the file can't be read
+     */
+    public int poll() throws IOException
+    {
+        int before = data.rows();
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+
+        try
+        {
+            FileChannel channel = raf.getChannel();
+            long size = channel.size();
+
+            if (size == lastSize)
+            {
+                return 0;
+            }
+
+            //a shorter file (or one that had no complete header line) is read from the start
+            if (size < lastSize || offset == 0)
+            {
+                raf.close();
+                reload();
+
+                return data.rows() - before;
+            }
+
+            ByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, offset, size - offset);
+            int end = region.limit();
+            int firstRow = before - provisionalRows;
+            int newRows = SensorCsvParser.countRows(region, 0, end);
+
+            data.ensureCapacity(firstRow + newRows);
+
+            float[][] columns = new float[data.numColumns()][];
+
+            for (int c = 0; c < columns.length; c++)
+            {
+                columns[c] = data.getColumn(c);
+            }
+
+            new SensorCsvParser().parseRows(region, 0, end, data.getTimes(), columns, firstRow);
+            data.setRows(firstRow + newRows);
+
+            //anything after the last newline is parsed again next time
+            int lastStart = end;
+
+            while (lastStart > 0 && region.get(lastStart - 1) != '\n')
+            {
+                lastStart--;
+            }
+
+            provisionalRows = SensorCsvParser.countRows(region, lastStart, end);
+            offset += lastStart;
+            lastSize = size;
+
+            return data.rows() - before;
+        }
+        finally
+        {
+            raf.close();
+        }
+    }
+
+    /**
+     * Returns the byte offset just past the last newline in the file (the
+     * start of an unterminated last line, or the end of the file).
+     * @param channel the file's channel
+     * @param size the file length
+     * @return the offset of the last line's start, or 0 if there's no newline
+     * @throws IOException if the file can't be read
+     */
+    private static long lastLineStart(FileChannel channel, long size) throws IOException
+    {
+        long end = size;
+
+        while (end > 0)
+        {
+            long start = Math.max(0, end - (1 << 16));
+            ByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+
+            for (int i = window.limit() - 1; i >= 0; i--)
+            {
+                if (window.get(i) == '\n')
+                {
+                    return start + i + 1;
+                }
+            }
+
+            end = start;
+        }
+
+        return 0;
+    }
+
+    /**
+     * Returns the rows parsed so far.  The same object is updated by poll.
+     * @return the parsed rows
+     */
+    public SensorData getData()
+    {
+        return data;
+    }
+
+    /**
+     * Returns the csv file being followed.
+     * @return the csv file
+     */
+    public File getFile()
+    {
+        return file;
+    }
+
+    /**
+     * Returns the channels being parsed.
+     * @return the channels, or null for every channel
+     */
+    public Set<String> getChannels()
+    {
+        return channels;
+    }
+
+    /**
+     * Returns the byte offset of the first line that will be parsed by the
+     * next poll.
+     * @return the byte offset
+     */
+    public long getOffset()
+    {
+        return offset;
+    }
+}
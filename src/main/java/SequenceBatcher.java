@@ -0,0 +1,712 @@
+/*
+ * File:    SequenceBatcher.java
+ * Created: October 17, 2026
+ * Author:  agent
+ * Project: Irrigation Recommendation System (IRS)
+ */
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.dataset.api.DataSetPreProcessor;
+import org.nd4j.linalg.dataset.api.iterator.DataSetIterator;
+import org.nd4j.linalg.dataset.api.preprocessor.NormalizerMinMaxScaler;
+import org.nd4j.linalg.factory.Nd4j;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>
+ * The SequenceBatcher class packs training windows from one or more
+ * series (e.g., the csv files of several fields) into DataSets of
+ * [batch, features, time], so each fit works on many sequences at once
+ * instead of one.  Windows are dealt out round-robin across the series,
+ * so a batch mixes fields, and the last batch of a pass holds whatever
+ * windows are left rather than dropping them.
+ * </p>
+ *
+ * <p>
+ * Every series must have the same input columns and example length.
+ * Windows are copied straight from the parsed columns into pooled 'f'
+ * order buffers and each batch is normalized once.  With more than one
+ * series the normalizer is the union of the series' min/max, and it's
+ * set on every series so inference uses the same scaling.
+ * </p>
+ *
+ * <p>
+ * In variable-length mode (see setVariableLength) the records left over
+ * after each series' last full window, and series shorter than one
+ * window, are batched too.  Short windows are sorted by length so each
+ * batch holds windows of similar length; a batch is only as long as its
+ * longest window and the padding after shorter ones is masked out of
+ * the loss.
+ * </p>
+ *
+ * <p>
+ * A range (see setRange) limits the windows to part of each series, e.g.,
+ * training on the first 80% of the records and evaluating on the rest,
+ * and partition splits the windows between threads.
+ * </p>
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class SequenceBatcher implements DataSetIterator
+{
+    /* Variables */
+
+    /**
+     * The series the windows are read from.
+     */
+    private final List<IRSIterator> series;
+
+    /**
+     * The number of windows in a batch.
+     */
+    private final int batchSize;
+
+    /**
+     * The number of records in a window.
+     */
+    private final int exampleLength;
+
+    /**
+     * The series of each window, in the order they're batched.
+     */
+    private int[] windowSeries;
+
+    /**
+     * The first record of each window, in the order they're batched.
+     */
+    private int[] windowStarts;
+
+    /**
+     * The number of records in each window, in the order they're batched.
+     */
+    private int[] windowLengths;
+
+    /**
+     * The shortest leftover window batched (0 = only full windows).
+     */
+    private int minLength;
+
+    /**
+     * The start of the records used, as a fraction of each series.
+     */
+    private double rangeFrom = 0;
+
+    /**
+     * The end of the records used, as a fraction of each series.
+     */
+    private double rangeTo = 1;
+
+    /**
+     * Whether windows start every stride records (see IRSIterator.setStride)
+     * rather than one example apart.
+     */
+    private boolean overlapping = true;
+
+    /**
+     * The number of padding records in a pass.
+     */
+    private long paddedRecords;
+
+    /**
+     * The number of data records in a pass.
+     */
+    private long dataRecords;
+
+    /**
+     * If any series has a mask.
+     */
+    private boolean hasMask;
+
+    /**
+     * If every batch gets a mask (a series has one, or windows are padded).
+     */
+    private boolean masked;
+
+    /**
+     * The next window to batch.
+     */
+    private int position;
+
+    /**
+     * Staging buffers, keyed by the number of windows in the batch.
+     */
+    private Map<Long, float[][]> bufferPool = new HashMap<Long, float[][]>();
+
+    /**
+     * The normalizer applied to each batch.
+     */
+    private NormalizerMinMaxScaler normalizer;
+
+    /* Constructors */
+
+    /**
+     * Constructor for the SequenceBatcher class that batches the windows
+     * of one series.
+     * @param iterator the series
+     * @param size the number of windows in a batch
+     */
+    public SequenceBatcher(IRSIterator iterator, int size)
+    {
+        this(Collections.singletonList(iterator), size);
+    }
+
+    /**
+     * Default constructor for the SequenceBatcher class.
+     * @param iterators the series; if there are several, each one's
+     * preProcessor is replaced by the shared normalizer
+     * @param size the number of windows in a batch
+     */
+    public SequenceBatcher(List<IRSIterator> iterators, int size)
+    {
+        if (iterators.isEmpty())
+        {
+            throw new IllegalArgumentException("No series to batch.");
+        }
+
+        if (size <= 0)
+        {
+            //print to console - this isn't a message to be displayed to the user
+            System.out.println("\nBatch size provided is <= 0; batch size is being set to default of 32.\n");
+
+            size = 32;
+        }
+
+        series = new ArrayList<IRSIterator>(iterators);
+        batchSize = size;
+        exampleLength = series.get(0).numExamples();
+
+        for (IRSIterator s : series)
+        {
+            if (s.inputColumns() != series.get(0).inputColumns() || s.numExamples() != exampleLength)
+            {
+                throw new IllegalArgumentException("Every series must have the same input columns and example length.");
+            }
+
+            hasMask |= s.getData() != null && s.getData().getMask() != null;
+        }
+
+        normalizer = series.size() == 1 ? series.get(0).getPreProcessor() : sharedNormalizer();
+
+        listWindows();
+    }
+
+    /**
+     * Constructor for a SequenceBatcher over part of another's windows.
+     * @param whole the batcher to take the windows from
+     * @param from the first window
+     * @param to the window after the last
+     */
+    private SequenceBatcher(SequenceBatcher whole, int from, int to)
+    {
+        series = whole.series;
+        batchSize = whole.batchSize;
+        exampleLength = whole.exampleLength;
+        normalizer = whole.normalizer;
+        masked = whole.masked;
+        hasMask = whole.hasMask;
+        minLength = whole.minLength;
+        rangeFrom = whole.rangeFrom;
+        rangeTo = whole.rangeTo;
+
+        windowSeries = Arrays.copyOfRange(whole.windowSeries, from, to);
+        windowStarts = Arrays.copyOfRange(whole.windowStarts, from, to);
+        windowLengths = Arrays.copyOfRange(whole.windowLengths, from, to);
+
+        for (int w = 0; w < windowLengths.length; w++)
+        {
+            dataRecords += windowLengths[w];
+            paddedRecords += windowLengths[w - w % batchSize] - windowLengths[w];
+        }
+    }
+
+    /* Methods */
+
+    /**
+     * Builds a normalizer covering every series' min/max and sets it on
+     * each series.
+     * @return the shared normalizer
+     */
+    private NormalizerMinMaxScaler sharedNormalizer()
+    {
+        float[] min = null;
+        float[] max = null;
+
+        for (IRSIterator s : series)
+        {
+            float[] lo = s.getPreProcessor().getMin().data().asFloat();
+            float[] hi = s.getPreProcessor().getMax().data().asFloat();
+
+            if (min == null)
+            {
+                min = lo;
+                max = hi;
+
+                continue;
+            }
+
+            for (int k = 0; k < min.length; k++)
+            {
+                min[k] = Math.min(min[k], lo[k]);
+                max[k] = Math.max(max[k], hi[k]);
+            }
+        }
+
+        NormalizerMinMaxScaler shared = new NormalizerMinMaxScaler(-10, 10);
+        shared.fitLabel(false);
+        shared.setFeatureStats(Nd4j.create(min), Nd4j.create(max));
+
+        for (IRSIterator s : series)
+        {
+            s.setNormalizer(shared);
+        }
+
+        return shared;
+    }
+
+    /**
+     * Lists every window of every series, dealt out round-robin, followed
+     * by the leftover windows (longest first) in variable-length mode.
+     */
+    private void listWindows()
+    {
+        List<int[]> windows = new ArrayList<int[]>();
+        List<int[]> leftovers = new ArrayList<int[]>();
+        int[] next = new int[series.size()];
+        int[] end = new int[series.size()];
+        boolean added = true;
+
+        for (int s = 0; s < series.size(); s++)
+        {
+            int records = series.get(s).getData() == null ? 0 : series.get(s).getRecordCount();
+
+            next[s] = (int) (records * rangeFrom);
+            end[s] = (int) (records * rangeTo);
+        }
+
+        while (added)
+        {
+            added = false;
+
+            for (int s = 0; s < series.size(); s++)
+            {
+                IRSIterator source = series.get(s);
+
+                if (next[s] + exampleLength <= end[s])
+                {
+                    windows.add(new int[]{s, next[s], exampleLength});
+                    next[s] += overlapping && source.getStride() > 0 ? source.getStride() : exampleLength;
+                    added = true;
+                }
+            }
+        }
+
+        for (int s = 0; minLength > 0 && s < series.size(); s++)
+        {
+            int left = end[s] - next[s];
+
+            if (left >= minLength)
+            {
+                leftovers.add(new int[]{s, next[s], left});
+            }
+        }
+
+        //similar lengths end up in the same batch, so little of it is padding
+        Collections.sort(leftovers, new Comparator<int[]>()
+        {
+            public int compare(int[] a, int[] b)
+            {
+                return b[2] - a[2];
+            }
+        });
+
+        windows.addAll(leftovers);
+
+        windowSeries = new int[windows.size()];
+        windowStarts = new int[windows.size()];
+        windowLengths = new int[windows.size()];
+        dataRecords = 0;
+        paddedRecords = 0;
+
+        for (int w = 0; w < windows.size(); w++)
+        {
+            windowSeries[w] = windows.get(w)[0];
+            windowStarts[w] = windows.get(w)[1];
+            windowLengths[w] = windows.get(w)[2];
+            dataRecords += windowLengths[w];
+
+            //the first window of each batch is its longest
+            paddedRecords += windowLengths[w - w % batchSize] - windowLengths[w];
+        }
+
+        masked = hasMask || paddedRecords > 0;
+    }
+
+    /**
+     * Sets variable-length mode: the records after each series' last full
+     * window (and series shorter than one window) are batched as shorter,
+     * masked windows, as long as they have at least minLength records.
+     * Starts the pass over.
+     * @param length the shortest leftover window to batch (0 = only full windows)
+     */
+    public void setVariableLength(int length)
+    {
+        minLength = Math.max(0, Math.min(length, exampleLength));
+        position = 0;
+
+        listWindows();
+    }
+
+    /**
+     * Limits the windows to part of each series (e.g., 0.8 to 1 for the
+     * last 20% of the records).  Starts the pass over.
+     * @param from the start of the range, as a fraction of each series' records
+     * @param to the end of the range, as a fraction of each series' records
+     */
+    public void setRange(double from, double to)
+    {
+        rangeFrom = Math.max(0, Math.min(from, 1));
+        rangeTo = Math.max(rangeFrom, Math.min(to, 1));
+        position = 0;
+
+        listWindows();
+    }
+
+    /**
+     * Sets whether windows follow the series' stride, so they can overlap
+     * (e.g., for training), or start one example apart so every record is
+     * in exactly one window (e.g., for evaluation).  Starts the pass over.
+     * @param overlap if windows follow the stride
+     */
+    public void setOverlapping(boolean overlap)
+    {
+        overlapping = overlap;
+        position = 0;
+
+        listWindows();
+    }
+
+    /**
+     * Splits the windows into contiguous parts that can be read on
+     * different threads (the series are only read, never changed).
+     * @param parts the number of parts
+     * @return the parts; fewer than asked for if there are fewer windows
+     */
+    public List<SequenceBatcher> partition(int parts)
+    {
+        List<SequenceBatcher> partitions = new ArrayList<SequenceBatcher>();
+        int count = Math.max(1, Math.min(parts, windowStarts.length));
+
+        for (int p = 0; p < count; p++)
+        {
+            //parts start on a batch boundary so batches keep windows of similar length together
+            int from = (int) ((long) windowStarts.length * p / count) / batchSize * batchSize;
+            int to = p == count - 1 ? windowStarts.length
+                    : (int) ((long) windowStarts.length * (p + 1) / count) / batchSize * batchSize;
+
+            if (to > from)
+            {
+                partitions.add(new SequenceBatcher(this, from, to));
+            }
+        }
+
+        return partitions;
+    }
+
+    /**
+     * Returns the number of data (not padding) records in a pass.
+     * @return the number of records
+     */
+    public long getRecordCount()
+    {
+        return dataRecords;
+    }
+
+    /**
+     * Returns the shortest leftover window batched.
+     * @return the minimum window length (0 = only full windows)
+     */
+    public int getVariableLength()
+    {
+        return minLength;
+    }
+
+    /**
+     * Determines if another batch is available in this pass.
+     * @return if there's another batch
+     */
+    public boolean hasNext()
+    {
+        return position < windowStarts.length;
+    }
+
+    /**
+     * Returns the next batch of windows (the last batch may be smaller).
+     * @return the next DataSet
+     */
+    public DataSet next()
+    {
+        return next(batchSize);
+    }
+
+    /**
+     * Returns the next batch with a specific number of windows.
+     * @param num the most windows in the batch
+     * @return the next DataSet
+     */
+    public DataSet next(int num)
+    {
+        if (!hasNext())
+        {
+            throw new NoSuchElementException();
+        }
+
+        int rows = Math.min(num, windowStarts.length - position);
+        int cols = inputColumns();
+        int length = 0;
+
+        for (int i = 0; i < rows; i++)
+        {
+            length = Math.max(length, windowLengths[position + i]);
+        }
+
+        float[][] buffers = getBuffers(rows, length);
+
+        for (int i = 0; i < rows; i++, position++)
+        {
+            series.get(windowSeries[position]).copyWindow(windowStarts[position], buffers, i, rows,
+                    windowLengths[position]);
+            pad(buffers, i, rows, windowLengths[position], length);
+        }
+
+        INDArray input = Nd4j.create(buffers[0], new int[]{rows, cols, length}, 'f');
+        INDArray labels = Nd4j.create(buffers[1], new int[]{rows, totalOutcomes(), length}, 'f');
+        DataSet ds;
+
+        if (masked)
+        {
+            INDArray mask = Nd4j.create(buffers[2], new int[]{rows, length}, 'f');
+            ds = new DataSet(input, labels, mask, mask);
+        }
+        else
+        {
+            ds = new DataSet(input, labels);
+        }
+
+        normalizer.transform(ds);
+
+        return ds;
+    }
+
+    /**
+     * Zeroes (and masks out) the records after a short window in its row.
+     * @param buffers the feature, label and mask buffers
+     * @param row the window's row
+     * @param rows the number of rows in the batch
+     * @param from the window's length
+     * @param to the batch's length
+     */
+    private void pad(float[][] buffers, int row, int rows, int from, int to)
+    {
+        int cols = inputColumns();
+
+        for (int j = from; j < to; j++)
+        {
+            for (int k = 0; k < cols; k++)
+            {
+                buffers[0][row + rows * (k + cols * j)] = 0;
+            }
+
+            buffers[1][row + rows * j] = 0;
+            buffers[2][row + rows * j] = 0;
+        }
+    }
+
+    /**
+     * Returns the pooled staging buffers for a batch shape.
+     * @param rows the number of windows in the batch
+     * @param length the number of records in the batch's longest window
+     * @return the feature (index 0), label (index 1) and mask (index 2) buffers
+     */
+    private float[][] getBuffers(int rows, int length)
+    {
+        Long key = ((long) rows << 32) | length;
+        float[][] buffers = bufferPool.get(key);
+
+        if (buffers == null)
+        {
+            buffers = new float[][]{new float[rows * inputColumns() * length],
+                    new float[rows * totalOutcomes() * length], new float[rows * length]};
+
+            bufferPool.put(key, buffers);
+        }
+
+        return buffers;
+    }
+
+    /**
+     * Starts the next pass from the first window.
+     */
+    public void reset()
+    {
+        position = 0;
+    }
+
+    /**
+     * Moves to a batch in the current pass (e.g., to resume a pass that
+     * was interrupted); the inverse of cursor().
+     * @param batches the number of batches to skip
+     */
+    public void seek(int batches)
+    {
+        position = Math.min(windowStarts.length, Math.max(0, batches) * batchSize);
+    }
+
+    /**
+     * Returns the number of series the windows come from.
+     * @return the number of series
+     */
+    public int getSeriesCount()
+    {
+        return series.size();
+    }
+
+    /**
+     * Returns the number of windows in a pass.
+     * @return the number of windows
+     */
+    public int getWindowCount()
+    {
+        return windowStarts.length;
+    }
+
+    /**
+     * Returns a one line summary of the batching.
+     * @return the batching statistics
+     */
+    public String stats()
+    {
+        int last = windowStarts.length % batchSize;
+
+        return String.format("Sequence batches: %d windows of up to %d records from %d series in %d batches of %d%s; " +
+                "%d records, %.1f%% padding", windowStarts.length, exampleLength, series.size(), totalExamples(),
+                batchSize, last == 0 ? "" : " (last has " + last + ")", dataRecords,
+                100.0 * paddedRecords / Math.max(1, dataRecords + paddedRecords));
+    }
+
+    /**
+     * Returns the number of batches in a pass.
+     * @return the number of batches
+     */
+    public int totalExamples()
+    {
+        return (windowStarts.length + batchSize - 1) / batchSize;
+    }
+
+    /**
+     * Returns the number of input columns.
+     * @return the number of input columns
+     */
+    public int inputColumns()
+    {
+        return series.get(0).inputColumns();
+    }
+
+    /**
+     * Returns the number of output columns.
+     * @return the number of output columns
+     */
+    public int totalOutcomes()
+    {
+        return series.get(0).totalOutcomes();
+    }
+
+    /**
+     * Returns true since a pass can always be started over.
+     * @return true
+     */
+    public boolean resetSupported()
+    {
+        return true;
+    }
+
+    /**
+     * Returns true since batches can be built on another thread.
+     * @return true
+     */
+    public boolean asyncSupported()
+    {
+        return true;
+    }
+
+    /**
+     * Returns the number of windows in a batch.
+     * @return the batch size
+     */
+    public int batch()
+    {
+        return batchSize;
+    }
+
+    /**
+     * Returns the number of batches handed out in this pass.
+     * @return the position in the pass
+     */
+    public int cursor()
+    {
+        return position / batchSize;
+    }
+
+    /**
+     * Returns the number of records in a window.
+     * @return the example length
+     */
+    public int numExamples()
+    {
+        return exampleLength;
+    }
+
+    /**
+     * Sets the normalizer applied to each batch; only a fitted
+     * NormalizerMinMaxScaler is accepted.
+     * @param preProcessor the normalizer to use
+     */
+    public void setPreProcessor(DataSetPreProcessor preProcessor)
+    {
+        normalizer = (NormalizerMinMaxScaler) preProcessor;
+    }
+
+    /**
+     * Returns the normalizer applied to each batch.
+     * @return the normalizer
+     */
+    public NormalizerMinMaxScaler getPreProcessor()
+    {
+        return normalizer;
+    }
+
+    /**
+     * Returns the labels; not currently supported.
+     * @return nothing
+     */
+    public List<String> getLabels()
+    {
+        throw new UnsupportedOperationException("Functionality not implemented");
+    }
+
+    /**
+     * Removes the iterator; not currently supported.
+     */
+    public void remove()
+    {
+        throw new UnsupportedOperationException("Functionality not implemented");
+    }
+}
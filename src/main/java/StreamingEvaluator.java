@@ -0,0 +1,230 @@
+/*
+ * File:    StreamingEvaluator.java
+ * Created: October 17, 2026
+ * Author:  agent
+ * Project: Irrigation Recommendation System (IRS)
+ */
+
+import org.deeplearning4j.eval.RegressionEvaluation;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.optimize.api.IterationListener;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * <p>
+ * The StreamingEvaluator class scores a network on every window of a
+ * SequenceBatcher (e.g., a held-out range of the records) rather than on
+ * one DataSet.  Each batch is predicted, added to a RegressionEvaluation
+ * (which only keeps running sums, so memory doesn't grow with the data)
+ * and dropped.
+ * </p>
+ *
+ * <p>
+ * The windows are split into contiguous partitions that are scored at
+ * the same time, each on its own copy of the network since a network's
+ * forward pass isn't thread safe, and the partitions' evaluations are
+ * merged.
+ * </p>
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class StreamingEvaluator
+{
+    /* Variables */
+
+    /**
+     * The network being scored.
+     */
+    private final MultiLayerNetwork network;
+
+    /**
+     * The number of partitions scored at the same time.
+     */
+    private final int threads;
+
+    /**
+     * The number of windows scored in the last evaluation.
+     */
+    private long windows;
+
+    /**
+     * The number of records scored in the last evaluation.
+     */
+    private long records;
+
+    /**
+     * The number of partitions in the last evaluation.
+     */
+    private int partitions;
+
+    /**
+     * The time the last evaluation took, in nanoseconds.
+     */
+    private long evaluationNanos;
+
+    /* Constructors */
+
+    /**
+     * Default constructor for the StreamingEvaluator class.
+     * @param net the network to score
+     * @param numThreads the number of partitions scored at the same time
+     */
+    public StreamingEvaluator(MultiLayerNetwork net, int numThreads)
+    {
+        if (numThreads <= 0)
+        {
+            //print to console - this isn't a message to be displayed to the user
+            System.out.println("\nNumber of evaluation threads provided is <= 0; number of threads is " +
+                    "being set to the number of processors.\n");
+
+            numThreads = Runtime.getRuntime().availableProcessors();
+        }
+
+        network = net;
+        threads = numThreads;
+    }
+
+    /* Methods */
+
+    /**
+     * Scores the network on every window of a batcher.
+     * @param data the windows to score (read from the first window; its
+     * position isn't changed)
+     * @return the merged evaluation; its error is NaN if there were no windows
+     */
+    public RegressionEvaluation evaluate(SequenceBatcher data)
+    {
+        long start = System.nanoTime();
+        List<SequenceBatcher> parts = data.partition(threads);
+        RegressionEvaluation evaluation = new RegressionEvaluation(1);
+
+        windows = data.getWindowCount();
+        records = data.getRecordCount();
+        partitions = parts.size();
+
+        if (parts.size() == 1)
+        {
+            evaluation.merge(evaluate(network, parts.get(0)));
+        }
+        else if (parts.size() > 1)
+        {
+            ExecutorService pool = Executors.newFixedThreadPool(parts.size());
+            List<Future<RegressionEvaluation>> results = new ArrayList<Future<RegressionEvaluation>>();
+
+            try
+            {
+                for (SequenceBatcher part : parts)
+                {
+                    MultiLayerNetwork copy = network.clone();
+                    copy.setListeners(new ArrayList<IterationListener>());
+
+                    results.add(pool.submit(evaluateTask(copy, part)));
+                }
+
+                //merged in partition order so the result doesn't depend on which finishes first
+                for (Future<RegressionEvaluation> result : results)
+                {
+                    evaluation.merge(waitFor(result));
+                }
+            }
+            finally
+            {
+                pool.shutdown();
+            }
+        }
+
+        evaluationNanos = System.nanoTime() - start;
+
+        return evaluation;
+    }
+
+    /**
+     * Scores a network on one partition's windows.
+     * @param net the network (used by this thread only)
+     * @param part the partition
+     * @return the partition's evaluation
+     */
+    private static RegressionEvaluation evaluate(MultiLayerNetwork net, SequenceBatcher part)
+    {
+        RegressionEvaluation evaluation = new RegressionEvaluation(1);
+
+        part.reset();
+
+        while (part.hasNext())
+        {
+            DataSet ds = part.next();
+            INDArray mask = ds.getLabelsMaskArray();
+            INDArray predicted = net.output(ds.getFeatures(), false, ds.getFeaturesMaskArray(), mask);
+
+            //masked records (logger outages and padding) aren't scored
+            if (mask != null)
+            {
+                evaluation.evalTimeSeries(ds.getLabels(), predicted, mask);
+            }
+            else
+            {
+                evaluation.evalTimeSeries(ds.getLabels(), predicted);
+            }
+        }
+
+        return evaluation;
+    }
+
+    /**
+     * Returns a task that scores a partition.
+     * @param net the partition's copy of the network
+     * @param part the partition
+     * @return the task; it returns the partition's evaluation
+     */
+    private static Callable<RegressionEvaluation> evaluateTask(final MultiLayerNetwork net, final SequenceBatcher part)
+    {
+        return new Callable<RegressionEvaluation>()
+        {
+            public RegressionEvaluation call()
+            {
+                return evaluate(net, part);
+            }
+        };
+    }
+
+    /**
+     * Waits for a partition to be scored.
+     * @param result the partition's result
+     * @return the partition's evaluation
+     */
+    private static RegressionEvaluation waitFor(Future<RegressionEvaluation> result)
+    {
+        try
+        {
+            return result.get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for an evaluation partition.", e);
+        }
+        catch (ExecutionException e)
+        {
+            throw new IllegalStateException("An evaluation partition failed: " + e.getCause(), e.getCause());
+        }
+    }
+
+    /**
+     * Returns a one line summary of the last evaluation.
+     * @return the evaluation statistics
+     */
+    public String stats()
+    {
+        return String.format("Evaluation: %d windows (%d records) in %d partitions, %.2f s", windows, records,
+                partitions, evaluationNanos / 1e9);
+    }
+}
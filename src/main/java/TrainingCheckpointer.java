@@ -0,0 +1,732 @@
+/*
+ * File:    TrainingCheckpointer.java
+ * Created: October 17, 2026
+ * Author:  agent
+ * Project: Irrigation Recommendation System (IRS)
+ */
+
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.util.ModelSerializer;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import java.io.File;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * <p>
+ * The TrainingCheckpointer class saves a training run every N DataSets
+ * and/or every N minutes so a crash doesn't lose it.  A checkpoint is a
+ * normal parameters file (it can be loaded like any saved model) that
+ * also holds the updater state and the run's progress: the epoch, the
+ * position in the epoch and the settings needed to carry on (including
+ * the ones that decide which windows are trained on, so a resumed run
+ * counts its position in the same windows).
+ * </p>
+ *
+ * <p>
+ * The network is copied on the training thread and written on a
+ * background thread, to a temporary file that is then renamed over the
+ * checkpoint, so the checkpoint on disk is always complete.  If the last
+ * checkpoint is still being written when the next one is due, the next
+ * one is put off until the write finishes.
+ * </p>
+ *
+ * <p>
+ * Usage (to resume): TrainingCheckpointer [checkpoint] [csv file]
+ * [number of columns]; the csv file and number of columns default to the
+ * ones the run was training on, and checkpoints carry on being taken as
+ * often as before.
+ * </p>
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class TrainingCheckpointer
+{
+    /* Variables */
+
+    /**
+     * The name of the entry in the checkpoint that holds the progress.
+     */
+    private static final String PROGRESS_ENTRY = "progress.txt";
+
+    /**
+     * The checkpoint file.
+     */
+    private final File file;
+
+    /**
+     * The number of DataSets between checkpoints (0 = not by count).
+     */
+    private final int everyIterations;
+
+    /**
+     * The minutes between checkpoints (0 = not by time).
+     */
+    private final int everyMinutes;
+
+    /**
+     * Writes checkpoints in the background.
+     */
+    private final ExecutorService writer;
+
+    /**
+     * The write in progress (or the last one).
+     */
+    private Future<?> pending;
+
+    /**
+     * The iteration of the last checkpoint.
+     */
+    private long lastIteration;
+
+    /**
+     * The System.nanoTime() of the last checkpoint.
+     */
+    private long lastNanos;
+
+    /**
+     * The number of checkpoints written.
+     */
+    private volatile int written;
+
+    /**
+     * The time spent copying the network on the training thread, in nanoseconds.
+     */
+    private long snapshotNanos;
+
+    /**
+     * Why the last write failed, or null.
+     */
+    private volatile String failure;
+
+    /* Constructors */
+
+    /**
+     * Default constructor for the TrainingCheckpointer class.
+     * @param checkpoint the checkpoint file
+     * @param iterations the number of DataSets between checkpoints (0 = not by count)
+     * @param minutes the minutes between checkpoints (0 = not by time)
+     */
+    public TrainingCheckpointer(File checkpoint, int iterations, int minutes)
+    {
+        if (iterations <= 0 && minutes <= 0)
+        {
+            //print to console - this isn't a message to be displayed to the user
+            System.out.println("\nNeither a checkpoint count nor time was provided; checkpoints are " +
+                    "being set to default of every 30 minutes.\n");
+
+            minutes = 30;
+        }
+
+        file = checkpoint;
+        everyIterations = Math.max(0, iterations);
+        everyMinutes = Math.max(0, minutes);
+        lastNanos = System.nanoTime();
+
+        writer = Executors.newSingleThreadExecutor(new ThreadFactory()
+        {
+            public Thread newThread(Runnable r)
+            {
+                Thread thread = new Thread(r, "IRS-checkpoint");
+                thread.setDaemon(true);
+
+                return thread;
+            }
+        });
+    }
+
+    /* Methods */
+
+    /**
+     * Main method for resuming a run from its checkpoint; the finished
+     * model is saved like a model trained through the GUI.
+     * @param args checkpoint path, and optionally the csv file path and number of columns
+     */
+    public static void main(String[] args)
+    {
+        if (args.length < 1)
+        {
+            System.err.println("Usage: TrainingCheckpointer [checkpoint] [csv file] [number of columns]");
+
+            return;
+        }
+
+        File checkpoint = new File(args[0]);
+        Progress progress = restoreProgress(checkpoint);
+
+        if (progress == null)
+        {
+            System.err.println(checkpoint.getPath() + " isn't a training checkpoint.");
+
+            return;
+        }
+
+        String dataPath = args.length > 1 ? args[1] : progress.getData();
+        int numColumns = args.length > 2 ? Integer.parseInt(args[2]) : progress.getColumns();
+
+        if (dataPath.isEmpty())
+        {
+            System.err.println("The checkpoint doesn't say which csv file the run was training on; " +
+                    "usage: TrainingCheckpointer [checkpoint] [csv file] [number of columns]");
+
+            return;
+        }
+
+        IRSFunctions model = new IRSFunctions(checkpoint, dataPath, numColumns);
+        model.setCheckpoints(checkpoint, progress.getEveryDataSets(), progress.getEveryMinutes());
+
+        System.out.println(model.runModel(0).stats());
+        System.out.println("Saved " + model.getSavedParametersFile());
+    }
+
+    /**
+     * Starts counting toward the next checkpoint (e.g., from the iteration
+     * a resumed run carries on from, so it isn't checkpointed straight away).
+     * @param iteration the number of DataSets fit so far in the run
+     */
+    public void start(long iteration)
+    {
+        lastIteration = iteration;
+        lastNanos = System.nanoTime();
+    }
+
+    /**
+     * Returns whether a checkpoint is due (and the last one has been written).
+     * @param iteration the number of DataSets fit so far in the run
+     * @return if a checkpoint should be taken now
+     */
+    public boolean isDue(long iteration)
+    {
+        if (pending != null && !pending.isDone())
+        {
+            return false;
+        }
+
+        return (everyIterations > 0 && iteration - lastIteration >= everyIterations) ||
+                (everyMinutes > 0 && System.nanoTime() - lastNanos >= everyMinutes * 60000000000L);
+    }
+
+    /**
+     * Copies the model and writes it in the background.
+     * @param model the model being trained
+     * @param epoch the epoch to carry on from
+     * @param position the DataSet in that epoch to carry on from
+     * @param iteration the number of DataSets fit so far in the run
+     */
+    public void checkpoint(IRSFunctions model, int epoch, int position, long iteration)
+    {
+        long start = System.nanoTime();
+
+        //the copy is written while the original keeps training
+        final MultiLayerNetwork snapshot = model.getNetwork().clone();
+        INDArray state = updaterState(model.getNetwork());
+
+        if (state != null && updaterState(snapshot) != null)
+        {
+            updaterState(snapshot).assign(state);
+        }
+
+        final IRSFunctions settings = model;
+        StringBuilder line = new StringBuilder("epoch=" + epoch + ",position=" + position + ",iteration=" +
+                iteration + ",epochs=" + model.getEpochs() + ",examples=" + model.getExamples() +
+                ",minibatches=" + model.getMiniBatches() + ",crop=" + encode(model.getCropType()) +
+                ",soil=" + encode(model.getSoilType()) + ",stride=" + model.getStride() + ",variablelength=" +
+                model.getVariableLength() + ",holdout=" + model.getHoldOut() + ",records=" +
+                model.getRecordCount() + ",data=" + encode(model.getTrainingDataPath()) + ",columns=" +
+                model.getTrainingColumns() + ",everydatasets=" + everyIterations + ",everyminutes=" + everyMinutes);
+
+        for (String series : model.getExtraSeriesSources())
+        {
+            line.append(",series=").append(encode(series));
+        }
+
+        final String progress = line.toString();
+
+        snapshotNanos += System.nanoTime() - start;
+        lastIteration = iteration;
+        lastNanos = System.nanoTime();
+
+        pending = writer.submit(new Runnable()
+        {
+            public void run()
+            {
+                write(snapshot, settings, progress);
+            }
+        });
+    }
+
+    /**
+     * Writes a checkpoint to a temporary file and renames it over the
+     * checkpoint.
+     * @param snapshot the copy of the network
+     * @param model the model (for its normalizer, channels and downsampler)
+     * @param progress the progress line
+     */
+    private void write(MultiLayerNetwork snapshot, IRSFunctions model, String progress)
+    {
+        File tmp = new File(file.getPath() + ".partial");
+
+        try
+        {
+            ModelSerializer.writeModel(snapshot, tmp, true);
+
+            if (model.getNormalizer() != null)
+            {
+                ModelSerializer.addNormalizerToModel(tmp, model.getNormalizer());
+            }
+
+            IRSFunctions.addChannelsToModel(tmp, model.getChannels());
+            IRSFunctions.addDownsamplerToModel(tmp, model.getDownsampler());
+            IRSFunctions.addEntryToModel(tmp, PROGRESS_ENTRY, progress);
+
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+
+            written++;
+            failure = null;
+        }
+        catch (IOException e)
+        {
+            failure = e.getMessage();
+
+            //print to console - this isn't a message to be displayed to the user
+            System.err.println("Caught IOException: checkpoint couldn't be written: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Waits for the last checkpoint to be written and stops the writer thread.
+     */
+    public void finish()
+    {
+        writer.shutdown();
+
+        try
+        {
+            if (pending != null)
+            {
+                pending.get();
+            }
+        }
+        catch (Exception e)
+        {
+            //print to console - this isn't a message to be displayed to the user
+            System.err.println("Caught Exception: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads a run's progress from a checkpoint.
+     * @param checkpoint the checkpoint file
+     * @return the progress, or null if the file isn't a checkpoint
+     */
+    public static Progress restoreProgress(File checkpoint)
+    {
+        String line = IRSFunctions.readModelEntry(checkpoint, PROGRESS_ENTRY);
+
+        return line == null ? null : new Progress(line);
+    }
+
+    /**
+     * Escapes a progress value so a ',' or '=' in it (e.g., in a crop type
+     * or a file path) doesn't break the progress line.
+     * @param value the value
+     * @return the escaped value
+     */
+    private static String encode(String value)
+    {
+        try
+        {
+            return URLEncoder.encode(value == null ? "" : value, "UTF-8");
+        }
+        catch (UnsupportedEncodingException e)
+        {
+            throw new IllegalStateException("UTF-8 is not available.", e);
+        }
+    }
+
+    /**
+     * Reads a progress value escaped by encode.
+     * @param value the escaped value
+     * @return the value
+     */
+    private static String decode(String value)
+    {
+        try
+        {
+            return URLDecoder.decode(value, "UTF-8");
+        }
+        catch (UnsupportedEncodingException e)
+        {
+            throw new IllegalStateException("UTF-8 is not available.", e);
+        }
+    }
+
+    /**
+     * Returns a network's updater state.
+     * @param network the network
+     * @return the updater state, or null if the network has none yet
+     */
+    private static INDArray updaterState(MultiLayerNetwork network)
+    {
+        return network.getUpdater() == null ? null : network.getUpdater().getStateViewArray();
+    }
+
+    /**
+     * Returns the checkpoint file.
+     * @return the checkpoint file
+     */
+    public File getFile()
+    {
+        return file;
+    }
+
+    /**
+     * Returns a one line summary of the checkpoints.
+     * @return the checkpoint statistics
+     */
+    public String stats()
+    {
+        return String.format("Checkpoints: %d written to %s, %.1f ms copying on the training thread%s",
+                written, file.getPath(), snapshotNanos / 1e6, failure == null ? "" : "; last failed: " + failure);
+    }
+
+    /* Public Classes */
+
+    /**
+     * Where a checkpointed run was and the settings needed to carry on.
+     */
+    public static class Progress
+    {
+        /**
+         * The epoch to carry on from.
+         */
+        private int epoch;
+
+        /**
+         * The DataSet in that epoch to carry on from.
+         */
+        private int position;
+
+        /**
+         * The number of DataSets fit so far in the run.
+         */
+        private long iteration;
+
+        /**
+         * The run's total number of epochs.
+         */
+        private int epochs = 1;
+
+        /**
+         * The run's example size.
+         */
+        private int examples = 250;
+
+        /**
+         * The run's number of minibatches.
+         */
+        private int miniBatches = 1;
+
+        /**
+         * The run's crop type.
+         */
+        private String crop = "";
+
+        /**
+         * The run's soil type.
+         */
+        private String soil = "";
+
+        /**
+         * The run's stride between windows (0 = non-overlapping).
+         */
+        private int stride;
+
+        /**
+         * The run's shortest leftover window (0 = only full windows).
+         */
+        private int variableLength;
+
+        /**
+         * The run's hold-out fraction.
+         */
+        private double holdOut;
+
+        /**
+         * The number of records the run trained on (0 if not recorded).
+         */
+        private long records;
+
+        /**
+         * The other fields' data the run trained on, as columns:path.
+         */
+        private List<String> series = new ArrayList<String>();
+
+        /**
+         * The path of the data the run trained on ("" if not recorded).
+         */
+        private String data = "";
+
+        /**
+         * The number of columns the data was loaded with.
+         */
+        private int columns = 13;
+
+        /**
+         * The number of DataSets between the run's checkpoints (0 = not by count).
+         */
+        private int everyDataSets;
+
+        /**
+         * The minutes between the run's checkpoints (0 = not by time).
+         */
+        private int everyMinutes;
+
+        /**
+         * Default constructor for the Progress class.
+         * @param line the progress line, e.g., epoch=1,position=20,...
+         */
+        private Progress(String line)
+        {
+            for (String field : line.split(","))
+            {
+                String[] pair = field.split("=", 2);
+                String value = pair.length > 1 ? pair[1] : "";
+
+                if (pair[0].equals("epoch"))
+                {
+                    epoch = Integer.parseInt(value);
+                }
+                else if (pair[0].equals("position"))
+                {
+                    position = Integer.parseInt(value);
+                }
+                else if (pair[0].equals("iteration"))
+                {
+                    iteration = Long.parseLong(value);
+                }
+                else if (pair[0].equals("epochs"))
+                {
+                    epochs = Integer.parseInt(value);
+                }
+                else if (pair[0].equals("examples"))
+                {
+                    examples = Integer.parseInt(value);
+                }
+                else if (pair[0].equals("minibatches"))
+                {
+                    miniBatches = Integer.parseInt(value);
+                }
+                else if (pair[0].equals("crop"))
+                {
+                    crop = decode(value);
+                }
+                else if (pair[0].equals("soil"))
+                {
+                    soil = decode(value);
+                }
+                else if (pair[0].equals("stride"))
+                {
+                    stride = Integer.parseInt(value);
+                }
+                else if (pair[0].equals("variablelength"))
+                {
+                    variableLength = Integer.parseInt(value);
+                }
+                else if (pair[0].equals("holdout"))
+                {
+                    holdOut = Double.parseDouble(value);
+                }
+                else if (pair[0].equals("records"))
+                {
+                    records = Long.parseLong(value);
+                }
+                else if (pair[0].equals("series"))
+                {
+                    series.add(decode(value));
+                }
+                else if (pair[0].equals("data"))
+                {
+                    data = decode(value);
+                }
+                else if (pair[0].equals("columns"))
+                {
+                    columns = Integer.parseInt(value);
+                }
+                else if (pair[0].equals("everydatasets"))
+                {
+                    everyDataSets = Integer.parseInt(value);
+                }
+                else if (pair[0].equals("everyminutes"))
+                {
+                    everyMinutes = Integer.parseInt(value);
+                }
+            }
+        }
+
+        /**
+         * Returns the epoch to carry on from.
+         * @return the epoch
+         */
+        public int getEpoch()
+        {
+            return epoch;
+        }
+
+        /**
+         * Returns the DataSet in the epoch to carry on from.
+         * @return the position in the epoch
+         */
+        public int getPosition()
+        {
+            return position;
+        }
+
+        /**
+         * Returns the number of DataSets fit so far in the run.
+         * @return the iteration
+         */
+        public long getIteration()
+        {
+            return iteration;
+        }
+
+        /**
+         * Returns the run's total number of epochs.
+         * @return the number of epochs
+         */
+        public int getEpochs()
+        {
+            return epochs;
+        }
+
+        /**
+         * Returns the run's example size.
+         * @return the example size
+         */
+        public int getExamples()
+        {
+            return examples;
+        }
+
+        /**
+         * Returns the run's number of minibatches.
+         * @return the number of minibatches
+         */
+        public int getMiniBatches()
+        {
+            return miniBatches;
+        }
+
+        /**
+         * Returns the run's crop type.
+         * @return the crop type
+         */
+        public String getCrop()
+        {
+            return crop;
+        }
+
+        /**
+         * Returns the run's soil type.
+         * @return the soil type
+         */
+        public String getSoil()
+        {
+            return soil;
+        }
+
+        /**
+         * Returns the run's stride between windows.
+         * @return the stride (0 = non-overlapping)
+         */
+        public int getStride()
+        {
+            return stride;
+        }
+
+        /**
+         * Returns the run's shortest leftover window.
+         * @return the minimum window length (0 = only full windows)
+         */
+        public int getVariableLength()
+        {
+            return variableLength;
+        }
+
+        /**
+         * Returns the run's hold-out fraction.
+         * @return the fraction of the records held out (0 = none)
+         */
+        public double getHoldOut()
+        {
+            return holdOut;
+        }
+
+        /**
+         * Returns the number of records the run trained on.
+         * @return the number of records, or 0 if it wasn't recorded
+         */
+        public long getRecords()
+        {
+            return records;
+        }
+
+        /**
+         * Returns the other fields' data the run trained on.
+         * @return each added series as columns:path
+         */
+        public List<String> getSeries()
+        {
+            return series;
+        }
+
+        /**
+         * Returns the path of the data the run trained on.
+         * @return the path, or "" if it wasn't recorded
+         */
+        public String getData()
+        {
+            return data;
+        }
+
+        /**
+         * Returns the number of columns the data was loaded with.
+         * @return the number of columns
+         */
+        public int getColumns()
+        {
+            return columns;
+        }
+
+        /**
+         * Returns the number of DataSets between the run's checkpoints.
+         * @return the number of DataSets (0 = not by count)
+         */
+        public int getEveryDataSets()
+        {
+            return everyDataSets;
+        }
+
+        /**
+         * Returns the minutes between the run's checkpoints.
+         * @return the minutes (0 = not by time)
+         */
+        public int getEveryMinutes()
+        {
+            return everyMinutes;
+        }
+    }
+}
@@ -0,0 +1,291 @@
+/*
+ * File:    TrainingTelemetry.java
+ * Created: October 17, 2026
+ * Author:  agent
+ * Project: Irrigation Recommendation System (IRS)
+ */
+
+import org.deeplearning4j.nn.api.Model;
+import org.deeplearning4j.optimize.api.IterationListener;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * The TrainingTelemetry class is a training listener that keeps running
+ * counts instead of printing the score on every iteration: iterations,
+ * time steps, time spent fitting, time spent waiting for the next
+ * DataSet, and the score every few iterations.  The counters are atomic,
+ * so they can be read from another thread (e.g., the GUI) while the RNN
+ * trains, and a one line summary is printed every few seconds.
+ * </p>
+ *
+ * <p>
+ * Iterations and scores come from the network (one iteration per TBPTT
+ * segment); fit and wait times come from the training loop (or
+ * ParallelTrainer's workers) through recordFit and recordWait.
+ * </p>
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class TrainingTelemetry implements IterationListener
+{
+    /* Variables */
+
+    /**
+     * The number of iterations between score samples.
+     */
+    private final int sampleEvery;
+
+    /**
+     * The time between summary lines, in nanoseconds (0 = no summary).
+     */
+    private final long summaryNanos;
+
+    /**
+     * The System.nanoTime() the counters were started or reset.
+     */
+    private volatile long startNanos = System.nanoTime();
+
+    /**
+     * The System.nanoTime() the next summary line is due.
+     */
+    private final AtomicLong nextSummary = new AtomicLong();
+
+    /**
+     * The number of iterations done.
+     */
+    private final AtomicLong iterations = new AtomicLong();
+
+    /**
+     * The number of DataSets fit.
+     */
+    private final AtomicLong fits = new AtomicLong();
+
+    /**
+     * The number of time steps (windows x records) fit.
+     */
+    private final AtomicLong timeSteps = new AtomicLong();
+
+    /**
+     * The time spent fitting, in nanoseconds.
+     */
+    private final AtomicLong fitNanos = new AtomicLong();
+
+    /**
+     * The time spent waiting for DataSets, in nanoseconds.
+     */
+    private final AtomicLong waitNanos = new AtomicLong();
+
+    /**
+     * The last sampled score, as Double.doubleToLongBits.
+     */
+    private final AtomicLong scoreBits = new AtomicLong(Double.doubleToLongBits(Double.NaN));
+
+    /**
+     * If the listener has been invoked.
+     */
+    private volatile boolean invoked;
+
+    /* Constructors */
+
+    /**
+     * Default constructor for the TrainingTelemetry class; samples the
+     * score every 10 iterations and prints a summary every 30 seconds.
+     */
+    public TrainingTelemetry()
+    {
+        this(10, 30);
+    }
+
+    /**
+     * Constructor for the TrainingTelemetry class with a sampling rate.
+     * @param scoreEvery the number of iterations between score samples
+     * @param summarySeconds the seconds between summary lines (0 = no summary)
+     */
+    public TrainingTelemetry(int scoreEvery, int summarySeconds)
+    {
+        if (scoreEvery <= 0)
+        {
+            //print to console - this isn't a message to be displayed to the user
+            System.out.println("\nScore sampling rate provided is <= 0; the score is being sampled " +
+                    "every 10 iterations.\n");
+
+            scoreEvery = 10;
+        }
+
+        sampleEvery = scoreEvery;
+        summaryNanos = Math.max(0, summarySeconds) * 1000000000L;
+        nextSummary.set(startNanos + summaryNanos);
+    }
+
+    /* Methods */
+
+    /**
+     * Returns whether the listener has been invoked.
+     * @return if an iteration has been done
+     */
+    public boolean invoked()
+    {
+        return invoked;
+    }
+
+    /**
+     * Marks the listener as invoked.
+     */
+    public void invoke()
+    {
+        invoked = true;
+    }
+
+    /**
+     * Counts an iteration, samples the score every few iterations and
+     * prints the summary when it's due.
+     * @param model the network
+     * @param iteration the network's iteration number
+     */
+    public void iterationDone(Model model, int iteration)
+    {
+        invoke();
+
+        if (iterations.incrementAndGet() % sampleEvery == 0)
+        {
+            scoreBits.set(Double.doubleToLongBits(model.score()));
+        }
+
+        if (summaryNanos > 0)
+        {
+            long now = System.nanoTime();
+            long due = nextSummary.get();
+
+            //only one thread prints each summary
+            if (now >= due && nextSummary.compareAndSet(due, now + summaryNanos))
+            {
+                //print to console - this isn't a message to be displayed to the user
+                System.out.println(summary());
+            }
+        }
+    }
+
+    /**
+     * Records a DataSet fit by the training loop.
+     * @param steps the number of time steps in the DataSet (windows x records)
+     * @param nanos the time the fit took
+     */
+    public void recordFit(long steps, long nanos)
+    {
+        fits.incrementAndGet();
+        timeSteps.addAndGet(steps);
+        fitNanos.addAndGet(nanos);
+    }
+
+    /**
+     * Records time the training loop spent waiting for the next DataSet
+     * (reading, parsing and normalizing, or waiting on the prefetcher).
+     * @param nanos the time waited
+     */
+    public void recordWait(long nanos)
+    {
+        waitNanos.addAndGet(nanos);
+    }
+
+    /**
+     * Starts the counters over (e.g., for a new run).
+     */
+    public void reset()
+    {
+        iterations.set(0);
+        fits.set(0);
+        timeSteps.set(0);
+        fitNanos.set(0);
+        waitNanos.set(0);
+        scoreBits.set(Double.doubleToLongBits(Double.NaN));
+        startNanos = System.nanoTime();
+        nextSummary.set(startNanos + summaryNanos);
+    }
+
+    /**
+     * Returns the number of iterations done.
+     * @return the number of iterations
+     */
+    public long getIterations()
+    {
+        return iterations.get();
+    }
+
+    /**
+     * Returns the number of time steps fit.
+     * @return the number of time steps
+     */
+    public long getTimeSteps()
+    {
+        return timeSteps.get();
+    }
+
+    /**
+     * Returns the iterations per second since the counters started.
+     * @return the iteration rate
+     */
+    public double getIterationsPerSecond()
+    {
+        return iterations.get() / elapsedSeconds();
+    }
+
+    /**
+     * Returns the time steps per second since the counters started.
+     * @return the time step rate
+     */
+    public double getTimeStepsPerSecond()
+    {
+        return timeSteps.get() / elapsedSeconds();
+    }
+
+    /**
+     * Returns the mean time per fit.
+     * @return the mean milliseconds per fit, or 0 if nothing was fit
+     */
+    public double getMillisPerFit()
+    {
+        long count = fits.get();
+
+        return count == 0 ? 0 : fitNanos.get() / 1e6 / count;
+    }
+
+    /**
+     * Returns the total time spent waiting for DataSets.
+     * @return the wait time in milliseconds
+     */
+    public double getWaitMillis()
+    {
+        return waitNanos.get() / 1e6;
+    }
+
+    /**
+     * Returns the last sampled score.
+     * @return the score, or NaN if none was sampled yet
+     */
+    public double getScore()
+    {
+        return Double.longBitsToDouble(scoreBits.get());
+    }
+
+    /**
+     * Returns the seconds since the counters started.
+     * @return the elapsed seconds (never 0)
+     */
+    private double elapsedSeconds()
+    {
+        return Math.max(1e-9, (System.nanoTime() - startNanos) / 1e9);
+    }
+
+    /**
+     * Returns a one line summary of the counters.
+     * @return the training telemetry
+     */
+    public String summary()
+    {
+        return String.format("Training: %d iterations (%.2f/s), %.0f time steps/s, %.1f ms/fit, %.1f ms waiting " +
+                "for data, score %.5f", getIterations(), getIterationsPerSecond(), getTimeStepsPerSecond(),
+                getMillisPerFit(), getWaitMillis(), getScore());
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ * File:    IRSIteratorTest.java
+ * Created: October 17, 2026
+ * Author:  agent
+ * Project: Irrigation Recommendation System (IRS)
+ */
+
+import org.junit.Test;
+import org.nd4j.linalg.dataset.DataSet;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * <p>
+ * Tests that IRSIterator hands out an epoch in a single forward pass over
+ * the csv records.
+ * </p>
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class IRSIteratorTest
+{
+    /**
+     * The sample csv file (in the project directory).
+     */
+    private static final String CSV = "SMSdataFORMATTED-3SENSORS.csv";
+
+    /**
+     * The number of sample records copied into the test file.
+     */
+    private static final int RECORDS = 1200;
+
+    /**
+     * An example length that divides the test file's records.
+     */
+    private static final int EXAMPLE_LENGTH = 100;
+
+    /**
+     * Each epoch should read every record exactly once, and a reset should
+     * start the next epoch from the first record.
+     * @throws IOException if the sample file can't be read
+     */
+    @Test
+    public void rowsReadPerEpochEqualFileRecords() throws IOException
+    {
+        File csv = copyRecords(CSV, RECORDS);
+        int fileRows = countRecords(csv.getPath());
+        assertEquals(RECORDS, fileRows);
+
+        IRSIterator iter = new IRSIterator(csv.getPath(), 13, 1, EXAMPLE_LENGTH);
+
+        //use the records as they were read (no gap filling) so they match the file
+        iter.setResampler(null);
+        assertEquals(fileRows, iter.getRecordCount());
+
+        for (int epoch = 0; epoch < 2; epoch++)
+        {
+            iter.reset();
+            int dataSets = 0;
+
+            while (iter.hasNext())
+            {
+                assertNotNull(iter.next());
+                dataSets++;
+            }
+
+            assertEquals("rows read in epoch " + epoch, fileRows, iter.getRowsRead());
+            assertEquals("DataSets in epoch " + epoch, fileRows / EXAMPLE_LENGTH, dataSets);
+        }
+    }
+
+    /**
+     * A record with an empty or non-numeric field should be masked instead
+     * of putting NaN into the DataSet.
+     * @throws IOException if the sample file can't be read
+     */
+    @Test
+    public void missingFieldsAreMasked() throws IOException
+    {
+        File csv = copyRecords(CSV, 2 * EXAMPLE_LENGTH);
+        List<String> lines = Files.readAllLines(csv.toPath(), Charset.forName("UTF-8"));
+
+        //blank the second field of record 10 and the third of record 20
+        lines.set(10, lines.get(10).replaceFirst(",[^,]*", ","));
+        lines.set(20, lines.get(20).replaceFirst("(,[^,]*),[^,]*", "$1,n/a"));
+        Files.write(csv.toPath(), lines, Charset.forName("UTF-8"));
+
+        IRSIterator iter = new IRSIterator(csv.getPath(), 13, 1, EXAMPLE_LENGTH);
+        iter.setResampler(null);
+        iter.reset();
+
+        DataSet ds = iter.next();
+        assertNotNull(ds);
+        assertFalse("NaN in features", Double.isNaN(ds.getFeatures().sumNumber().doubleValue()));
+        assertFalse("NaN in labels", Double.isNaN(ds.getLabels().sumNumber().doubleValue()));
+        assertNotNull(ds.getLabelsMaskArray());
+        assertEquals(0, ds.getLabelsMaskArray().getDouble(0, 9), 0);
+        assertEquals(0, ds.getLabelsMaskArray().getDouble(0, 19), 0);
+        assertEquals(EXAMPLE_LENGTH - 2, ds.getLabelsMaskArray().sumNumber().intValue());
+    }
+
+    /**
+     * Quoted times on a 12-hour clock (e.g., "5/26/2017 1:20 PM") should
+     * resample to the same records as the 24-hour times they came from.
+     * @throws Exception if the sample file can't be read or a time can't be converted
+     */
+    @Test
+    public void twelveHourTimesAreResampled() throws Exception
+    {
+        File csv = copyRecords(CSV, 2 * EXAMPLE_LENGTH);
+        IRSIterator original = new IRSIterator(csv.getPath(), 13, 1, EXAMPLE_LENGTH);
+        long[] expected = Arrays.copyOf(original.getData().getTimes(), original.getRecordCount());
+
+        SimpleDateFormat in = new SimpleDateFormat("M/d/yy H:mm", Locale.US);
+        SimpleDateFormat out = new SimpleDateFormat("M/d/yyyy h:mm a", Locale.US);
+        List<String> lines = Files.readAllLines(csv.toPath(), Charset.forName("UTF-8"));
+
+        for (int i = 1; i < lines.size(); i++)
+        {
+            int comma = lines.get(i).indexOf(',');
+            Date time = in.parse(lines.get(i).substring(0, comma));
+
+            lines.set(i, "\"" + out.format(time) + "\"" + lines.get(i).substring(comma));
+        }
+
+        Files.write(csv.toPath(), lines, Charset.forName("UTF-8"));
+
+        IRSIterator iter = new IRSIterator(csv.getPath(), 13, 1, EXAMPLE_LENGTH);
+        assertEquals(0, iter.getResampler().getDroppedCount());
+        assertArrayEquals(expected, Arrays.copyOf(iter.getData().getTimes(), iter.getRecordCount()));
+    }
+
+    /**
+     * With a fit range, the normalizer should be fit over the first records
+     * only, as if the held-out ones weren't in the file.
+     * @throws IOException if the sample file can't be read
+     */
+    @Test
+    public void normalizerIgnoresHeldOutRecords() throws IOException
+    {
+        IRSIterator training = new IRSIterator(copyRecords(CSV, RECORDS / 2).getPath(), 13, 1, EXAMPLE_LENGTH);
+        training.setResampler(null);
+
+        IRSIterator iter = new IRSIterator(copyRecords(CSV, RECORDS).getPath(), 13, 1, EXAMPLE_LENGTH);
+        iter.setResampler(null);
+        iter.setFitRange(0.5);
+
+        assertEquals(training.getPreProcessor().getMin(), iter.getPreProcessor().getMin());
+        assertEquals(training.getPreProcessor().getMax(), iter.getPreProcessor().getMax());
+    }
+
+    /**
+     * Downsampling to fewer records than the example size should shorten
+     * the example instead of leaving no DataSet to train on.
+     * @throws IOException if the sample file can't be read
+     */
+    @Test
+    public void exampleSizeFitsDownsampledRecords() throws IOException
+    {
+        IRSIterator iter = new IRSIterator(copyRecords(CSV, RECORDS).getPath(), 13, 1, EXAMPLE_LENGTH);
+        iter.setDownsampler(new SensorDownsampler(SensorDownsampler.DAY));
+
+        assertEquals(5, iter.getRecordCount());
+        assertEquals(iter.getRecordCount() - 1, iter.numExamples());
+        assertNotNull(iter.latest());
+
+        iter.reset();
+        assertNotNull(iter.next());
+    }
+
+    /**
+     * Copies the header and the first records of a csv file to a temporary file.
+     * @param path the csv file
+     * @param records the number of records to copy
+     * @return the temporary file (it and its cache are deleted when the JVM exits)
+     * @throws IOException if a file can't be read or written
+     */
+    private static File copyRecords(String path, int records) throws IOException
+    {
+        File copy = File.createTempFile("irs-test", ".csv");
+        copy.deleteOnExit();
+        SensorDataCache.sidecarFor(copy).deleteOnExit();
+
+        BufferedReader br = new BufferedReader(new FileReader(path));
+        PrintWriter out = new PrintWriter(new FileWriter(copy));
+
+        try
+        {
+            String line = br.readLine();
+
+            for (int i = 0; line != null && i <= records; i++, line = br.readLine())
+            {
+                out.println(line);
+            }
+        }
+        finally
+        {
+            out.close();
+            br.close();
+        }
+
+        return copy;
+    }
+
+    /**
+     * Counts the records (lines after the header) in a csv file.
+     * @param path the csv file
+     * @return the number of records
+     * @throws IOException if the file can't be read
+     */
+    private static int countRecords(String path) throws IOException
+    {
+        BufferedReader br = new BufferedReader(new FileReader(path));
+
+        try
+        {
+            int rows = -1;
+
+            for (String line = br.readLine(); line != null; line = br.readLine())
+            {
+                if (!line.trim().isEmpty())
+                {
+                    rows++;
+                }
+            }
+
+            return rows;
+        }
+        finally
+        {
+            br.close();
+        }
+    }
+}
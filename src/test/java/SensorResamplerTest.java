@@ -0,0 +1,138 @@
+/*
+ * File:    SensorResamplerTest.java
+ * Created: October 17, 2026
+ * Author:  agent
+ * Project: Irrigation Recommendation System (IRS)
+ */
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * <p>
+ * Tests that SensorResampler drops a record whose time doesn't fit the
+ * records around it instead of stretching the grid to reach it.
+ * </p>
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class SensorResamplerTest
+{
+    /**
+     * The number of records in each test series.
+     */
+    private static final int RECORDS = 3000;
+
+    /**
+     * 5/26/17 13:20 in epoch minutes.
+     */
+    private static final long START = SensorCsvParser.daysFromCivil(2017, 5, 26) * 1440L + 13 * 60 + 20;
+
+    /**
+     * A mistyped year (5/26/27 instead of 5/26/17) in the middle of the file
+     * should only drop that record.
+     */
+    @Test
+    public void mistypedYearIsDropped()
+    {
+        SensorData data = series(RECORDS);
+        data.getTimes()[1500] += SensorCsvParser.daysFromCivil(2027, 5, 26) * 1440L -
+                SensorCsvParser.daysFromCivil(2017, 5, 26) * 1440L;
+
+        SensorResampler resampler = new SensorResampler();
+        SensorData out = resampler.resample(data);
+
+        assertEquals(RECORDS, out.rows());
+        assertEquals(1, resampler.getOutlierCount());
+        assertEquals(1, resampler.getDroppedCount());
+        assertEquals(1, resampler.getFilledCount());
+        assertEquals(START + (RECORDS - 1) * 5L, out.getTimes()[RECORDS - 1]);
+    }
+
+    /**
+     * A mistyped first record shouldn't set the start of the grid.
+     */
+    @Test
+    public void mistypedFirstRecordIsDropped()
+    {
+        SensorData data = series(RECORDS);
+        data.getTimes()[0] += 3650L * 1440;
+
+        SensorResampler resampler = new SensorResampler();
+        SensorData out = resampler.resample(data);
+
+        assertEquals(RECORDS - 1, out.rows());
+        assertEquals(1, resampler.getOutlierCount());
+        assertEquals(START + 5, out.getTimes()[0]);
+    }
+
+    /**
+     * A long outage that the records after it carry on from is kept, and
+     * the time in it is masked.
+     */
+    @Test
+    public void longOutageIsKept()
+    {
+        SensorData data = series(RECORDS);
+        long outage = 10 * 1440;
+
+        for (int r = 2000; r < RECORDS; r++)
+        {
+            data.getTimes()[r] += outage;
+        }
+
+        SensorResampler resampler = new SensorResampler();
+        SensorData out = resampler.resample(data);
+
+        assertEquals(0, resampler.getOutlierCount());
+        assertEquals(RECORDS + outage / 5, out.rows());
+        assertEquals(outage / 5, resampler.getMaskedCount());
+    }
+
+    /**
+     * Records filled in for a short gap should have no rain, or summing
+     * them would add rain that was never recorded.
+     */
+    @Test
+    public void filledRecordsHaveNoRain()
+    {
+        long[] times = {START, START + 5, START + 20, START + 25};
+        float[] vwc = {1, 1, 4, 4};
+        float[] rain = {0.1f, 0.1f, 0.1f, 0.1f};
+
+        SensorData data = new SensorData(new String[]{"time/date", "Port 3 (VWC)", "2m Rain (in)"}, times,
+                new float[][]{null, vwc, rain}, null, times.length);
+
+        SensorResampler resampler = new SensorResampler();
+        SensorData out = resampler.resample(data);
+
+        assertEquals(6, out.rows());
+        assertEquals(2, resampler.getFilledCount());
+        assertEquals(2, out.get(1, 2), 1e-6);
+        assertEquals(0, out.get(2, 2), 0);
+        assertEquals(0, out.get(2, 3), 0);
+        assertEquals(0.1f, out.get(2, 4), 0);
+    }
+
+    /**
+     * Builds a series with one record every 5 minutes from START.
+     * @param rows the number of records
+     * @return the series
+     */
+    private static SensorData series(int rows)
+    {
+        long[] times = new long[rows];
+        float[] values = new float[rows];
+
+        for (int r = 0; r < rows; r++)
+        {
+            times[r] = START + r * 5L;
+            values[r] = r;
+        }
+
+        return new SensorData(new String[]{"time/date", "Port 3 (VWC)"}, times, new float[][]{null, values},
+                null, rows);
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * File:    SensorSourceTest.java
+ * Created: October 17, 2026
+ * Author:  agent
+ * Project: Irrigation Recommendation System (IRS)
+ */
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * <p>
+ * Tests that SensorSource joins files that follow each other in time and
+ * keeps files that overlap in time (e.g., two fields) as separate series.
+ * </p>
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class SensorSourceTest
+{
+    /**
+     * The sample csv file (in the project directory).
+     */
+    private static final String CSV = "SMSdataFORMATTED-3SENSORS.csv";
+
+    /**
+     * The number of records in each test file.
+     */
+    private static final int RECORDS = 100;
+
+    /**
+     * The directory the test files are written to.
+     */
+    private File dir;
+
+    /**
+     * Writes two fields' data, each split into two files that follow each
+     * other in time; both fields cover the same time.
+     * @throws IOException if the files can't be written
+     */
+    @Before
+    public void writeFields() throws IOException
+    {
+        dir = Files.createTempDirectory("irs-source").toFile();
+        List<String> lines = Files.readAllLines(new File(CSV).toPath(), Charset.forName("UTF-8"));
+
+        for (String field : new String[]{"fieldA", "fieldB"})
+        {
+            write(new File(dir, field + "-1.csv"), lines, 1);
+            write(new File(dir, field + "-2.csv"), lines, 1 + RECORDS);
+        }
+    }
+
+    /**
+     * Deletes the test files (and their caches).
+     */
+    @After
+    public void deleteFields()
+    {
+        for (File file : dir.listFiles())
+        {
+            file.delete();
+        }
+
+        dir.delete();
+    }
+
+    /**
+     * Files that overlap in time can't be merged into one series.
+     * @throws IOException if the files can't be read
+     */
+    @Test
+    public void overlappingFilesAreNotMerged() throws IOException
+    {
+        try
+        {
+            new SensorSource(dir.getPath()).merged();
+            fail("overlapping files were merged");
+        }
+        catch (IllegalArgumentException e)
+        {
+            //expected
+        }
+    }
+
+    /**
+     * Each field's files are joined in time order into its own series.
+     * @throws IOException if the files can't be read
+     */
+    @Test
+    public void overlappingFilesAreSeparateSeries() throws IOException
+    {
+        SensorData whole = new SensorSource(dir.getPath() + File.separator + "fieldA-*.csv").merged();
+        List<SensorData> series = new SensorSource(dir.getPath()).series();
+
+        assertEquals(2 * RECORDS, whole.rows());
+        assertEquals(2, series.size());
+
+        for (SensorData field : series)
+        {
+            assertEquals(2 * RECORDS, field.rows());
+            assertArrayEquals(whole.getTimes(), field.getTimes());
+        }
+    }
+
+    /**
+     * Writes the header and some records of the sample to a file.
+     * @param file the file to write
+     * @param lines the sample's lines
+     * @param first the first record's line
+     * @throws IOException if the file can't be written
+     */
+    private static void write(File file, List<String> lines, int first) throws IOException
+    {
+        List<String> part = new ArrayList<String>();
+        part.add(lines.get(0));
+        part.addAll(lines.subList(first, first + RECORDS));
+
+        Files.write(file.toPath(), part, Charset.forName("UTF-8"));
+    }
+}
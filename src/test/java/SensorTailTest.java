@@ -0,0 +1,177 @@
+/*
+ * File:    SensorTailTest.java
+ * Created: October 17, 2026
+ * Author:  agent
+ * Project: Irrigation Recommendation System (IRS)
+ */
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * <p>
+ * Tests that SensorTail parses only the bytes appended to a csv, parses an
+ * unterminated last line again once it's finished, and starts over when
+ * the file gets shorter.
+ * </p>
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class SensorTailTest
+{
+    /**
+     * The sample csv file (in the project directory).
+     */
+    private static final String CSV = "SMSdataFORMATTED-3SENSORS.csv";
+
+    /**
+     * The number of records in the test file to start with.
+     */
+    private static final int RECORDS = 100;
+
+    /**
+     * The character set of the csv files.
+     */
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * The sample's lines.
+     */
+    private List<String> lines;
+
+    /**
+     * The file being followed.
+     */
+    private File csv;
+
+    /**
+     * Writes the header and the first records of the sample.
+     * @throws IOException if a file can't be read or written
+     */
+    @Before
+    public void writeRecords() throws IOException
+    {
+        lines = Files.readAllLines(new File(CSV).toPath(), UTF8);
+        csv = File.createTempFile("irs-tail", ".csv");
+        Files.write(csv.toPath(), lines.subList(0, RECORDS + 1), UTF8);
+    }
+
+    /**
+     * Deletes the test file.
+     */
+    @After
+    public void deleteRecords()
+    {
+        csv.delete();
+    }
+
+    /**
+     * After the whole file is parsed, the next poll starts at the end of
+     * the file, and appended lines move it along by their length.
+     * @throws IOException if the file can't be read
+     */
+    @Test
+    public void offsetFollowsCompleteLines() throws IOException
+    {
+        SensorTail tail = new SensorTail(csv);
+
+        assertEquals(RECORDS, tail.getData().rows());
+        assertEquals(csv.length(), tail.getOffset());
+        assertEquals(0, tail.poll());
+
+        append(lines.get(RECORDS + 1) + "\n" + lines.get(RECORDS + 2) + "\n");
+
+        assertEquals(2, tail.poll());
+        assertEquals(RECORDS + 2, tail.getData().rows());
+        assertEquals(csv.length(), tail.getOffset());
+        assertEquals(value(RECORDS + 2, 1), tail.getData().get(1, RECORDS + 1), 0);
+    }
+
+    /**
+     * A last line without a newline is parsed, but it's parsed again (and
+     * replaced) once the rest of it is written.
+     * @throws IOException if the file can't be read
+     */
+    @Test
+    public void unterminatedLineIsProvisional() throws IOException
+    {
+        SensorTail tail = new SensorTail(csv);
+        long complete = csv.length();
+        String line = lines.get(RECORDS + 1);
+        int split = line.lastIndexOf(',');
+
+        //the logger has written all but the last field
+        append(line.substring(0, split + 2));
+
+        assertEquals(1, tail.poll());
+        assertEquals(complete, tail.getOffset());
+
+        append(line.substring(split + 2) + "\n" + lines.get(RECORDS + 2));
+
+        //the finished line replaces the provisional row; the new unterminated line is provisional
+        assertEquals(1, tail.poll());
+        assertEquals(RECORDS + 2, tail.getData().rows());
+        assertEquals(complete + line.length() + 1, tail.getOffset());
+
+        int label = tail.getData().numColumns() - 1;
+        assertEquals(value(RECORDS + 1, label), tail.getData().get(label, RECORDS), 0);
+    }
+
+    /**
+     * A file that gets shorter (e.g., rotated) is parsed again from the start.
+     * @throws IOException if the file can't be read or written
+     */
+    @Test
+    public void shorterFileIsParsedAgain() throws IOException
+    {
+        SensorTail tail = new SensorTail(csv);
+        int kept = RECORDS / 2;
+
+        Files.write(csv.toPath(), lines.subList(0, kept + 1), UTF8);
+
+        assertEquals(kept - RECORDS, tail.poll());
+        assertEquals(kept, tail.getData().rows());
+        assertEquals(csv.length(), tail.getOffset());
+        assertEquals(value(kept, 1), tail.getData().get(1, kept - 1), 0);
+    }
+
+    /**
+     * Appends text to the test file.
+     * @param text the text to append
+     * @throws IOException if the file can't be written
+     */
+    private void append(String text) throws IOException
+    {
+        FileOutputStream out = new FileOutputStream(csv, true);
+
+        try
+        {
+            out.write(text.getBytes(UTF8));
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+
+    /**
+     * Returns a field of one of the sample's lines.
+     * @param line the line (0 is the header)
+     * @param col the column
+     * @return the field's value
+     */
+    private float value(int line, int col)
+    {
+        return Float.parseFloat(lines.get(line).split(",")[col]);
+    }
+}
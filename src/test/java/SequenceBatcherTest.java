@@ -0,0 +1,198 @@
+/*
+ * File:    SequenceBatcherTest.java
+ * Created: October 17, 2026
+ * Author:  agent
+ * Project: Irrigation Recommendation System (IRS)
+ */
+
+import org.junit.Test;
+import org.nd4j.linalg.dataset.DataSet;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * <p>
+ * Tests how SequenceBatcher lays windows out in batches: padding and
+ * masks for short windows, longest-first ordering of the leftovers,
+ * partition boundaries, seeking to a batch, and windows that only overlap
+ * when asked to.
+ * </p>
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class SequenceBatcherTest
+{
+    /**
+     * The number of records in a full window.
+     */
+    private static final int EXAMPLE_LENGTH = 100;
+
+    /**
+     * 5/26/17 13:20 in epoch minutes.
+     */
+    private static final long START = SensorCsvParser.daysFromCivil(2017, 5, 26) * 1440L + 13 * 60 + 20;
+
+    /**
+     * A short window is padded to the batch's length, and the padding is
+     * masked out.
+     */
+    @Test
+    public void shortWindowIsPaddedAndMasked()
+    {
+        SequenceBatcher batcher = new SequenceBatcher(series(2 * EXAMPLE_LENGTH + 50), 4);
+        batcher.setVariableLength(10);
+
+        assertEquals(3, batcher.getWindowCount());
+        assertEquals(2 * EXAMPLE_LENGTH + 50, batcher.getRecordCount());
+
+        DataSet ds = batcher.next();
+
+        assertEquals(3, ds.getFeatures().size(0));
+        assertEquals(EXAMPLE_LENGTH, ds.getFeatures().size(2));
+        assertNotNull(ds.getLabelsMaskArray());
+        assertEquals(EXAMPLE_LENGTH, ds.getLabelsMaskArray().getRow(0).sumNumber().intValue());
+        assertEquals(50, ds.getLabelsMaskArray().getRow(2).sumNumber().intValue());
+        assertEquals(1, ds.getLabelsMaskArray().getDouble(2, 49), 0);
+        assertEquals(0, ds.getLabelsMaskArray().getDouble(2, 50), 0);
+        assertFalse(batcher.hasNext());
+    }
+
+    /**
+     * Full windows aren't masked when nothing is padded.
+     */
+    @Test
+    public void fullWindowsAreNotMasked()
+    {
+        SequenceBatcher batcher = new SequenceBatcher(series(3 * EXAMPLE_LENGTH), 2);
+        DataSet ds = batcher.next();
+
+        assertEquals(2, ds.getFeatures().size(0));
+        assertNull(ds.getLabelsMaskArray());
+    }
+
+    /**
+     * The leftover windows come after the full windows, longest first, so
+     * each batch holds windows of similar length.
+     */
+    @Test
+    public void leftoversAreLongestFirst()
+    {
+        SequenceBatcher batcher = new SequenceBatcher(Arrays.asList(series(EXAMPLE_LENGTH + 30),
+                series(EXAMPLE_LENGTH + 70), series(EXAMPLE_LENGTH + 45)), 1);
+        batcher.setVariableLength(10);
+
+        int[] lengths = new int[batcher.getWindowCount()];
+
+        for (int b = 0; batcher.hasNext(); b++)
+        {
+            lengths[b] = batcher.next().getFeatures().size(2);
+        }
+
+        assertArrayEquals(new int[]{EXAMPLE_LENGTH, EXAMPLE_LENGTH, EXAMPLE_LENGTH, 70, 45, 30}, lengths);
+    }
+
+    /**
+     * Every part but the last starts and ends on a batch boundary, and the
+     * parts cover every window once.
+     */
+    @Test
+    public void partitionsStartOnBatchBoundaries()
+    {
+        SequenceBatcher batcher = new SequenceBatcher(series(10 * EXAMPLE_LENGTH), 3);
+
+        for (int parts = 1; parts <= 12; parts++)
+        {
+            List<SequenceBatcher> partitions = batcher.partition(parts);
+            int windows = 0;
+
+            for (int p = 0; p < partitions.size(); p++)
+            {
+                int count = partitions.get(p).getWindowCount();
+
+                if (p < partitions.size() - 1)
+                {
+                    assertEquals("part " + p + " of " + parts, 0, count % 3);
+                }
+
+                windows += count;
+            }
+
+            assertEquals(batcher.getWindowCount(), windows);
+        }
+    }
+
+    /**
+     * seek moves to a batch and cursor counts the batches handed out, so
+     * a seek to the cursor carries on with the same batch.
+     */
+    @Test
+    public void seekIsTheInverseOfCursor()
+    {
+        SequenceBatcher batcher = new SequenceBatcher(series(10 * EXAMPLE_LENGTH), 3);
+
+        batcher.next();
+        batcher.next();
+        assertEquals(2, batcher.cursor());
+
+        DataSet third = batcher.next();
+
+        SequenceBatcher resumed = new SequenceBatcher(series(10 * EXAMPLE_LENGTH), 3);
+        resumed.seek(2);
+        assertEquals(2, resumed.cursor());
+        assertEquals(third.getFeatures(), resumed.next().getFeatures());
+
+        resumed.seek(batcher.totalExamples());
+        assertFalse(resumed.hasNext());
+
+        resumed.seek(-1);
+        assertEquals(0, resumed.cursor());
+    }
+
+    /**
+     * With a stride the windows overlap, unless overlapping is turned off
+     * (e.g., for evaluation).
+     */
+    @Test
+    public void strideOnlyAppliesWhenOverlapping()
+    {
+        IRSIterator iter = series(3 * EXAMPLE_LENGTH);
+        iter.setStride(EXAMPLE_LENGTH / 4);
+
+        SequenceBatcher batcher = new SequenceBatcher(iter, 4);
+        assertEquals(9, batcher.getWindowCount());
+
+        batcher.setOverlapping(false);
+        assertEquals(3, batcher.getWindowCount());
+    }
+
+    /**
+     * Builds a series with one record every 5 minutes from START.
+     * @param rows the number of records
+     * @return an iterator over the series with full windows of EXAMPLE_LENGTH
+     */
+    private static IRSIterator series(int rows)
+    {
+        long[] times = new long[rows];
+        float[] vwc = new float[rows];
+        float[] observed = new float[rows];
+
+        for (int r = 0; r < rows; r++)
+        {
+            times[r] = START + r * 5L;
+            vwc[r] = r % 17;
+            observed[r] = r % 13;
+        }
+
+        SensorData data = new SensorData(new String[]{"time/date", "Port 3 (VWC)", "observed"}, times,
+                new float[][]{null, vwc, observed}, null, rows);
+
+        return new IRSIterator(data, 1, 1, EXAMPLE_LENGTH, null);
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * File:    TrainingCheckpointerTest.java
+ * Created: October 17, 2026
+ * Author:  agent
+ * Project: Irrigation Recommendation System (IRS)
+ */
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * <p>
+ * Tests that a checkpoint written by TrainingCheckpointer restores the
+ * network, its progress and the settings needed to carry on the run.
+ * </p>
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class TrainingCheckpointerTest
+{
+    /**
+     * The sample csv file (in the project directory).
+     */
+    private static final String CSV = "SMSdataFORMATTED-3SENSORS.csv";
+
+    /**
+     * The number of sample records in the test file.
+     */
+    private static final int RECORDS = 600;
+
+    /**
+     * The test csv file.
+     */
+    private File csv;
+
+    /**
+     * The checkpoint file.
+     */
+    private File checkpoint;
+
+    /**
+     * Writes the header and the first records of the sample.
+     * @throws IOException if a file can't be read or written
+     */
+    @Before
+    public void writeRecords() throws IOException
+    {
+        List<String> lines = Files.readAllLines(new File(CSV).toPath(), Charset.forName("UTF-8"));
+
+        csv = File.createTempFile("irs-checkpoint", ".csv");
+        checkpoint = File.createTempFile("irs-checkpoint", ".zip");
+        Files.write(csv.toPath(), lines.subList(0, RECORDS + 1), Charset.forName("UTF-8"));
+    }
+
+    /**
+     * Deletes the test files (and the csv's cache).
+     */
+    @After
+    public void deleteRecords()
+    {
+        csv.delete();
+        SensorDataCache.sidecarFor(csv).delete();
+        checkpoint.delete();
+    }
+
+    /**
+     * The progress, the parameters and the run's settings come back the
+     * same way they were written.
+     */
+    @Test
+    public void checkpointRoundTrip()
+    {
+        IRSFunctions model = new IRSFunctions(8, 1, 50, 50, 3, csv.getPath(), 13);
+        model.setCropType("corn, sweet=1");
+        model.setSoilType("loam");
+        model.setStride(25);
+        model.setHoldOut(0.2);
+        model.setCheckpoints(checkpoint, 4, 0);
+
+        TrainingCheckpointer checkpointer = model.getCheckpointer();
+        checkpointer.checkpoint(model, 1, 3, 7);
+        checkpointer.finish();
+
+        TrainingCheckpointer.Progress progress = TrainingCheckpointer.restoreProgress(checkpoint);
+
+        assertNotNull(progress);
+        assertEquals(1, progress.getEpoch());
+        assertEquals(3, progress.getPosition());
+        assertEquals(7, progress.getIteration());
+        assertEquals(3, progress.getEpochs());
+        assertEquals(csv.getPath(), progress.getData());
+        assertEquals(13, progress.getColumns());
+        assertEquals(4, progress.getEveryDataSets());
+        assertEquals(0, progress.getEveryMinutes());
+
+        IRSFunctions resumed = new IRSFunctions(checkpoint, progress.getData(), progress.getColumns());
+
+        assertEquals("corn, sweet=1", resumed.getCropType());
+        assertEquals(25, resumed.getStride());
+        assertEquals(0.2, resumed.getHoldOut(), 0);
+        assertEquals(model.getExamples(), resumed.getExamples());
+        assertEquals(model.getRecordCount(), resumed.getRecordCount());
+        assertEquals(Arrays.toString(model.getNetwork().params().data().asFloat()),
+                Arrays.toString(resumed.getNetwork().params().data().asFloat()));
+    }
+
+    /**
+     * A checkpoint can't be resumed on data with a different number of
+     * records.
+     * @throws IOException if the csv can't be rewritten
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void otherDataIsRefused() throws IOException
+    {
+        IRSFunctions model = new IRSFunctions(8, 1, 50, 50, 1, csv.getPath(), 13);
+        model.setCheckpoints(checkpoint, 4, 0);
+        model.getCheckpointer().checkpoint(model, 0, 1, 1);
+        model.getCheckpointer().finish();
+
+        List<String> lines = Files.readAllLines(csv.toPath(), Charset.forName("UTF-8"));
+        Files.write(csv.toPath(), lines.subList(0, RECORDS / 2 + 1), Charset.forName("UTF-8"));
+
+        new IRSFunctions(checkpoint, csv.getPath(), 13);
+    }
+}